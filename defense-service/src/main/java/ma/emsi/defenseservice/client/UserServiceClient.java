@@ -1,9 +1,13 @@
 package ma.emsi.defenseservice.client;
 
+import ma.emsi.defenseservice.dto.external.UserBatchRequest;
+import ma.emsi.defenseservice.dto.external.UserBatchResponse;
 import ma.emsi.defenseservice.dto.external.UserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 /**
  * Client Feign pour communiquer avec le user-service
@@ -19,6 +23,13 @@ public interface UserServiceClient {
     @GetMapping("/{id}")
     UserDTO getUserById(@PathVariable Long id);
 
+    /**
+     * Récupérer plusieurs utilisateurs par leurs IDs en une seule requête
+     * (100 IDs maximum, les IDs introuvables sont listés dans "missing")
+     */
+    @PostMapping("/batch")
+    UserBatchResponse getUsersByIds(@RequestBody UserBatchRequest request);
+
     /**
      * Récupérer le profil de l'utilisateur connecté
      * (nécessite un token JWT dans le header)
@@ -0,0 +1,17 @@
+package ma.emsi.defenseservice.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Requête de recherche groupée d'utilisateurs (POST /api/users/batch du user-service)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRequest {
+    private List<Long> ids;
+}
@@ -0,0 +1,20 @@
+package ma.emsi.defenseservice.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réponse de la recherche groupée d'utilisateurs
+ * Doit correspondre exactement à UserBatchResponse du user-service
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchResponse {
+    private Map<Long, UserDTO> users;
+    private List<Long> missing;
+}
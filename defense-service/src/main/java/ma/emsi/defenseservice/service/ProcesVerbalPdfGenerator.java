@@ -25,6 +25,7 @@ import java.io.ByteArrayOutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -201,9 +202,13 @@ public class ProcesVerbalPdfGenerator {
                 .sorted(Comparator.comparing(this::getRolePriority))
                 .collect(Collectors.toList());
 
+        Map<Long, UserDTO> professors = userServiceFacade.getUsersByIds(sortedMembers.stream()
+                .map(JuryMember::getProfessorId)
+                .collect(Collectors.toList()));
+
         int index = 1;
         for (JuryMember member : sortedMembers) {
-            UserDTO professor = userServiceFacade.getUserById(member.getProfessorId());
+            UserDTO professor = professors.get(member.getProfessorId());
 
             table.addCell(createCell(String.valueOf(index++)));
             table.addCell(createCell(professor.getFirstName() + " " + professor.getLastName()));
@@ -274,8 +279,12 @@ public class ProcesVerbalPdfGenerator {
                 .sorted(Comparator.comparing(this::getRolePriority))
                 .collect(Collectors.toList());
 
+        Map<Long, UserDTO> professors = userServiceFacade.getUsersByIds(sortedMembers.stream()
+                .map(JuryMember::getProfessorId)
+                .collect(Collectors.toList()));
+
         for (JuryMember member : sortedMembers) {
-            UserDTO professor = userServiceFacade.getUserById(member.getProfessorId());
+            UserDTO professor = professors.get(member.getProfessorId());
 
             Paragraph signature = new Paragraph()
                     .add(getRoleLabel(member.getRole()) + " : ")
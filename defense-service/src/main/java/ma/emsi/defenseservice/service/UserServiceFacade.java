@@ -3,13 +3,20 @@ package ma.emsi.defenseservice.service;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import ma.emsi.defenseservice.client.UserServiceClient;
+import ma.emsi.defenseservice.dto.external.UserBatchRequest;
+import ma.emsi.defenseservice.dto.external.UserBatchResponse;
 import ma.emsi.defenseservice.dto.external.UserDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Facade pour les appels au user-service avec Resilience4j
@@ -20,6 +27,11 @@ public class UserServiceFacade {
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceFacade.class);
 
+    /**
+     * Nombre maximum d'IDs acceptés par POST /api/users/batch
+     */
+    private static final int BATCH_SIZE = 100;
+
     @Autowired
     private UserServiceClient userServiceClient;
 
@@ -46,6 +58,56 @@ public class UserServiceFacade {
         logger.error("❌ Fallback activé pour l'utilisateur ID: {}. Erreur: {}",
                 userId, e.getMessage());
 
+        return unavailableUser(userId);
+    }
+
+    /**
+     * Récupère plusieurs utilisateurs en un appel par lot de 100 IDs, avec Circuit Breaker et Retry
+     * Les IDs introuvables sont remplacés par un utilisateur par défaut, comme pour getUserById
+     *
+     * @param userIds IDs des utilisateurs (les doublons sont ignorés)
+     * @return Utilisateurs indexés par ID, dans l'ordre des IDs demandés
+     */
+    @CircuitBreaker(name = "userService", fallbackMethod = "getUsersByIdsFallback")
+    @Retry(name = "userService")
+    public Map<Long, UserDTO> getUsersByIds(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().distinct().toList();
+        logger.info("🔍 Appel groupé au user-service pour {} utilisateur(s)", ids.size());
+
+        Map<Long, UserDTO> users = new LinkedHashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            UserBatchResponse response = userServiceClient.getUsersByIds(new UserBatchRequest(new ArrayList<>(chunk)));
+
+            for (Long id : chunk) {
+                UserDTO user = response.getUsers() != null ? response.getUsers().get(id) : null;
+                users.put(id, user != null ? user : unavailableUser(id));
+            }
+            if (response.getMissing() != null && !response.getMissing().isEmpty()) {
+                logger.warn("⚠️ Utilisateurs introuvables: {}", response.getMissing());
+            }
+        }
+
+        logger.info("✅ {} utilisateur(s) récupéré(s)", users.size());
+        return users;
+    }
+
+    /**
+     * Fallback pour la récupération groupée
+     * Retourne un utilisateur par défaut pour chaque ID demandé
+     */
+    private Map<Long, UserDTO> getUsersByIdsFallback(Collection<Long> userIds, Exception e) {
+        logger.error("❌ Fallback activé pour {} utilisateur(s). Erreur: {}", userIds.size(), e.getMessage());
+
+        Map<Long, UserDTO> users = new LinkedHashMap<>();
+        userIds.forEach(id -> users.putIfAbsent(id, unavailableUser(id)));
+        return users;
+    }
+
+    /**
+     * Utilisateur par défaut avec des informations minimales
+     */
+    private UserDTO unavailableUser(Long userId) {
         UserDTO fallbackUser = new UserDTO();
         fallbackUser.setId(userId);
         fallbackUser.setFirstName("Utilisateur");
@@ -0,0 +1,73 @@
+import { TestBed } from '@angular/core/testing';
+import { HttpClient, provideHttpClient, withInterceptors } from '@angular/common/http';
+import { provideHttpClientTesting, HttpTestingController } from '@angular/common/http/testing';
+import { Router } from '@angular/router';
+import { authInterceptor } from './auth.interceptor';
+import { AuthService } from '../services/auth.service';
+import { environment } from '../../environments/environment';
+
+describe('authInterceptor', () => {
+  let http: HttpClient;
+  let httpMock: HttpTestingController;
+  const REFRESH_URL = `${environment.apiUrl}/auth/refresh`;
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      providers: [
+        provideHttpClient(withInterceptors([authInterceptor])),
+        provideHttpClientTesting(),
+        { provide: Router, useValue: jasmine.createSpyObj('Router', ['navigate']) }
+      ]
+    });
+
+    http = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+
+    // Created without a token, so that it does not load the current user
+    localStorage.clear();
+    TestBed.inject(AuthService);
+    localStorage.setItem(environment.tokenKey, 'expired-access-token');
+    localStorage.setItem(environment.refreshTokenKey, 'refresh-token');
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+    localStorage.clear();
+  });
+
+  it('should refresh once for parallel 401 responses and replay every request', () => {
+    const results: string[] = [];
+    http.get<string>('/api/users/1').subscribe(result => results.push(result));
+    http.get<string>('/api/users/2').subscribe(result => results.push(result));
+
+    httpMock.expectOne('/api/users/1').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('/api/users/2').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    // A single refresh request, presenting the refresh token once
+    const refreshReq = httpMock.expectOne(REFRESH_URL);
+    expect(refreshReq.request.body).toEqual({ refreshToken: 'refresh-token' });
+    refreshReq.flush({ accessToken: 'new-access-token', refreshToken: 'new-refresh-token' });
+
+    const retried = httpMock.match(req => req.url.startsWith('/api/users/'));
+    expect(retried.length).toBe(2);
+    retried.forEach(req => {
+      expect(req.request.headers.get('Authorization')).toBe('Bearer new-access-token');
+      req.flush(req.request.url);
+    });
+
+    expect(results).toEqual(['/api/users/1', '/api/users/2']);
+    expect(localStorage.getItem(environment.refreshTokenKey)).toBe('new-refresh-token');
+  });
+
+  it('should replay without refreshing when the token changed since the request was sent', () => {
+    http.get<string>('/api/users/1').subscribe();
+
+    localStorage.setItem(environment.tokenKey, 'already-refreshed-token');
+    httpMock.expectOne('/api/users/1').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    httpMock.expectNone(REFRESH_URL);
+    const retried = httpMock.expectOne('/api/users/1');
+    expect(retried.request.headers.get('Authorization')).toBe('Bearer already-refreshed-token');
+    retried.flush('ok');
+  });
+});
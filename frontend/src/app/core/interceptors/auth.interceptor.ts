@@ -1,15 +1,32 @@
 import { HttpInterceptorFn, HttpErrorResponse } from '@angular/common/http';
 import { inject } from '@angular/core';
-import { AuthService } from '../services/auth.service';
-import { catchError, switchMap, throwError } from 'rxjs';
+import { AuthService, TokenResponse } from '../services/auth.service';
+import { Observable, catchError, finalize, shareReplay, switchMap, throwError } from 'rxjs';
 import { Router } from '@angular/router';
 
+/**
+ * Rafraîchissement en cours, partagé par toutes les requêtes en 401 :
+ * le refresh token n'est présenté qu'une fois, même si la page envoie des requêtes en parallèle
+ */
+let refreshInFlight$: Observable<TokenResponse> | null = null;
+
+function sharedRefresh(authService: AuthService): Observable<TokenResponse> {
+  if (!refreshInFlight$) {
+    refreshInFlight$ = authService.refreshToken().pipe(
+      finalize(() => refreshInFlight$ = null),
+      shareReplay(1)
+    );
+  }
+  return refreshInFlight$;
+}
+
 /**
  * 🔐 Intercepteur d'authentification JWT
  * 
  * Fonctionnalités :
  * - Ajoute automatiquement le token JWT aux requêtes
- * - Gère le rafraîchissement automatique du token en cas d'expiration
+ * - Gère le rafraîchissement automatique du token en cas d'expiration (un seul rafraîchissement
+ *   pour toutes les requêtes en 401, rejouées ensuite avec le nouveau token)
  * - Redirige vers login en cas d'échec d'authentification
  */
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
@@ -43,9 +60,19 @@ export const authInterceptor: HttpInterceptorFn = (req, next) => {
     catchError((error: HttpErrorResponse) => {
       // Si erreur 401 et qu'on a un refresh token, tenter le rafraîchissement
       if (error.status === 401 && authService.getRefreshToken()) {
+        // Token déjà rafraîchi depuis l'envoi de la requête : la rejouer sans nouveau rafraîchissement
+        const currentToken = authService.getToken();
+        if (currentToken && currentToken !== token) {
+          return next(req.clone({
+            setHeaders: {
+              Authorization: `Bearer ${currentToken}`
+            }
+          }));
+        }
+
         console.log('🔄 Token expiré, tentative de rafraîchissement...');
         
-        return authService.refreshToken().pipe(
+        return sharedRefresh(authService).pipe(
           switchMap(() => {
             // ✅ Réessayer la requête avec le nouveau token
             const newToken = authService.getToken();
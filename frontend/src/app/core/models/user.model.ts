@@ -14,6 +14,15 @@ export interface User {
   roles: string[];  // ✅ Backend renvoie Set<String> pas Role[]
 }
 
+/**
+ * 🔹 Page d'utilisateurs triés par id (UserPageResponse.java) :
+ * nextAfterId est à passer en afterId pour la page suivante, null sur la dernière page
+ */
+export interface UserPageResponse<T = UserResponse> {
+  users: T[];
+  nextAfterId: number | null;
+}
+
 /**
  * 🔹 Réponse du backend (UserResponse.java)
  */
@@ -1,8 +1,9 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable, of } from 'rxjs';
-import { map } from 'rxjs/operators';
+import { EMPTY, Observable, of } from 'rxjs';
+import { expand, map, reduce } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
+import { UserPageResponse } from '../models/user.model';
 
 export interface UserStatisticsResponse {
   totalUsers: number;
@@ -33,14 +34,6 @@ export interface UserResponse {
   enabled: boolean;
 }
 
-export interface Page<T> {
-  content: T[];
-  totalElements: number;
-  totalPages: number;
-  size: number;
-  number: number;
-}
-
 @Injectable({
   providedIn: 'root'
 })
@@ -77,11 +70,20 @@ export class UserManagementService {
     });
   }
 
-  getAllUsers(page: number = 0, size: number = 20): Observable<UserResponse[]> {
-    const params = new HttpParams()
-      .set('page', page.toString())
-      .set('size', size.toString());
-    return this.http.get<UserResponse[]>(this.apiUrl, { params });
+  // GET /api/users : pages triées par id, la suivante s'obtient avec afterId = nextAfterId
+  getUsersPage(afterId: number | null = null, size: number = 200): Observable<UserPageResponse<UserResponse>> {
+    let params = new HttpParams().set('size', size.toString());
+    if (afterId !== null) {
+      params = params.set('afterId', afterId.toString());
+    }
+    return this.http.get<UserPageResponse<UserResponse>>(this.apiUrl, { params });
+  }
+
+  getAllUsers(): Observable<UserResponse[]> {
+    return this.getUsersPage().pipe(
+      expand(page => page.nextAfterId !== null ? this.getUsersPage(page.nextAfterId) : EMPTY),
+      reduce((users, page) => users.concat(page.users), [] as UserResponse[])
+    );
   }
 
   getUserById(id: number): Observable<UserResponse> {
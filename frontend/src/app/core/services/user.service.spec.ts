@@ -0,0 +1,50 @@
+import { TestBed } from '@angular/core/testing';
+import { provideHttpClient } from '@angular/common/http';
+import { provideHttpClientTesting, HttpTestingController } from '@angular/common/http/testing';
+import { UserService } from './user.service';
+import { UserResponse } from '../models/user.model';
+import { environment } from '../../environments/environment';
+
+describe('UserService', () => {
+  let service: UserService;
+  let httpMock: HttpTestingController;
+  const USER_API_URL = `${environment.apiUrl}/users`;
+
+  const user = (id: number): UserResponse => ({
+    id,
+    FirstName: 'User',
+    LastName: `${id}`,
+    email: `user${id}@example.com`,
+    phoneNumber: '0600000000',
+    adresse: 'Adresse',
+    ville: 'Rabat',
+    pays: 'Maroc',
+    roles: ['ROLE_DOCTORANT']
+  });
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      providers: [UserService, provideHttpClient(), provideHttpClientTesting()]
+    });
+    service = TestBed.inject(UserService);
+    httpMock = TestBed.inject(HttpTestingController);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should follow nextAfterId until the last page', () => {
+    let users: UserResponse[] = [];
+    service.getAllUsers().subscribe(result => users = result);
+
+    const first = httpMock.expectOne(req => req.url === USER_API_URL && !req.params.has('afterId'));
+    expect(first.request.params.get('size')).toBe('200');
+    first.flush({ users: [user(1), user(2)], nextAfterId: 2 });
+
+    const second = httpMock.expectOne(req => req.url === USER_API_URL && req.params.get('afterId') === '2');
+    second.flush({ users: [user(3)], nextAfterId: null });
+
+    expect(users.map(u => u.id)).toEqual([1, 2, 3]);
+  });
+});
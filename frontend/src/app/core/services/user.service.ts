@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
-import { User, UserResponse } from '../models/user.model';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { EMPTY, Observable, expand, reduce } from 'rxjs';
+import { User, UserPageResponse, UserResponse } from '../models/user.model';
 import { Role, RoleName } from '../models/role.model';
 import { environment } from '../../environments/environment';
 import { ChangePasswordRequest } from './auth.service';
@@ -67,10 +67,24 @@ export class UserService {
   }
 
   /**
-   * 🔹 Récupérer tous les utilisateurs (ADMIN uniquement)
+   * 🔹 Récupérer une page d'utilisateurs triés par id, après afterId (ADMIN uniquement)
+   */
+  getUsersPage(afterId: number | null = null, size: number = 200): Observable<UserPageResponse> {
+    let params = new HttpParams().set('size', size);
+    if (afterId !== null) {
+      params = params.set('afterId', afterId);
+    }
+    return this.http.get<UserPageResponse>(this.API_URL, { params });
+  }
+
+  /**
+   * 🔹 Récupérer tous les utilisateurs, page après page (ADMIN uniquement)
    */
   getAllUsers(): Observable<UserResponse[]> {
-    return this.http.get<UserResponse[]>(this.API_URL);
+    return this.getUsersPage().pipe(
+      expand(page => page.nextAfterId !== null ? this.getUsersPage(page.nextAfterId) : EMPTY),
+      reduce((users, page) => users.concat(page.users), [] as UserResponse[])
+    );
   }
 
   /**
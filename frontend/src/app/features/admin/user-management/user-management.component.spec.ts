@@ -44,7 +44,7 @@ describe('UserManagementComponent', () => {
 
   beforeEach(async () => {
     const userServiceSpy = jasmine.createSpyObj('UserService', [
-      'getAllUsers',
+      'getUsersPage',
       'createUser',
       'updateUser',
       'deleteUser',
@@ -69,7 +69,7 @@ describe('UserManagementComponent', () => {
     mockUserService = TestBed.inject(UserService) as jasmine.SpyObj<UserService>;
     
     // Setup default mock responses
-    mockUserService.getAllUsers.and.returnValue(of(mockUsers));
+    mockUserService.getUsersPage.and.returnValue(of({ users: mockUsers, nextAfterId: null }));
   });
 
   it('should create', () => {
@@ -79,9 +79,31 @@ describe('UserManagementComponent', () => {
   it('should load users on init', () => {
     component.ngOnInit();
     
-    expect(mockUserService.getAllUsers).toHaveBeenCalled();
+    expect(mockUserService.getUsersPage).toHaveBeenCalledWith(null, component.batchSize);
     expect(component.users$.value).toEqual(mockUsers);
     expect(component.totalUsers).toBe(2);
+    expect(component.nextAfterId).toBeNull();
+  });
+
+  it('should load the next batch of users on demand', () => {
+    mockUserService.getUsersPage.and.returnValues(
+      of({ users: [mockUsers[0]], nextAfterId: 1 }),
+      of({ users: [mockUsers[1]], nextAfterId: null })
+    );
+
+    component.ngOnInit();
+    expect(component.users$.value).toEqual([mockUsers[0]]);
+    expect(component.nextAfterId).toBe(1);
+
+    component.loadMoreUsers();
+    expect(mockUserService.getUsersPage).toHaveBeenCalledWith(1, component.batchSize);
+    expect(component.users$.value).toEqual(mockUsers);
+    expect(component.totalUsers).toBe(2);
+    expect(component.nextAfterId).toBeNull();
+
+    // Dernière page atteinte : plus d'appel
+    component.loadMoreUsers();
+    expect(mockUserService.getUsersPage).toHaveBeenCalledTimes(2);
   });
 
   it('should filter users by search term', (done) => {
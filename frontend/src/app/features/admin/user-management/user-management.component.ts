@@ -61,6 +61,11 @@ export class UserManagementComponent implements OnInit {
   pageSize = 10;
   pageIndex = 0;
   totalUsers = 0;
+
+  // Chargement par lots depuis le serveur (pagination par curseur)
+  readonly batchSize = 100;
+  nextAfterId: number | null = null;
+  loadingMore = false;
   
   // Sorting
   sortField = 'id';
@@ -105,10 +110,11 @@ export class UserManagementComponent implements OnInit {
 
   loadUsers(): void {
     this.loading = true;
-    this.userService.getAllUsers().subscribe({
-      next: (users) => {
-        this.users$.next(users);
-        this.totalUsers = users.length;
+    this.userService.getUsersPage(null, this.batchSize).subscribe({
+      next: (page) => {
+        this.users$.next(page.users);
+        this.totalUsers = page.users.length;
+        this.nextAfterId = page.nextAfterId;
         this.loading = false;
       },
       error: (error) => {
@@ -121,6 +127,30 @@ export class UserManagementComponent implements OnInit {
     });
   }
 
+  // Lot suivant, ajouté aux utilisateurs déjà chargés
+  loadMoreUsers(): void {
+    if (this.nextAfterId === null || this.loadingMore) {
+      return;
+    }
+    this.loadingMore = true;
+    this.userService.getUsersPage(this.nextAfterId, this.batchSize).subscribe({
+      next: (page) => {
+        const users = this.users$.value.concat(page.users);
+        this.users$.next(users);
+        this.totalUsers = users.length;
+        this.nextAfterId = page.nextAfterId;
+        this.loadingMore = false;
+      },
+      error: (error) => {
+        console.error('Erreur lors du chargement des utilisateurs:', error);
+        this.snackBar.open('Erreur lors du chargement des utilisateurs', 'Fermer', {
+          duration: 3000
+        });
+        this.loadingMore = false;
+      }
+    });
+  }
+
   private filterUsers(users: UserResponse[], searchTerm: string): UserResponse[] {
     let filtered = users;
 
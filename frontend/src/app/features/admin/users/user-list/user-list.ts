@@ -3,7 +3,7 @@ import { CommonModule } from '@angular/common';
 import { FormsModule, ReactiveFormsModule, FormBuilder, FormGroup, Validators } from '@angular/forms';
 import { RouterModule, Router, ActivatedRoute } from '@angular/router';
 import { Subject, debounceTime, distinctUntilChanged } from 'rxjs';
-import { UserManagementService, UserResponse, Page } from '../../../../core/services/user-management.service';
+import { UserManagementService, UserResponse } from '../../../../core/services/user-management.service';
 
 interface FilterCriteria {
     searchTerm: string;
@@ -31,6 +31,11 @@ export class UserList implements OnInit {
     totalPages = 0;
     totalElements = 0;
 
+    // Chargement par lots depuis le serveur (pagination par curseur)
+    readonly batchSize = 100;
+    nextAfterId: number | null = null;
+    isLoadingMore = false;
+
     // Filters
     filters: FilterCriteria = {
         searchTerm: '',
@@ -135,9 +140,10 @@ export class UserList implements OnInit {
         this.isLoading = true;
         this.errorMessage = '';
 
-        this.userManagementService.getAllUsers().subscribe({
-            next: (data) => {
-                this.users = data;
+        this.userManagementService.getUsersPage(null, this.batchSize).subscribe({
+            next: (page) => {
+                this.users = page.users;
+                this.nextAfterId = page.nextAfterId;
                 this.applyFilters();
                 this.isLoading = false;
             },
@@ -149,6 +155,33 @@ export class UserList implements OnInit {
         });
     }
 
+    get hasMoreUsers(): boolean {
+        return this.nextAfterId !== null;
+    }
+
+    // Lot suivant, ajouté aux utilisateurs déjà chargés (les filtres portent sur les utilisateurs chargés)
+    loadMoreUsers(): void {
+        if (this.nextAfterId === null || this.isLoadingMore) {
+            return;
+        }
+        this.isLoadingMore = true;
+
+        this.userManagementService.getUsersPage(this.nextAfterId, this.batchSize).subscribe({
+            next: (page) => {
+                this.users = this.users.concat(page.users);
+                this.nextAfterId = page.nextAfterId;
+                this.applyFilters();
+                this.isLoadingMore = false;
+            },
+            error: (error) => {
+                console.error('Error loading more users:', error);
+                this.errorMessage = 'Impossible de charger plus d\'utilisateurs';
+                this.isLoadingMore = false;
+                setTimeout(() => this.errorMessage = '', 3000);
+            }
+        });
+    }
+
     onSearchChange(searchTerm: string): void {
         this.searchSubject.next(searchTerm);
     }
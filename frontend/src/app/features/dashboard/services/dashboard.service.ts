@@ -196,7 +196,8 @@ export class DashboardService {
         catchError(() => of([]))
       ),
       // Utilisateurs actifs
-      users: this.http.get<any[]>(`${this.API_URL}/users`).pipe(
+      users: this.http.get<any>(`${this.API_URL}/users`).pipe(
+        map((page: any) => page?.users || []),
         catchError(() => of([]))
       ),
       // Logs récents
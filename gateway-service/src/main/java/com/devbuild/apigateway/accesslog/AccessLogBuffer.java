@@ -0,0 +1,75 @@
+package com.devbuild.apigateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer with many producers (event loop threads) and a single
+ * consumer (the drainer). Producers never block: {@link #offer} fails when the buffer is full.
+ */
+public class AccessLogBuffer {
+
+    private final AtomicReferenceArray<AccessLogRecord> slots;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    public AccessLogBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add a record, or return false when the buffer is full
+     */
+    public boolean offer(AccessLogRecord record) {
+        while (true) {
+            long index = producerIndex.get();
+            if (index - consumerIndex >= slots.length()) {
+                return false;
+            }
+            if (producerIndex.compareAndSet(index, index + 1)) {
+                slots.lazySet((int) index & mask, record);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hand up to {@code limit} records to the consumer, in insertion order.
+     * Must only be called from the single consumer thread.
+     *
+     * @return the number of records drained
+     */
+    public int drain(Consumer<AccessLogRecord> consumer, int limit) {
+        long index = consumerIndex;
+        int drained = 0;
+        while (drained < limit) {
+            int slot = (int) index & mask;
+            AccessLogRecord record = slots.get(slot);
+            if (record == null) {
+                // Empty, or claimed by a producer that has not published yet
+                break;
+            }
+            slots.lazySet(slot, null);
+            index++;
+            consumerIndex = index;
+            consumer.accept(record);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
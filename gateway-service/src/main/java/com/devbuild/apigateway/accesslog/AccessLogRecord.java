@@ -0,0 +1,43 @@
+package com.devbuild.apigateway.accesslog;
+
+/**
+ * One line of the gateway access log.
+ * {@code upstreamStatus} is null when the request was answered by the gateway itself
+ * (authentication, rate limiting, cache hit, fallback).
+ */
+public record AccessLogRecord(
+        long timestamp,
+        String requestId,
+        String method,
+        String path,
+        String routeId,
+        int status,
+        Integer upstreamStatus,
+        long latencyMs,
+        String clientIp,
+        String userId
+) {
+
+    /**
+     * Error responses and requests that never completed (status 0)
+     */
+    public boolean isError() {
+        return status == 0 || status >= 400;
+    }
+
+    /**
+     * Compact key=value form written to the log
+     */
+    public void appendTo(StringBuilder line) {
+        line.append("ts=").append(timestamp)
+                .append(" rid=").append(requestId)
+                .append(" method=").append(method)
+                .append(" path=").append(path)
+                .append(" route=").append(routeId != null ? routeId : "-")
+                .append(" status=").append(status)
+                .append(" upstream=").append(upstreamStatus != null ? upstreamStatus : "-")
+                .append(" latency_ms=").append(latencyMs)
+                .append(" ip=").append(clientIp)
+                .append(" user=").append(userId != null ? userId : "-");
+    }
+}
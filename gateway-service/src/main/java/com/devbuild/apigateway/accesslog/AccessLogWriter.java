@@ -0,0 +1,154 @@
+package com.devbuild.apigateway.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access log pipeline.
+ * <p>
+ * Request threads only sample and enqueue a record; a background thread drains the buffer
+ * and writes the records in batches to the {@code gateway.access} logger. Errors and slow
+ * requests are always kept, successful ones are sampled. When the buffer is full records
+ * are dropped and counted, never waited on.
+ */
+@Component
+@Slf4j
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("gateway.access");
+
+    private final AccessLogBuffer buffer;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdMs;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Counter droppedCounter;
+    private final Counter sampledOutCounter;
+
+    private ScheduledExecutorService drainer;
+
+    public AccessLogWriter(MeterRegistry meterRegistry,
+                           @Value("${access-log.enabled:true}") boolean enabled,
+                           @Value("${access-log.buffer-size:8192}") int bufferSize,
+                           @Value("${access-log.batch-size:256}") int batchSize,
+                           @Value("${access-log.flush-interval:200ms}") Duration flushInterval,
+                           @Value("${access-log.sample-rate:0.1}") double sampleRate,
+                           @Value("${access-log.slow-threshold:1s}") Duration slowThreshold) {
+        this.buffer = new AccessLogBuffer(bufferSize);
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdMs = slowThreshold.toMillis();
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushInterval.toMillis();
+        this.droppedCounter = Counter.builder("gateway.accesslog.dropped")
+                .description("Access log records dropped because the buffer was full")
+                .register(meterRegistry);
+        this.sampledOutCounter = Counter.builder("gateway.accesslog.sampled.out")
+                .description("Successful requests not logged because of sampling")
+                .register(meterRegistry);
+        Gauge.builder("gateway.accesslog.buffer.size", buffer, AccessLogBuffer::size)
+                .description("Access log records waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "access-log-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drainSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (drainer == null) {
+            return;
+        }
+        drainer.shutdown();
+        if (drainer.awaitTermination(1, TimeUnit.SECONDS)) {
+            // Flush what is left once the drainer thread is gone
+            drain();
+        }
+    }
+
+    /**
+     * Submit a completed request; never blocks
+     *
+     * @return true if the record was queued for writing
+     */
+    public boolean submit(AccessLogRecord record) {
+        if (!enabled) {
+            return false;
+        }
+        if (!shouldLog(record)) {
+            sampledOutCounter.increment();
+            return false;
+        }
+        if (!buffer.offer(record)) {
+            droppedCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    boolean shouldLog(AccessLogRecord record) {
+        if (record.isError() || record.latencyMs() >= slowThresholdMs) {
+            return true;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Write everything currently buffered, one log event per batch
+     *
+     * @return the number of records written
+     */
+    int drain() {
+        int total = 0;
+        StringBuilder batch = new StringBuilder(batchSize * 160);
+        int drained;
+        do {
+            batch.setLength(0);
+            drained = buffer.drain(record -> {
+                if (!batch.isEmpty()) {
+                    batch.append('\n');
+                }
+                record.appendTo(batch);
+            }, batchSize);
+            if (drained > 0) {
+                ACCESS_LOG.info("{}", batch);
+                total += drained;
+            }
+        } while (drained == batchSize);
+        return total;
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Keep the scheduled task alive
+            log.warn("Access log drain failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.devbuild.apigateway.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * GET response stored by the {@link ResponseCache}
+ */
+public record CachedResponse(
+        int status,
+        String contentType,
+        byte[] body,
+        String etag,
+        long storedAt,
+        long expiresAt
+) {
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Age of the entry in seconds, for the Age header
+     */
+    public long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1000);
+    }
+
+    /**
+     * Strong ETag derived from the body
+     */
+    public static String etagOf(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
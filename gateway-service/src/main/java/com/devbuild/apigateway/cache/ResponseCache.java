@@ -0,0 +1,211 @@
+package com.devbuild.apigateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Two-tier store for cached GET responses: a local in-memory tier bounded by body size
+ * and an optional Redis tier shared by every gateway instance.
+ * <p>
+ * Keys start with the route id followed by {@code |}, so a route can be purged as a whole.
+ * Purges are broadcast on a Redis channel so every instance drops its local entries.
+ */
+@Component
+@Slf4j
+public class ResponseCache {
+
+    private static final String REDIS_KEY_PREFIX = "response_cache:";
+    private static final String PURGE_ALL = "*";
+    private static final Duration REDIS_TIMEOUT = Duration.ofMillis(100);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final boolean redisEnabled;
+    private final String purgeChannel;
+    private final Cache<String, CachedResponse> local;
+
+    private Disposable purgeSubscription;
+
+    public ResponseCache(ReactiveStringRedisTemplate redisTemplate,
+                         ReactiveRedisMessageListenerContainer listenerContainer,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${response-cache.max-size-bytes:67108864}") long maxSizeBytes,
+                         @Value("${response-cache.redis.enabled:false}") boolean redisEnabled,
+                         @Value("${response-cache.purge-channel:gateway:response-cache-purge}") String purgeChannel) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.redisEnabled = redisEnabled;
+        this.purgeChannel = purgeChannel;
+
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        long ttlMs = response.expiresAt() - System.currentTimeMillis();
+                        return Duration.ofMillis(Math.max(0, ttlMs)).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "gateway.response.cache");
+    }
+
+    @PostConstruct
+    void subscribe() {
+        purgeSubscription = listenerContainer.receive(ChannelTopic.of(purgeChannel))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(message -> purgeLocal(message.getMessage()));
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        if (purgeSubscription != null) {
+            purgeSubscription.dispose();
+        }
+    }
+
+    /**
+     * Build a cache key for a route
+     */
+    public static String key(String routeId, String scope, String pathAndQuery) {
+        return routeId + "|" + scope + "|" + pathAndQuery;
+    }
+
+    /**
+     * Look a response up in the local tier, then in the Redis tier
+     */
+    public Mono<CachedResponse> get(String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse cached = local.getIfPresent(key);
+        if (cached != null && !cached.isExpired(now)) {
+            return Mono.just(cached);
+        }
+        if (!redisEnabled) {
+            return Mono.empty();
+        }
+
+        return redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key)
+                .timeout(REDIS_TIMEOUT)
+                .flatMap(json -> Mono.justOrEmpty(deserialize(json)))
+                .filter(response -> !response.isExpired(System.currentTimeMillis()))
+                .doOnNext(response -> local.put(key, response))
+                .onErrorResume(e -> {
+                    log.warn("Response cache Redis lookup failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Store a response in both tiers
+     */
+    public void put(String key, CachedResponse response) {
+        local.put(key, response);
+        if (!redisEnabled) {
+            return;
+        }
+
+        String json = serialize(response);
+        if (json == null) {
+            return;
+        }
+        Duration ttl = Duration.ofMillis(Math.max(1, response.expiresAt() - System.currentTimeMillis()));
+        redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, json, ttl)
+                .timeout(REDIS_TIMEOUT)
+                .subscribe(stored -> { }, e -> log.warn("Response cache Redis store failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Purge every cached response of a route, or the whole cache when {@code routeId} is null,
+     * on every gateway instance
+     *
+     * @return the number of entries removed from Redis
+     */
+    public Mono<Long> purge(String routeId) {
+        String target = routeId != null ? routeId : PURGE_ALL;
+        purgeLocal(target);
+        if (!redisEnabled) {
+            return Mono.just(0L);
+        }
+
+        Mono<Long> redisPurge = redisTemplate.scan(ScanOptions.scanOptions()
+                        .match(REDIS_KEY_PREFIX + (routeId != null ? routeId + "|" : "") + "*")
+                        .count(500)
+                        .build())
+                .buffer(500)
+                .flatMap(keys -> redisTemplate.delete(keys.toArray(String[]::new)))
+                .reduce(0L, Long::sum);
+
+        return redisPurge
+                .flatMap(deleted -> redisTemplate.convertAndSend(purgeChannel, target).thenReturn(deleted))
+                .onErrorResume(e -> {
+                    log.warn("Response cache purge could not reach Redis: {}", e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    private void purgeLocal(String target) {
+        if (PURGE_ALL.equals(target)) {
+            local.invalidateAll();
+        } else {
+            String prefix = target + "|";
+            local.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        log.info("Response cache purged: {}", target);
+    }
+
+    private String serialize(CachedResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private CachedResponse deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, CachedResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not deserialize cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.devbuild.apigateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Refreshes stale fallback responses in the background.
+ * <p>
+ * Called when a fallback serves a stale entry: a single GET is sent straight to the service
+ * (bypassing the open circuit breaker) with the caller's headers, at most once per entry per
+ * {@code stale-response.revalidate-interval}. A successful answer replaces the stale entry.
+ */
+@Component
+@Slf4j
+public class StaleResponseRevalidator {
+
+    private static final String LOAD_BALANCED_SCHEME = "lb";
+
+    private final StaleResponseStore staleStore;
+    private final WebClient loadBalancedClient;
+    private final WebClient directClient;
+    private final Duration timeout;
+
+    public StaleResponseRevalidator(StaleResponseStore staleStore,
+                                    WebClient.Builder webClientBuilder,
+                                    ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                                    @Value("${stale-response.revalidate-timeout:5s}") Duration timeout) {
+        this.staleStore = staleStore;
+        this.loadBalancedClient = webClientBuilder.clone().filter(loadBalancerFunction).build();
+        this.directClient = webClientBuilder.clone().build();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Start a background revalidation of a stale entry unless one ran recently
+     */
+    public void revalidate(ServerWebExchange exchange, String key, StaleResponseStore.StaleResponse stale) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || stale.upstreamPath() == null || !staleStore.tryStartRevalidation(key)) {
+            return;
+        }
+
+        URI routeUri = route.getUri();
+        boolean loadBalanced = LOAD_BALANCED_SCHEME.equals(routeUri.getScheme());
+        URI uri = URI.create((loadBalanced ? "http" : routeUri.getScheme()) + "://" + routeUri.getRawAuthority()
+                + stale.upstreamPath());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(exchange.getRequest().getHeaders());
+        headers.remove(HttpHeaders.HOST);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.IF_NONE_MATCH);
+        headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+
+        long staleWindowMs = stale.response().expiresAt() - stale.response().storedAt();
+        (loadBalanced ? loadBalancedClient : directClient).get()
+                .uri(uri)
+                .headers(h -> h.addAll(headers))
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() != HttpStatus.OK.value()
+                            || response.headers().asHttpHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                        return response.releaseBody().then(Mono.<byte[]>empty());
+                    }
+                    return response.bodyToMono(byte[].class).defaultIfEmpty(new byte[0]);
+                })
+                .timeout(timeout)
+                .subscribe(body -> {
+                    long now = System.currentTimeMillis();
+                    staleStore.put(key, new CachedResponse(HttpStatus.OK.value(),
+                            stale.response().contentType(), body, CachedResponse.etagOf(body),
+                            now, now + staleWindowMs), stale.upstreamPath());
+                    log.info("Stale response revalidated for route {}", route.getId());
+                }, e -> log.debug("Stale response revalidation failed for route {}: {}", route.getId(), e.getMessage()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.devbuild.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Last successful GET response of routes declaring {@code staleIfError}, kept until that
+ * much time has passed, so circuit breaker fallbacks can answer with it instead of an error.
+ * <p>
+ * The key is the response cache key ({@link ResponseCache#key}), published on the exchange
+ * under {@link #KEY_ATTRIBUTE} so the fallback, which runs after the request was forwarded,
+ * can find the entry of the original request.
+ */
+@Component
+public class StaleResponseStore {
+
+    public static final String KEY_ATTRIBUTE = "gateway.staleResponseKey";
+    public static final String SERVED_ATTRIBUTE = "gateway.staleResponseServed";
+
+    private final Cache<String, StaleResponse> entries;
+    private final Cache<String, Long> revalidations;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public StaleResponseStore(MeterRegistry meterRegistry,
+                              @Value("${stale-response.max-size-bytes:33554432}") long maxSizeBytes,
+                              @Value("${stale-response.revalidate-interval:10s}") Duration revalidateInterval) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String key, StaleResponse stale) -> key.length() + stale.response().body().length)
+                .expireAfter(new Expiry<String, StaleResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, StaleResponse stale, long currentTime) {
+                        long ttlMs = stale.response().expiresAt() - System.currentTimeMillis();
+                        return Duration.ofMillis(Math.max(0, ttlMs)).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, StaleResponse stale, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, stale, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, StaleResponse stale, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.revalidations = Caffeine.newBuilder()
+                .expireAfterWrite(revalidateInterval)
+                .build();
+        this.hitCounter = Counter.builder("gateway.fallback.stale")
+                .description("Circuit breaker fallbacks answered with a stale response")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("gateway.fallback.stale")
+                .description("Circuit breaker fallbacks answered with a stale response")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Keep a successful response until {@code response.expiresAt()}
+     *
+     * @param upstreamPath path and query sent to the service, used to revalidate the entry
+     */
+    public void put(String key, CachedResponse response, String upstreamPath) {
+        entries.put(key, new StaleResponse(response, upstreamPath));
+    }
+
+    /**
+     * Get the last successful response for a fallback, or null if there is none
+     */
+    public StaleResponse get(String key) {
+        StaleResponse stale = entries.getIfPresent(key);
+        if (stale == null || stale.response().isExpired(System.currentTimeMillis())) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return stale;
+    }
+
+    /**
+     * Claim the right to revalidate an entry; at most one claim per key per revalidate interval
+     */
+    public boolean tryStartRevalidation(String key) {
+        return revalidations.asMap().putIfAbsent(key, System.currentTimeMillis()) == null;
+    }
+
+    /**
+     * Stale entry and where it came from
+     */
+    public record StaleResponse(CachedResponse response, String upstreamPath) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.devbuild.apigateway.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Listens on the Redis revocation channel and evicts entries from the {@link VerifiedTokenCache}.
+ * Logouts, disabled and deleted accounts reach the cache through {@link UserEventRevocationListener};
+ * this channel is for revocations decided outside user-service (e.g. a leaked token revoked by an operator).
+ * Message formats:
+ * <ul>
+ *     <li>{@code token:<sha256-digest>} - revoke one token (logout)</li>
+ *     <li>{@code user:<userId>} - revoke every token of a user (logout everywhere, account disabled)</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TokenRevocationListener {
+
+    private static final String TOKEN_PREFIX = "token:";
+    private static final String USER_PREFIX = "user:";
+
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final VerifiedTokenCache tokenCache;
+    private final String channel;
+
+    private Disposable subscription;
+
+    public TokenRevocationListener(ReactiveRedisMessageListenerContainer listenerContainer,
+                                   VerifiedTokenCache tokenCache,
+                                   @Value("${jwt.cache.revocation-channel:gateway:token-revocations}") String channel) {
+        this.listenerContainer = listenerContainer;
+        this.tokenCache = tokenCache;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        subscription = listenerContainer.receive(ChannelTopic.of(channel))
+                .doOnSubscribe(s -> log.info("Listening for token revocations on channel '{}'", channel))
+                .doOnError(e -> log.error("Token revocation subscription failed: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(message -> handle(message.getMessage()));
+    }
+
+    void handle(String message) {
+        try {
+            if (message.startsWith(TOKEN_PREFIX)) {
+                tokenCache.revokeToken(message.substring(TOKEN_PREFIX.length()));
+            } else if (message.startsWith(USER_PREFIX)) {
+                tokenCache.revokeUser(Long.valueOf(message.substring(USER_PREFIX.length())));
+            } else {
+                log.warn("Ignoring unknown revocation message: {}", message);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.devbuild.apigateway.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.Instant;
+
+/**
+ * The fields of a user-service user event read by the gateway.
+ * The timestamp is the instant at which user-service made the change.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record UserEvent(
+        String eventType,
+        Long userId,
+        Instant timestamp
+) {
+}
@@ -0,0 +1,54 @@
+package com.devbuild.apigateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Revokes the cached tokens of a user when user-service reports that the user logged out,
+ * was disabled or was deleted. The events come from the user-service outbox, so they are
+ * delivered even if Kafka was briefly unavailable when the change was made.
+ */
+@Component
+@Slf4j
+public class UserEventRevocationListener {
+
+    /**
+     * Events after which no token issued earlier to the user may be used
+     */
+    static final Set<String> REVOKING_EVENTS = Set.of("USER_DISABLED", "USER_LOGGED_OUT", "USER_DELETED");
+
+    private final VerifiedTokenCache tokenCache;
+
+    public UserEventRevocationListener(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
+    @KafkaListener(
+            id = "gatewayTokenRevocation",
+            topics = "${jwt.cache.user-events-topic:user-events}",
+            idIsGroup = false,
+            containerFactory = "userEventListenerContainerFactory")
+    public void onUserEvent(UserEvent event) {
+        if (event == null || event.userId() == null || !REVOKING_EVENTS.contains(event.eventType())) {
+            return;
+        }
+        tokenCache.revokeUser(event.userId(), revokedAt(event));
+        log.debug("Tokens of user {} revoked after {}", event.userId(), event.eventType());
+    }
+
+    /**
+     * The time of the change rather than the time of delivery, so that a token issued
+     * after the change (a new login) stays valid even if the event arrives later.
+     */
+    private static Instant revokedAt(UserEvent event) {
+        Instant now = Instant.now();
+        if (event.timestamp() == null) {
+            return now;
+        }
+        return event.timestamp().isAfter(now) ? now : event.timestamp();
+    }
+}
@@ -0,0 +1,179 @@
+package com.devbuild.apigateway.cache;
+
+import com.devbuild.apigateway.util.JwtClaims;
+import com.devbuild.apigateway.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Bounded cache of already-verified JWTs, keyed by the SHA-256 digest of the token.
+ * Entries live until the token's own expiry, so a hit skips signature verification
+ * without ever extending the lifetime of a token.
+ * Revoked tokens and users are remembered for one access-token lifetime.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final Cache<String, JwtClaims> verifiedTokens;
+    private final Cache<String, Boolean> revokedTokens;
+    private final Cache<Long, Instant> revokedUsers;
+    private final Counter revocationCounter;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              MeterRegistry meterRegistry,
+                              @Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.max-size:10000}") long maxSize,
+                              @Value("${jwt.expiration}") long tokenLifetimeMs) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                        Duration ttl = Duration.between(Instant.now(), claims.expiresAt());
+                        return Math.max(0, ttl.toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtClaims claims, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtClaims claims, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        Duration revocationTtl = Duration.ofMillis(tokenLifetimeMs);
+        this.revokedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(revocationTtl)
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(revocationTtl)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "gateway.jwt.verified");
+        this.revocationCounter = Counter.builder("gateway.jwt.revocations")
+                .description("Token and user revocations received by the gateway")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the verified claims of the token, verifying it only on a cache miss.
+     *
+     * @return the claims, or {@code null} if the token is invalid, expired or revoked
+     */
+    public JwtClaims verify(String token) {
+        if (!enabled) {
+            return jwtUtil.parseToken(token);
+        }
+
+        String digest = digest(token);
+        if (revokedTokens.getIfPresent(digest) != null) {
+            log.warn("Rejected revoked token");
+            return null;
+        }
+
+        JwtClaims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            claims = jwtUtil.parseToken(token);
+            if (claims == null) {
+                return null;
+            }
+            verifiedTokens.put(digest, claims);
+        } else if (claims.isExpired()) {
+            // Expiry is evaluated lazily by Caffeine; never trust an entry past exp
+            verifiedTokens.invalidate(digest);
+            return null;
+        }
+
+        if (isUserRevoked(claims)) {
+            log.warn("Rejected token issued before revocation of user {}", claims.userId());
+            verifiedTokens.invalidate(digest);
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * Revoke a single token by its digest (see {@link #digest(String)})
+     */
+    public void revokeToken(String tokenDigest) {
+        revokedTokens.put(tokenDigest, Boolean.TRUE);
+        verifiedTokens.invalidate(tokenDigest);
+        revocationCounter.increment();
+        log.info("Token revoked: {}", tokenDigest);
+    }
+
+    /**
+     * Revoke every token of a user issued up to now (logout everywhere, account disabled)
+     */
+    public void revokeUser(Long userId) {
+        revokeUser(userId, Instant.now());
+    }
+
+    /**
+     * Revoke every token of a user issued before the given time
+     */
+    public void revokeUser(Long userId, Instant revokedAt) {
+        // iat has second precision: round up so a token issued earlier in the same second is revoked too
+        Instant second = revokedAt.truncatedTo(ChronoUnit.SECONDS);
+        Instant cutoff = second.isBefore(revokedAt) ? second.plusSeconds(1) : second;
+        // An older revocation delivered late never shortens a newer one
+        revokedUsers.asMap().merge(userId, cutoff, (current, next) -> next.isAfter(current) ? next : current);
+        verifiedTokens.asMap().values().removeIf(claims -> userId.equals(claims.userId())
+                && (claims.issuedAt() == null || claims.issuedAt().isBefore(cutoff)));
+        revocationCounter.increment();
+        log.info("Tokens revoked for user: {}", userId);
+    }
+
+    private boolean isUserRevoked(JwtClaims claims) {
+        if (claims.userId() == null) {
+            return false;
+        }
+        Instant revokedAt = revokedUsers.getIfPresent(claims.userId());
+        return revokedAt != null
+                && (claims.issuedAt() == null || claims.issuedAt().isBefore(revokedAt));
+    }
+
+    /**
+     * SHA-256 digest of a raw token, Base64 URL-encoded.
+     * Publishers of revocation messages must use the same encoding.
+     */
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.devbuild.apigateway.controller;
 
+import com.devbuild.apigateway.cache.CachedResponse;
+import com.devbuild.apigateway.cache.StaleResponseRevalidator;
+import com.devbuild.apigateway.cache.StaleResponseStore;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import java.time.Instant;
 import java.util.HashMap;
@@ -13,48 +20,86 @@ import java.util.Map;
 
 /**
  * Fallback Controller for Circuit Breaker
- * Provides graceful error responses when downstream services are unavailable
+ * Provides graceful error responses when downstream services are unavailable.
+ * GET requests on routes declaring {@code staleIfError} are answered with the last successful
+ * response instead, marked stale, while it is refreshed in the background.
  */
 @RestController
 @RequestMapping("/fallback")
 @Slf4j
 public class FallbackController {
 
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    @Autowired
+    private StaleResponseStore staleStore;
+
+    @Autowired
+    private StaleResponseRevalidator revalidator;
+
     @GetMapping("/user-service")
-    public ResponseEntity<Map<String, Object>> userServiceFallback() {
+    public ResponseEntity<?> userServiceFallback(ServerWebExchange exchange) {
         log.warn("User service circuit breaker triggered");
-        return buildFallbackResponse("User Service",
+        return staleOrFallback(exchange, "User Service",
                 "The user service is temporarily unavailable. Please try again later.");
     }
 
     @GetMapping("/defense-service")
-    public ResponseEntity<Map<String, Object>> defenseServiceFallback() {
+    public ResponseEntity<?> defenseServiceFallback(ServerWebExchange exchange) {
         log.warn("Defense service circuit breaker triggered");
-        return buildFallbackResponse("Defense Service",
+        return staleOrFallback(exchange, "Defense Service",
                 "The defense service is temporarily unavailable. Please try again later.");
     }
 
     @GetMapping("/inscription-service")
-    public ResponseEntity<Map<String, Object>> inscriptionServiceFallback() {
+    public ResponseEntity<?> inscriptionServiceFallback(ServerWebExchange exchange) {
         log.warn("Inscription service circuit breaker triggered");
-        return buildFallbackResponse("Inscription Service",
+        return staleOrFallback(exchange, "Inscription Service",
                 "The inscription service is temporarily unavailable. Please try again later.");
     }
 
     @GetMapping("/notification-service")
-    public ResponseEntity<Map<String, Object>> notificationServiceFallback() {
+    public ResponseEntity<?> notificationServiceFallback(ServerWebExchange exchange) {
         log.warn("Notification service circuit breaker triggered");
-        return buildFallbackResponse("Notification Service",
+        return staleOrFallback(exchange, "Notification Service",
                 "The notification service is temporarily unavailable. Please try again later.");
     }
 
     @GetMapping("/batch-service")
-    public ResponseEntity<Map<String, Object>> batchServiceFallback() {
+    public ResponseEntity<?> batchServiceFallback(ServerWebExchange exchange) {
         log.warn("Batch service circuit breaker triggered");
-        return buildFallbackResponse("Batch Service",
+        return staleOrFallback(exchange, "Batch Service",
                 "The batch service is temporarily unavailable. Please try again later.");
     }
 
+    /**
+     * Serve the last successful response of the request if one is kept, the standard fallback otherwise
+     */
+    private ResponseEntity<?> staleOrFallback(ServerWebExchange exchange, String serviceName, String message) {
+        String key = exchange.getAttribute(StaleResponseStore.KEY_ATTRIBUTE);
+        StaleResponseStore.StaleResponse stale = key != null ? staleStore.get(key) : null;
+        if (stale == null) {
+            return buildFallbackResponse(serviceName, message);
+        }
+
+        CachedResponse response = stale.response();
+        long age = response.ageSeconds(System.currentTimeMillis());
+        log.info("{} unavailable, serving stale response ({}s old)", serviceName, age);
+        exchange.getAttributes().put(StaleResponseStore.SERVED_ATTRIBUTE, Boolean.TRUE);
+        revalidator.revalidate(exchange, key, stale);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatusCode.valueOf(response.status()))
+                .header(CACHE_STATUS_HEADER, "STALE")
+                .header(HttpHeaders.AGE, String.valueOf(age))
+                .header(HttpHeaders.WARNING, STALE_WARNING)
+                .eTag(response.etag());
+        if (response.contentType() != null) {
+            builder.header(HttpHeaders.CONTENT_TYPE, response.contentType());
+        }
+        return builder.body(response.body());
+    }
+
     /**
      * Build standardized fallback response
      */
@@ -0,0 +1,84 @@
+package com.devbuild.apigateway.controller;
+
+import com.devbuild.apigateway.cache.ResponseCache;
+import com.devbuild.apigateway.cache.VerifiedTokenCache;
+import com.devbuild.apigateway.util.JwtClaims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admin endpoints to purge the gateway response cache.
+ * Controllers are not routed, so the JWT is checked here rather than by the gateway filters.
+ */
+@RestController
+@RequestMapping("/gateway/cache")
+@Slf4j
+public class ResponseCacheController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @DeleteMapping
+    public Mono<ResponseEntity<Map<String, Object>>> purgeAll(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return purge(authorization, null);
+    }
+
+    @DeleteMapping("/routes/{routeId}")
+    public Mono<ResponseEntity<Map<String, Object>>> purgeRoute(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String routeId) {
+        return purge(authorization, routeId);
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> purge(String authorization, String routeId) {
+        JwtClaims claims = authorization != null && authorization.startsWith(BEARER_PREFIX)
+                ? tokenCache.verify(authorization.substring(BEARER_PREFIX.length()))
+                : null;
+
+        if (claims == null) {
+            return Mono.just(error(HttpStatus.UNAUTHORIZED, "Invalid or missing token"));
+        }
+        if (claims.roles().stream().noneMatch(role -> role.contains("ADMIN"))) {
+            log.warn("User {} tried to purge the response cache", claims.username());
+            return Mono.just(error(HttpStatus.FORBIDDEN, "Insufficient permissions"));
+        }
+
+        log.info("Response cache purge requested by {} for route: {}", claims.username(),
+                routeId != null ? routeId : "all");
+        return responseCache.purge(routeId)
+                .map(deleted -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("route", routeId != null ? routeId : "all");
+                    response.put("sharedEntriesDeleted", deleted);
+                    response.put("timestamp", Instant.now().toString());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", status.getReasonPhrase());
+        response.put("message", message);
+        response.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -0,0 +1,154 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.cache.StaleResponseStore;
+import com.devbuild.apigateway.concurrency.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Adaptive Concurrency Filter
+ * Keeps an {@link AdaptiveConcurrencyLimit} per load-balanced route and answers 503 with
+ * Retry-After as soon as a route has as many requests in flight as its current limit, so
+ * excess load is shed at the gateway instead of queueing in (and being retried against)
+ * an overloaded service.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    private static final String LOAD_BALANCED_SCHEME = "lb";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final Duration retryAfter;
+
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry,
+                                     @Value("${adaptive-concurrency.enabled:true}") boolean enabled,
+                                     @Value("${adaptive-concurrency.initial-limit:20}") int initialLimit,
+                                     @Value("${adaptive-concurrency.min-limit:5}") int minLimit,
+                                     @Value("${adaptive-concurrency.max-limit:500}") int maxLimit,
+                                     @Value("${adaptive-concurrency.tolerance:1.5}") double tolerance,
+                                     @Value("${adaptive-concurrency.smoothing:0.2}") double smoothing,
+                                     @Value("${adaptive-concurrency.retry-after:1s}") Duration retryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null || !LOAD_BALANCED_SCHEME.equals(route.getUri().getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(route.getId(), this::newLimit);
+        int inFlight = limit.tryAcquire();
+        if (inFlight < 0) {
+            rejections.get(route.getId()).increment();
+            log.debug("Concurrency limit {} reached for route {}", limit.getLimit(), route.getId());
+            return onLimitExceeded(exchange);
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limit.onIgnore();
+                    } else if (signal == SignalType.ON_ERROR || isOverloaded(exchange.getResponse().getStatusCode())
+                            || servedStale(exchange)) {
+                        limit.onDropped();
+                    } else {
+                        limit.onSuccess(System.nanoTime() - start, inFlight);
+                    }
+                });
+    }
+
+    private AdaptiveConcurrencyLimit newLimit(String routeId) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                tolerance, smoothing);
+        Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests currently in flight")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        rejections.put(routeId, Counter.builder("gateway.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .tag("route", routeId)
+                .register(meterRegistry));
+        return limit;
+    }
+
+    /**
+     * A stale copy served by the circuit breaker fallback answers 200 in place of the 503 of a failed call
+     */
+    private boolean servedStale(ServerWebExchange exchange) {
+        return Boolean.TRUE.equals(exchange.getAttribute(StaleResponseStore.SERVED_ATTRIBUTE));
+    }
+
+    /**
+     * Gateway timeouts and unavailable services count as overload, other statuses as normal responses
+     */
+    private boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value()
+                || status.value() == HttpStatus.BAD_GATEWAY.value());
+    }
+
+    /**
+     * Return service overloaded error
+     */
+    private Mono<Void> onLimitExceeded(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().add("Content-Type", "application/json");
+        response.getHeaders().add("Retry-After", String.valueOf(Math.max(1, retryAfter.toSeconds())));
+
+        String errorResponse = "{\"error\":\"Service Unavailable\",\"message\":\"Service is overloaded. Please retry later.\"}";
+
+        return response.writeWith(Mono.just(response.bufferFactory()
+                .wrap(errorResponse.getBytes())));
+    }
+
+    @Override
+    public int getOrder() {
+        // Run after the response cache and request coalescing, so only real upstream calls take a slot
+        return -20;
+    }
+}
@@ -1,6 +1,10 @@
 package com.devbuild.apigateway.filter;
 
-import com.devbuild.apigateway.util.JwtUtil;
+import com.devbuild.apigateway.cache.VerifiedTokenCache;
+import com.devbuild.apigateway.route.RoutePolicy;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.IdentityEnvelope;
+import com.devbuild.apigateway.util.JwtClaims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -14,21 +18,27 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.Map;
-
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
 
 /**
  * JWT Authentication Filter
- * Validates JWT tokens and adds user information to request headers
+ * Validates JWT tokens and adds user information to request headers.
+ * The token is parsed once; the resulting {@link JwtClaims} are stored under
+ * {@link JwtClaims#EXCHANGE_ATTRIBUTE} for the rest of the chain, and forwarded to the
+ * services as a signed {@link IdentityEnvelope}. Envelopes sent by clients are always removed.
  */
 @Component
 @Slf4j
 public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private RoutePolicyRegistry policyRegistry;
+
+    @Autowired
+    private IdentityEnvelope identityEnvelope;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
@@ -43,21 +53,28 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getURI().getPath();
 
+        // Only the gateway may issue identity envelopes
+        if (request.getHeaders().containsKey(IdentityEnvelope.HEADER)) {
+            log.warn("Client-supplied {} header removed for: {}", IdentityEnvelope.HEADER, path);
+            request = request.mutate().headers(headers -> headers.remove(IdentityEnvelope.HEADER)).build();
+            exchange = exchange.mutate().request(request).build();
+        }
+
         log.debug("Processing request: {} {}", request.getMethod(), path);
 
-        // Get route metadata
+        // Get precompiled route policy
         Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
         if (route != null) {
-            Map<String, Object> metadata = route.getMetadata();
+            RoutePolicy policy = policyRegistry.policyFor(route);
 
             // Check if route is public (no auth required)
-            if (Boolean.TRUE.equals(metadata.get("public"))) {
+            if (policy.publicRoute()) {
                 log.debug("Public route, skipping authentication: {}", path);
                 return chain.filter(exchange);
             }
 
             // Check if route requires authentication
-            if (Boolean.TRUE.equals(metadata.get("requiresAuth"))) {
+            if (policy.requiresAuth()) {
                 String token = extractToken(request);
 
                 if (token == null) {
@@ -66,22 +83,24 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
                 }
 
                 try {
-                    // Validate token
-                    if (!jwtUtil.validateToken(token)) {
+                    // Parse and validate token once (or reuse an already verified one)
+                    JwtClaims claims = tokenCache.verify(token);
+                    if (claims == null) {
                         log.warn("Invalid or expired token for route: {}", path);
                         return onError(exchange, "Invalid or expired token", HttpStatus.UNAUTHORIZED);
                     }
 
                     // Check role requirements
-                    String requiredRole = (String) metadata.get("requiresRole");
-                    if (requiredRole != null && !jwtUtil.hasRole(token, requiredRole)) {
+                    String requiredRole = policy.requiredRole();
+                    if (requiredRole != null && !claims.hasRole(requiredRole)) {
                         log.warn("User does not have required role '{}' for route: {}", requiredRole, path);
                         return onError(exchange, "Insufficient permissions", HttpStatus.FORBIDDEN);
                     }
 
-                    // Extract user information and add to headers
-                    exchange = addUserInfoToHeaders(exchange, token);
-                    log.debug("Token validated successfully for user: {}", jwtUtil.extractUsername(token));
+                    // Expose claims to later filters and add user info to headers
+                    exchange.getAttributes().put(JwtClaims.EXCHANGE_ATTRIBUTE, claims);
+                    exchange = addUserInfoToHeaders(exchange, claims);
+                    log.debug("Token validated successfully for user: {}", claims.username());
 
                 } catch (Exception e) {
                     log.error("Error processing JWT token: {}", e.getMessage());
@@ -109,17 +128,18 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
     /**
      * Add user information to request headers for downstream services
      */
-    private ServerWebExchange addUserInfoToHeaders(ServerWebExchange exchange, String token) {
+    private ServerWebExchange addUserInfoToHeaders(ServerWebExchange exchange, JwtClaims claims) {
         try {
-            Long userId = jwtUtil.extractUserId(token);
-            String username = jwtUtil.extractUsername(token);
-            List<String> roles = jwtUtil.extractRoles(token);
-
-            ServerHttpRequest request = exchange.getRequest().mutate()
-                    .header(USER_ID_HEADER, String.valueOf(userId))
-                    .header(USERNAME_HEADER, username)
-                    .header(ROLES_HEADER, String.join(",", roles))
-                    .build();
+            ServerHttpRequest.Builder builder = exchange.getRequest().mutate()
+                    .header(USER_ID_HEADER, String.valueOf(claims.userId()))
+                    .header(USERNAME_HEADER, claims.username())
+                    .header(ROLES_HEADER, String.join(",", claims.roles()));
+
+            String envelope = identityEnvelope.sign(claims);
+            if (envelope != null) {
+                builder.header(IdentityEnvelope.HEADER, envelope);
+            }
+            ServerHttpRequest request = builder.build();
 
             return exchange.mutate().request(request).build();
         } catch (Exception e) {
@@ -0,0 +1,48 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.loadbalancer.InstanceStatsRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Load Balancer Cancel Filter
+ * The gateway load balancer filter reports successes and errors to the load balancer lifecycle,
+ * but not cancellations (client disconnect, circuit breaker timeout). This filter wraps it and
+ * releases the chosen instance when the request is cancelled, so its in-flight count does not leak.
+ */
+@Component
+public class LoadBalancerCancelFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    public LoadBalancerCancelFilter(InstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+                    if (signal == SignalType.CANCEL && lbResponse != null) {
+                        statsRegistry.onCancel(lbResponse);
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Right before the load balancer filter, after route filters such as the circuit breaker
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
@@ -1,25 +1,37 @@
 package com.devbuild.apigateway.filter;
 
-import lombok.extern.slf4j.Slf4j;
+import com.devbuild.apigateway.accesslog.AccessLogRecord;
+import com.devbuild.apigateway.accesslog.AccessLogWriter;
+import com.devbuild.apigateway.util.JwtClaims;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientResponse;
 
 import java.util.UUID;
 
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
 /**
- * Logging Filter for request/response tracking
+ * Logging Filter for request/response tracking.
+ * Tags every request with an X-Request-Id and hands a compact record to the
+ * {@link AccessLogWriter} once the response is complete; nothing is written on the event loop.
  */
 @Component
-@Slf4j
 public class LoggingFilter implements GlobalFilter, Ordered {
 
     private static final String REQUEST_ID_HEADER = "X-Request-Id";
-    private static final String START_TIME_ATTRIBUTE = "startTime";
+
+    @Autowired
+    private AccessLogWriter accessLogWriter;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
@@ -37,30 +49,33 @@ public class LoggingFilter implements GlobalFilter, Ordered {
                 .header(REQUEST_ID_HEADER, finalRequestId)
                 .build();
 
-        // Record start time
-        exchange.getAttributes().put(START_TIME_ATTRIBUTE, System.currentTimeMillis());
-
-        // Log request
-        log.info("Incoming request: {} {} | RequestId: {} | IP: {}",
-                request.getMethod(),
-                request.getURI().getPath(),
-                finalRequestId,
-                request.getRemoteAddress() != null ? request.getRemoteAddress().getAddress().getHostAddress()
-                        : "unknown");
+        long startNanos = System.nanoTime();
+        long timestamp = System.currentTimeMillis();
 
         return chain.filter(exchange.mutate().request(modifiedRequest).build())
-                .doFinally(signalType -> {
-                    // Log response
-                    Long startTime = exchange.getAttribute(START_TIME_ATTRIBUTE);
-                    long duration = startTime != null ? System.currentTimeMillis() - startTime : 0;
+                .doFinally(signalType -> accessLogWriter.submit(
+                        record(exchange, finalRequestId, timestamp, startNanos)));
+    }
+
+    private AccessLogRecord record(ServerWebExchange exchange, String requestId, long timestamp, long startNanos) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        HttpClientResponse upstream = exchange.getAttribute(CLIENT_RESPONSE_ATTR);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        JwtClaims claims = exchange.getAttribute(JwtClaims.EXCHANGE_ATTRIBUTE);
 
-                    log.info("Outgoing response: {} {} | RequestId: {} | Status: {} | Duration: {}ms",
-                            request.getMethod(),
-                            request.getURI().getPath(),
-                            finalRequestId,
-                            exchange.getResponse().getStatusCode(),
-                            duration);
-                });
+        return new AccessLogRecord(
+                timestamp,
+                requestId,
+                request.getMethod().name(),
+                request.getURI().getRawPath(),
+                route != null ? route.getId() : null,
+                status != null ? status.value() : 0,
+                upstream != null ? upstream.status().code() : null,
+                (System.nanoTime() - startNanos) / 1_000_000,
+                request.getRemoteAddress() != null ? request.getRemoteAddress().getAddress().getHostAddress()
+                        : "unknown",
+                claims != null && claims.userId() != null ? claims.userId().toString() : null);
     }
 
     @Override
@@ -1,5 +1,10 @@
 package com.devbuild.apigateway.filter;
 
+import com.devbuild.apigateway.ratelimit.ClientRateLimiter;
+import com.devbuild.apigateway.ratelimit.RateLimitResult;
+import com.devbuild.apigateway.route.RoutePolicy;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,7 +12,6 @@ import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.core.Ordered;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -16,21 +20,26 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
 
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
 
 /**
  * Redis-based Rate Limiting Filter
- * Implements sliding window rate limiting per IP or per user
+ * Limits requests per IP or per user with the {@link ClientRateLimiter}
+ * selected by {@code rate-limit.strategy} (two-tier token bucket or sliding window).
+ * Each client has one budget shared by every route (default, unauthenticated or admin limit).
+ * Routes declaring a {@code rateLimit} in their precompiled {@link RoutePolicy} (expensive
+ * endpoints such as PDF reports) add a route-scoped budget on top of it, applied to every role.
  */
 @Component
 @Slf4j
 public class RateLimitFilter implements GlobalFilter, Ordered {
 
     @Autowired
-    private ReactiveStringRedisTemplate redisTemplate;
+    private ClientRateLimiter rateLimiter;
+
+    @Autowired
+    private RoutePolicyRegistry policyRegistry;
 
     @Value("${rate-limit.enabled:true}")
     private boolean rateLimitEnabled;
@@ -47,9 +56,9 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
     @Value("${rate-limit.window-size:60}")
     private int windowSizeSeconds;
 
-    private static final String RATE_LIMIT_KEY_PREFIX = "rate_limit:";
-    private static final String USER_ID_HEADER = "X-User-Id";
-    private static final String ROLES_HEADER = "X-User-Roles";
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final String CLIENT_BUCKET = "client:";
+    private static final String ROUTE_BUCKET = "route:";
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
@@ -58,52 +67,69 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
         }
 
         ServerHttpRequest request = exchange.getRequest();
-        String clientId = getClientIdentifier(request);
-        int limit = getRateLimit(exchange, request);
-
-        String key = RATE_LIMIT_KEY_PREFIX + clientId;
-        long now = Instant.now().getEpochSecond();
-        long windowStart = now - windowSizeSeconds;
-
-        return redisTemplate.opsForZSet()
-                // Remove old entries outside the window
-                .removeRangeByScore(key, org.springframework.data.domain.Range.closed(0.0, (double) windowStart))
-                .then(redisTemplate.opsForZSet().count(key,
-                        org.springframework.data.domain.Range.closed((double) windowStart, (double) now)))
-                .flatMap(count -> {
-                    if (count >= limit) {
-                        log.warn("Rate limit exceeded for client: {} (limit: {}, current: {})",
-                                clientId, limit, count);
-                        return onRateLimitExceeded(exchange, limit);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        RoutePolicy policy = route != null ? policyRegistry.policyFor(route) : null;
+        JwtClaims claims = exchange.getAttribute(JwtClaims.EXCHANGE_ATTRIBUTE);
+
+        // Shared budget of the client across every route
+        String clientId = CLIENT_BUCKET + getClientIdentifier(request, claims, RoutePolicy.RateLimitKey.USER);
+        int limit = getRateLimit(claims);
+        Duration window = Duration.ofSeconds(windowSizeSeconds);
+
+        if (policy == null || policy.rateLimit() == null) {
+            return tryAcquire(exchange, chain, clientId, limit, window, null);
+        }
+
+        // Routes with their own rateLimit also have a route-scoped budget, applied to every role
+        String routeClientId = ROUTE_BUCKET + policy.routeId() + ":"
+                + getClientIdentifier(request, claims, policy.rateLimitKey());
+        return rateLimiter.tryAcquire(routeClientId, policy.rateLimit(), policy.rateLimitWindow())
+                .flatMap(routeResult -> {
+                    if (!routeResult.allowed()) {
+                        log.warn("Rate limit exceeded for client: {} (limit: {})", routeClientId, policy.rateLimit());
+                        return onRateLimitExceeded(exchange, routeResult, policy.rateLimitWindow());
+                    }
+                    return tryAcquire(exchange, chain, clientId, limit, window, routeResult);
+                });
+    }
+
+    /**
+     * Check the shared budget of the client; the headers report the budget closest to exhaustion
+     */
+    private Mono<Void> tryAcquire(ServerWebExchange exchange, GatewayFilterChain chain, String clientId,
+                                  int limit, Duration window, RateLimitResult routeResult) {
+        return rateLimiter.tryAcquire(clientId, limit, window)
+                .flatMap(result -> {
+                    if (!result.allowed()) {
+                        log.warn("Rate limit exceeded for client: {} (limit: {})", clientId, limit);
+                        return onRateLimitExceeded(exchange, result, window);
                     }
 
-                    // Add current request to the window
-                    return redisTemplate.opsForZSet()
-                            .add(key, String.valueOf(now), now)
-                            .then(redisTemplate.expire(key, Duration.ofSeconds(windowSizeSeconds)))
-                            .then(Mono.defer(() -> {
-                                // Add rate limit headers
-                                ServerHttpResponse response = exchange.getResponse();
-                                response.getHeaders().add("X-RateLimit-Limit", String.valueOf(limit));
-                                response.getHeaders().add("X-RateLimit-Remaining",
-                                        String.valueOf(Math.max(0, limit - count - 1)));
-                                response.getHeaders().add("X-RateLimit-Reset",
-                                        String.valueOf(now + windowSizeSeconds));
-
-                                log.debug("Rate limit check passed for client: {} ({}/{})",
-                                        clientId, count + 1, limit);
-                                return chain.filter(exchange);
-                            }));
+                    // Add rate limit headers
+                    addRateLimitHeaders(exchange.getResponse(),
+                            routeResult != null && routeResult.remaining() < result.remaining() ? routeResult : result);
+
+                    log.debug("Rate limit check passed for client: {} ({}/{})",
+                            clientId, limit - result.remaining(), limit);
+                    return chain.filter(exchange);
                 });
     }
 
     /**
-     * Get client identifier (user ID if authenticated, IP address otherwise)
+     * Get client identifier according to the key strategy
+     * (user ID if authenticated, API key, IP address otherwise)
      */
-    private String getClientIdentifier(ServerHttpRequest request) {
-        String userId = request.getHeaders().getFirst(USER_ID_HEADER);
-        if (userId != null && !userId.isEmpty()) {
-            return "user:" + userId;
+    private String getClientIdentifier(ServerHttpRequest request, JwtClaims claims,
+                                       RoutePolicy.RateLimitKey keyStrategy) {
+        if (keyStrategy == RoutePolicy.RateLimitKey.USER && claims != null && claims.userId() != null) {
+            return "user:" + claims.userId();
+        }
+
+        if (keyStrategy == RoutePolicy.RateLimitKey.API_KEY) {
+            String apiKey = request.getHeaders().getFirst(API_KEY_HEADER);
+            if (apiKey != null && !apiKey.isEmpty()) {
+                return "key:" + apiKey;
+            }
         }
 
         // Use IP address for unauthenticated requests
@@ -113,49 +139,46 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
     }
 
     /**
-     * Get rate limit based on route metadata and user roles
+     * Get the shared rate limit of the client based on its roles
      */
-    private int getRateLimit(ServerWebExchange exchange, ServerHttpRequest request) {
+    private int getRateLimit(JwtClaims claims) {
         // Check if user is admin
-        String roles = request.getHeaders().getFirst(ROLES_HEADER);
-        if (roles != null && roles.contains("ADMIN")) {
+        if (claims != null && claims.roles().stream().anyMatch(role -> role.contains("ADMIN"))) {
             return adminLimit;
         }
 
-        // Check route-specific limit
-        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
-        if (route != null) {
-            Map<String, Object> metadata = route.getMetadata();
-            Object routeLimit = metadata.get("rateLimit");
-            if (routeLimit instanceof Integer) {
-                return (Integer) routeLimit;
-            }
-        }
-
         // Use default limit for authenticated users, lower limit for unauthenticated
-        String userId = request.getHeaders().getFirst(USER_ID_HEADER);
-        return userId != null ? defaultLimit : unauthenticatedLimit;
+        return claims != null ? defaultLimit : unauthenticatedLimit;
     }
 
     /**
      * Return rate limit exceeded error
      */
-    private Mono<Void> onRateLimitExceeded(ServerWebExchange exchange, int limit) {
+    private Mono<Void> onRateLimitExceeded(ServerWebExchange exchange, RateLimitResult result, Duration window) {
         ServerHttpResponse response = exchange.getResponse();
         response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
         response.getHeaders().add("Content-Type", "application/json");
-        response.getHeaders().add("X-RateLimit-Limit", String.valueOf(limit));
-        response.getHeaders().add("X-RateLimit-Remaining", "0");
-        response.getHeaders().add("Retry-After", String.valueOf(windowSizeSeconds));
+        addRateLimitHeaders(response, result);
+        long retryAfter = result.resetEpochSeconds() - System.currentTimeMillis() / 1000;
+        response.getHeaders().add("Retry-After", String.valueOf(Math.max(1, retryAfter)));
 
         String errorResponse = String.format(
                 "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Maximum %d requests per %d seconds.\"}",
-                limit, windowSizeSeconds);
+                result.limit(), window.toSeconds());
 
         return response.writeWith(Mono.just(response.bufferFactory()
                 .wrap(errorResponse.getBytes())));
     }
 
+    /**
+     * Add X-RateLimit-* headers from the limiter result
+     */
+    private void addRateLimitHeaders(ServerHttpResponse response, RateLimitResult result) {
+        response.getHeaders().add("X-RateLimit-Limit", String.valueOf(result.limit()));
+        response.getHeaders().add("X-RateLimit-Remaining", String.valueOf(result.remaining()));
+        response.getHeaders().add("X-RateLimit-Reset", String.valueOf(result.resetEpochSeconds()));
+    }
+
     @Override
     public int getOrder() {
         // Run after authentication filter
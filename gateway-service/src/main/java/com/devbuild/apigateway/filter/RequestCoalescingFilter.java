@@ -0,0 +1,176 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.cache.ResponseCache;
+import com.devbuild.apigateway.route.RoutePolicy;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Request Coalescing Filter
+ * Concurrent identical GET requests on routes with {@code coalesce: true} share a single
+ * upstream call: the first request goes upstream, the others wait (up to the route's
+ * max wait) and receive a copy of its response. Requests are identical when they have
+ * the same route, path, query and cache scope (see {@link RoutePolicy#cacheScopeKey}).
+ */
+@Component
+@Slf4j
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    private final RoutePolicyRegistry policyRegistry;
+    private final boolean coalescingEnabled;
+    private final Counter coalescedCounter;
+    private final Counter fallbackCounter;
+
+    private final Map<String, Sinks.One<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescingFilter(RoutePolicyRegistry policyRegistry,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${request-coalescing.enabled:true}") boolean coalescingEnabled) {
+        this.policyRegistry = policyRegistry;
+        this.coalescingEnabled = coalescingEnabled;
+        this.coalescedCounter = Counter.builder("gateway.requests.coalesced")
+                .description("Requests answered with the response of an identical in-flight request")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("gateway.requests.coalescing.fallback")
+                .description("Waiting requests that had to call upstream themselves")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!coalescingEnabled || route == null || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        RoutePolicy policy = policyRegistry.policyFor(route);
+        if (!policy.coalesce()) {
+            return chain.filter(exchange);
+        }
+
+        String scope = policy.cacheScopeKey(exchange.getAttribute(JwtClaims.EXCHANGE_ATTRIBUTE));
+        if (scope == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = ResponseCache.key(route.getId(), scope, request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : ""));
+
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Sinks.One<SharedResponse> existing = inFlight.putIfAbsent(key, sink);
+        if (existing == null) {
+            return lead(exchange, chain, key, sink);
+        }
+        return follow(exchange, chain, existing, policy);
+    }
+
+    /**
+     * First request: call upstream and publish the response to the waiting requests
+     */
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, String key,
+                            Sinks.One<SharedResponse> sink) {
+        ServerHttpResponseDecorator decorator = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                    // Never hand a session cookie to other callers
+                    inFlight.remove(key, sink);
+                    sink.tryEmitEmpty();
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(Flux.from(body))
+                        .flatMap(joined -> {
+                            byte[] bytes = new byte[joined.readableByteCount()];
+                            joined.read(bytes);
+                            DataBufferUtils.release(joined);
+
+                            HttpHeaders headers = new HttpHeaders();
+                            headers.putAll(getHeaders());
+                            inFlight.remove(key, sink);
+                            sink.tryEmitValue(new SharedResponse(getStatusCode(), headers, bytes));
+
+                            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(decorator).build())
+                .doFinally(signal -> {
+                    // No body written (error, cancellation, empty response): release the waiters
+                    if (inFlight.remove(key, sink)) {
+                        sink.tryEmitEmpty();
+                    }
+                });
+    }
+
+    /**
+     * Identical request already in flight: wait for its response, or go upstream after the max wait
+     */
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain,
+                              Sinks.One<SharedResponse> sink, RoutePolicy policy) {
+        return sink.asMono()
+                .timeout(policy.coalesceMaxWait(), Mono.empty())
+                .flatMap(shared -> {
+                    coalescedCounter.increment();
+                    return write(exchange.getResponse(), shared).thenReturn(true);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.debug("No shared response within {}, calling upstream", policy.coalesceMaxWait());
+                    fallbackCounter.increment();
+                    return chain.filter(exchange).thenReturn(true);
+                }))
+                .then();
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        shared.headers().forEach((name, values) -> {
+            if (!response.getHeaders().containsKey(name)) {
+                response.getHeaders().put(name, values);
+            }
+        });
+        response.getHeaders().setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    /**
+     * Response of the leading request, copied for every waiting request
+     */
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    @Override
+    public int getOrder() {
+        // Run after the response cache, so only cache misses are coalesced
+        return -25;
+    }
+}
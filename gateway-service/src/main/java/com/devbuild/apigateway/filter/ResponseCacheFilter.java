@@ -0,0 +1,252 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.cache.CachedResponse;
+import com.devbuild.apigateway.cache.ResponseCache;
+import com.devbuild.apigateway.cache.StaleResponseStore;
+import com.devbuild.apigateway.route.RoutePolicy;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Response Cache Filter
+ * Caches GET responses of routes declaring a {@code cacheTtl} in their metadata, per route
+ * and per principal scope. Every cached response carries an ETag (the upstream one, or a strong
+ * one computed from the body); a matching If-None-Match is answered with 304 and no body.
+ * A successful POST, PUT, PATCH or DELETE on a cached route purges the route's entries.
+ * For routes declaring {@code staleIfError}, the last successful response is also kept in the
+ * {@link StaleResponseStore} for the circuit breaker fallbacks.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final Set<HttpMethod> UNSAFE_METHODS =
+            Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private StaleResponseStore staleStore;
+
+    @Autowired
+    private RoutePolicyRegistry policyRegistry;
+
+    @Value("${response-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${response-cache.max-body-size:1048576}")
+    private int maxBodySize;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!cacheEnabled || route == null) {
+            return chain.filter(exchange);
+        }
+
+        RoutePolicy policy = policyRegistry.policyFor(route);
+        if (UNSAFE_METHODS.contains(request.getMethod())) {
+            if (policy.cacheable()) {
+                purgeOnSuccess(exchange, route.getId());
+            }
+            return chain.filter(exchange);
+        }
+        if (request.getMethod() != HttpMethod.GET || !policy.cacheable() && !policy.keepsStale()) {
+            return chain.filter(exchange);
+        }
+
+        String scope = policy.cacheScopeKey(exchange.getAttribute(JwtClaims.EXCHANGE_ATTRIBUTE));
+        if (scope == null) {
+            // Per-user or per-role scope without an authenticated caller: never share a response
+            return chain.filter(exchange);
+        }
+
+        String key = ResponseCache.key(route.getId(), scope, request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : ""));
+        if (policy.keepsStale()) {
+            exchange.getAttributes().put(StaleResponseStore.KEY_ATTRIBUTE, key);
+        }
+        boolean bypassLookup = !policy.cacheable() || request.getHeaders().getCacheControl() != null
+                && request.getHeaders().getCacheControl().contains("no-cache");
+
+        Mono<CachedResponse> lookup = bypassLookup ? Mono.empty() : responseCache.get(key);
+        // serveCached completes empty: map it to a value so a hit does not also go upstream
+        return lookup
+                .flatMap(cached -> serveCached(exchange, cached).thenReturn(true))
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange.mutate()
+                        .response(cachingDecorator(exchange, key, policy))
+                        .build()).thenReturn(true)))
+                .then();
+    }
+
+    /**
+     * A successful write may change what the route returns: purge its cached responses
+     * before the response is sent, so the client's next GET does not get the old version
+     */
+    private void purgeOnSuccess(ServerWebExchange exchange, String routeId) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status == null || !status.is2xxSuccessful()) {
+                return Mono.empty();
+            }
+            return responseCache.purge(routeId).then();
+        });
+    }
+
+    /**
+     * Answer from the cache: 304 when the client already has this version, full body otherwise
+     */
+    private Mono<Void> serveCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().add(CACHE_STATUS_HEADER, "HIT");
+        response.getHeaders().add(HttpHeaders.AGE, String.valueOf(cached.ageSeconds(System.currentTimeMillis())));
+
+        if (matchesIfNoneMatch(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        if (cached.contentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Capture a cacheable upstream response, store it and add its ETag
+     */
+    private ServerHttpResponseDecorator cachingDecorator(ServerWebExchange exchange, String key, RoutePolicy policy) {
+        ServerHttpResponse original = exchange.getResponse();
+
+        return new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (exchange.getAttribute(StaleResponseStore.SERVED_ATTRIBUTE) != null
+                        || !isCacheable(getStatusCode(), getHeaders())) {
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(Flux.from(body))
+                        .flatMap(joined -> {
+                            byte[] bytes = new byte[joined.readableByteCount()];
+                            joined.read(bytes);
+                            DataBufferUtils.release(joined);
+
+                            String etag = getHeaders().getETag() != null
+                                    ? getHeaders().getETag() : CachedResponse.etagOf(bytes);
+                            long now = System.currentTimeMillis();
+                            String contentType = getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+
+                            if (policy.keepsStale() && bytes.length <= maxBodySize) {
+                                staleStore.put(key, new CachedResponse(getStatusCode().value(), contentType, bytes,
+                                        etag, now, now + policy.staleIfError().toMillis()), upstreamPath(exchange));
+                            }
+                            if (!policy.cacheable()) {
+                                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                            }
+
+                            getHeaders().setETag(etag);
+                            getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+
+                            if (bytes.length <= maxBodySize) {
+                                responseCache.put(key, new CachedResponse(getStatusCode().value(), contentType,
+                                        bytes, etag, now, now + policy.cacheTtl().toMillis()));
+                            }
+
+                            if (matchesIfNoneMatch(exchange.getRequest(), etag)) {
+                                setStatusCode(HttpStatus.NOT_MODIFIED);
+                                getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                                return getDelegate().setComplete();
+                            }
+
+                            getHeaders().setContentLength(bytes.length);
+                            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        });
+            }
+        };
+    }
+
+    /**
+     * Only plain successful responses that are not marked private are cached
+     */
+    private boolean isCacheable(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value()) {
+            return false;
+        }
+        if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null
+                || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    /**
+     * Weak comparison (RFC 9110): the W/ prefix is ignored on both sides, as the upstream ETag may be weak
+     */
+    private boolean matchesIfNoneMatch(ServerHttpRequest request, String etag) {
+        String expected = opaqueTag(etag);
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            String value = opaqueTag(candidate);
+            if ("*".equals(value) || value.equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * Path and query actually sent to the service, after the route filters rewrote it
+     */
+    private static String upstreamPath(ServerWebExchange exchange) {
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (requestUrl == null) {
+            return null;
+        }
+        return requestUrl.getRawPath() + (requestUrl.getRawQuery() != null ? "?" + requestUrl.getRawQuery() : "");
+    }
+
+    @Override
+    public int getOrder() {
+        // Run after authentication and rate limiting, before the response is written (-1)
+        return -30;
+    }
+}
@@ -0,0 +1,35 @@
+package com.devbuild.apigateway.health;
+
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of one background health check, kept in the {@link HealthSnapshot}
+ */
+public record ComponentCheck(
+        Status status,
+        Map<String, Object> details,
+        long checkedAt,
+        long durationMs
+) {
+
+    public boolean isUp() {
+        return Status.UP.equals(status);
+    }
+
+    /**
+     * Details exposed by the health endpoint, including the age of the check
+     */
+    public Map<String, Object> describe(long now) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("status", status.getCode());
+        description.putAll(details);
+        description.put("checkedAt", Instant.ofEpochMilli(checkedAt).toString());
+        description.put("ageMs", Math.max(0, now - checkedAt));
+        description.put("durationMs", durationMs);
+        return description;
+    }
+}
@@ -1,50 +1,64 @@
 package com.devbuild.apigateway.health;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Custom Health Indicator for Gateway Service
+ * Reports the latest {@link HealthSnapshot} of the {@link HealthSnapshotRefresher} without
+ * probing anything itself. The gateway is DOWN when Redis is down; discovery and routed
+ * services are reported per component. UNKNOWN when the snapshot is missing or older than
+ * {@code health.snapshot.max-age}.
  */
 @Component
-@Slf4j
 public class GatewayHealthIndicator implements HealthIndicator {
 
-    @Autowired
-    private ReactiveStringRedisTemplate redisTemplate;
+    private final HealthSnapshotRefresher refresher;
+    private final long maxAgeMs;
+
+    public GatewayHealthIndicator(HealthSnapshotRefresher refresher,
+                                  @Value("${health.snapshot.max-age:30s}") Duration maxAge) {
+        this.refresher = refresher;
+        this.maxAgeMs = maxAge.toMillis();
+    }
 
     @Override
     public Health health() {
-        try {
-            // Check Redis connectivity
-            Boolean redisPing = redisTemplate.getConnectionFactory()
-                    .getReactiveConnection()
-                    .ping()
-                    .map(response -> "PONG".equals(response))
-                    .block(Duration.ofSeconds(2));
-
-            if (Boolean.TRUE.equals(redisPing)) {
-                return Health.up()
-                        .withDetail("redis", "Connected")
-                        .withDetail("rateLimit", "Enabled")
-                        .build();
-            } else {
-                return Health.down()
-                        .withDetail("redis", "Disconnected")
-                        .withDetail("rateLimit", "Disabled")
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Health check failed: {}", e.getMessage());
-            return Health.down()
-                    .withDetail("error", e.getMessage())
+        HealthSnapshot snapshot = refresher.snapshot();
+        if (snapshot == null) {
+            return Health.unknown()
+                    .withDetail("snapshot", "Not refreshed yet")
                     .build();
         }
+
+        long now = System.currentTimeMillis();
+        long age = snapshot.ageMs(now);
+        boolean redisUp = snapshot.redis().isUp();
+
+        Health.Builder builder;
+        if (age > maxAgeMs) {
+            builder = Health.unknown().withDetail("snapshot", "Stale");
+        } else if (redisUp) {
+            builder = Health.up();
+        } else {
+            builder = Health.down();
+        }
+
+        Map<String, Object> services = new LinkedHashMap<>();
+        snapshot.services().forEach((serviceId, check) -> services.put(serviceId, check.describe(now)));
+
+        return builder
+                .withDetail("snapshotAgeMs", age)
+                .withDetail("rateLimit", redisUp ? "Enabled" : "Local fallback")
+                .withDetail("redis", snapshot.redis().describe(now))
+                .withDetail("discovery", snapshot.discovery().describe(now))
+                .withDetail("services", services)
+                .build();
     }
 }
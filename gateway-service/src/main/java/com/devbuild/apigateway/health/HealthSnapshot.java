@@ -0,0 +1,18 @@
+package com.devbuild.apigateway.health;
+
+import java.util.Map;
+
+/**
+ * Composite result of one refresh of the {@link HealthSnapshotRefresher}
+ */
+public record HealthSnapshot(
+        ComponentCheck redis,
+        ComponentCheck discovery,
+        Map<String, ComponentCheck> services,
+        long refreshedAt
+) {
+
+    public long ageMs(long now) {
+        return Math.max(0, now - refreshedAt);
+    }
+}
@@ -0,0 +1,196 @@
+package com.devbuild.apigateway.health;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Probes the gateway's dependencies in the background and keeps the latest results.
+ * <p>
+ * Every {@code health.snapshot.interval}, Redis, the discovery client and every service
+ * behind an {@code lb://} route are checked concurrently, each with its own timeout, and
+ * the results replace the current {@link HealthSnapshot}. Health requests only read the
+ * snapshot, so scraping the health endpoint never reaches Redis or the services.
+ * <p>
+ * A service is UP when at least one of its instances answers {@code health.snapshot.service-path}
+ * with a status below 500; any answer proves the instance is reachable.
+ */
+@Component
+@Slf4j
+public class HealthSnapshotRefresher {
+
+    private static final String LOAD_BALANCED_SCHEME = "lb";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final RouteLocator routeLocator;
+    private final WebClient webClient;
+    private final Duration interval;
+    private final Duration checkTimeout;
+    private final String servicePath;
+
+    private volatile HealthSnapshot snapshot;
+    private Disposable refreshSubscription;
+
+    public HealthSnapshotRefresher(ReactiveStringRedisTemplate redisTemplate,
+                                   ReactiveDiscoveryClient discoveryClient,
+                                   RouteLocator routeLocator,
+                                   WebClient.Builder webClientBuilder,
+                                   @Value("${health.snapshot.interval:10s}") Duration interval,
+                                   @Value("${health.snapshot.check-timeout:2s}") Duration checkTimeout,
+                                   @Value("${health.snapshot.service-path:/actuator/health}") String servicePath) {
+        this.redisTemplate = redisTemplate;
+        this.discoveryClient = discoveryClient;
+        this.routeLocator = routeLocator;
+        this.webClient = webClientBuilder.clone().build();
+        this.interval = interval;
+        this.checkTimeout = checkTimeout;
+        this.servicePath = servicePath;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (refreshSubscription != null) {
+            return;
+        }
+        refreshSubscription = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh(), 1)
+                .subscribe(refreshed -> log.debug("Health snapshot refreshed: redis={}, discovery={}, services={}",
+                                refreshed.redis().status(), refreshed.discovery().status(), refreshed.services().size()),
+                        e -> log.error("Health snapshot refresher stopped: {}", e.getMessage()));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (refreshSubscription != null) {
+            refreshSubscription.dispose();
+        }
+    }
+
+    /**
+     * Latest snapshot, or null before the first refresh completed
+     */
+    public HealthSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Run every check concurrently and publish the new snapshot
+     */
+    Mono<HealthSnapshot> refresh() {
+        Mono<Map<String, ComponentCheck>> services = routeLocator.getRoutes()
+                .map(Route::getUri)
+                .filter(uri -> LOAD_BALANCED_SCHEME.equals(uri.getScheme()) && uri.getHost() != null)
+                .map(uri -> uri.getHost().toLowerCase(Locale.ROOT))
+                .distinct()
+                .flatMap(serviceId -> checkService(serviceId).map(check -> Map.entry(serviceId, check)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, TreeMap::new)
+                .onErrorResume(e -> {
+                    log.warn("Could not list the routed services: {}", e.getMessage());
+                    return Mono.just(Map.of());
+                });
+
+        return Mono.zip(check(pingRedis().timeout(checkTimeout)),
+                        check(listServices().timeout(checkTimeout)),
+                        services)
+                .map(results -> new HealthSnapshot(results.getT1(), results.getT2(), results.getT3(),
+                        System.currentTimeMillis()))
+                .doOnNext(refreshed -> snapshot = refreshed);
+    }
+
+    private Mono<Map<String, Object>> pingRedis() {
+        return redisTemplate.execute(ReactiveRedisConnection::ping)
+                .next()
+                .flatMap(reply -> "PONG".equals(reply)
+                        ? Mono.just(Map.<String, Object>of())
+                        : Mono.error(new IllegalStateException("Unexpected PING reply: " + reply)));
+    }
+
+    private Mono<Map<String, Object>> listServices() {
+        return discoveryClient.getServices()
+                .count()
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(count -> Map.of("registeredServices", count));
+    }
+
+    /**
+     * Probe every instance of a service concurrently, each within the check timeout
+     */
+    private Mono<ComponentCheck> checkService(String serviceId) {
+        Mono<Map<String, Object>> probe = discoveryClient.getInstances(serviceId)
+                .collectList()
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(checkTimeout)
+                .flatMap(instances -> {
+                    if (instances.isEmpty()) {
+                        return Mono.error(new IllegalStateException("No instance registered"));
+                    }
+                    return Flux.fromIterable(instances)
+                            .flatMap(this::isReachable)
+                            .filter(Boolean::booleanValue)
+                            .count()
+                            .flatMap(reachable -> reachable == 0
+                                    ? Mono.error(new IllegalStateException(
+                                            "No reachable instance out of " + instances.size()))
+                                    : Mono.just(Map.<String, Object>of("instances", instances.size(),
+                                            "reachable", reachable)));
+                });
+        return check(probe);
+    }
+
+    private Mono<Boolean> isReachable(ServiceInstance instance) {
+        return webClient.get()
+                .uri(instance.getUri() + servicePath)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(!response.statusCode().is5xxServerError()))
+                .timeout(checkTimeout)
+                .onErrorReturn(false);
+    }
+
+    /**
+     * Time a probe: UP with its details, DOWN with the error (including timeouts) otherwise
+     */
+    private Mono<ComponentCheck> check(Mono<Map<String, Object>> probe) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return probe
+                    .defaultIfEmpty(Map.of())
+                    .map(details -> new ComponentCheck(Status.UP, details, System.currentTimeMillis(),
+                            elapsedMs(start)))
+                    .onErrorResume(e -> Mono.just(new ComponentCheck(Status.DOWN, Map.of("error", describe(e)),
+                            System.currentTimeMillis(), elapsedMs(start))));
+        });
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+
+    private String describe(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "Timed out after " + checkTimeout.toMillis() + "ms";
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,64 @@
+package com.devbuild.apigateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load seen by the gateway for one service instance: requests in flight and an
+ * exponentially weighted moving average of their latency.
+ * <p>
+ * The average decays towards zero while the instance receives no traffic, so an
+ * instance that was slow once is probed again after a while instead of being starved.
+ */
+public class InstanceStats {
+
+    private final double alpha;
+    private final long decayNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    // Guarded by this
+    private boolean sampled;
+    private double ewmaNanos;
+    private long lastUpdateNanos;
+
+    public InstanceStats(double alpha, long decayNanos) {
+        this.alpha = alpha;
+        this.decayNanos = decayNanos;
+    }
+
+    public void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Request abandoned before completing: no longer in flight, and no latency sample
+     */
+    public void onCancel() {
+        outstanding.updateAndGet(current -> Math.max(0, current - 1));
+    }
+
+    public synchronized void onComplete(long latencyNanos, long nowNanos) {
+        outstanding.updateAndGet(current -> Math.max(0, current - 1));
+        ewmaNanos = sampled ? ewmaNanos + alpha * (latencyNanos - ewmaNanos) : latencyNanos;
+        lastUpdateNanos = nowNanos;
+        sampled = true;
+    }
+
+    /**
+     * Expected cost of sending one more request: average latency times the queue it would join
+     */
+    public double cost(long nowNanos) {
+        return latency(nowNanos) * (outstanding.get() + 1);
+    }
+
+    public synchronized double latency(long nowNanos) {
+        if (!sampled) {
+            return 0;
+        }
+        long idle = Math.max(0, nowNanos - lastUpdateNanos);
+        return ewmaNanos * Math.exp(-(double) idle / decayNanos);
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+}
@@ -0,0 +1,113 @@
+package com.devbuild.apigateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Keeps {@link InstanceStats} for every service instance the gateway calls.
+ * <p>
+ * Registered as a {@link LoadBalancerLifecycle}, so the gateway load balancer filter reports
+ * the start and completion of every routed request. Failed calls count as at least
+ * {@code failure-penalty} of latency so instances that error fast are not preferred.
+ * <p>
+ * The gateway does not report cancelled requests (client disconnect, circuit breaker timeout):
+ * {@link com.devbuild.apigateway.filter.LoadBalancerCancelFilter} releases them with
+ * {@link #onCancel(Response)}. Each started request is released exactly once.
+ */
+@Component
+public class InstanceStatsRegistry implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final double alpha;
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+    private final Cache<String, InstanceStats> stats;
+    // Started requests not released yet, by load balancer response (weak keys compare by identity);
+    // a response garbage collected without being released is released then
+    private final Cache<Response<ServiceInstance>, InstanceStats> inFlight = Caffeine.newBuilder()
+            .weakKeys()
+            .<Response<ServiceInstance>, InstanceStats>removalListener((lbResponse, instanceStats, cause) -> {
+                if (cause == RemovalCause.COLLECTED && instanceStats != null) {
+                    instanceStats.onCancel();
+                }
+            })
+            .build();
+
+    public InstanceStatsRegistry(@Value("${loadbalancer.latency-aware.ewma-alpha:0.3}") double alpha,
+                                 @Value("${loadbalancer.latency-aware.decay:10s}") Duration decay,
+                                 @Value("${loadbalancer.latency-aware.failure-penalty:1s}") Duration failurePenalty) {
+        this.alpha = alpha;
+        this.decayNanos = decay.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.stats = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    public InstanceStats statsFor(ServiceInstance instance) {
+        return stats.get(key(instance), k -> new InstanceStats(alpha, decayNanos));
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        InstanceStats instanceStats = statsFor(lbResponse.getServer());
+        inFlight.put(lbResponse, instanceStats);
+        instanceStats.onStart();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        InstanceStats instanceStats = lbResponse != null ? inFlight.asMap().remove(lbResponse) : null;
+        if (instanceStats == null) {
+            // Never started, or already released by a cancel
+            return;
+        }
+        if (completionContext.status() == CompletionContext.Status.DISCARD
+                || !(completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed)) {
+            instanceStats.onCancel();
+            return;
+        }
+
+        long now = System.nanoTime();
+        long latency = now - timed.getRequestStartTime();
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        instanceStats.onComplete(latency, now);
+    }
+
+    /**
+     * Release a request that was cancelled before completing, without recording its latency
+     */
+    public void onCancel(Response<ServiceInstance> lbResponse) {
+        InstanceStats instanceStats = inFlight.asMap().remove(lbResponse);
+        if (instanceStats != null) {
+            instanceStats.onCancel();
+        }
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+}
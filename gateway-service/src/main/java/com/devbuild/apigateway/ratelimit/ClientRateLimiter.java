@@ -0,0 +1,20 @@
+package com.devbuild.apigateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Rate limiting strategy used by the gateway, selected with {@code rate-limit.strategy}
+ */
+public interface ClientRateLimiter {
+
+    /**
+     * Try to admit one request for the client
+     *
+     * @param clientId client key (user, IP...)
+     * @param limit    maximum number of requests per window
+     * @param window   window size
+     */
+    Mono<RateLimitResult> tryAcquire(String clientId, int limit, Duration window);
+}
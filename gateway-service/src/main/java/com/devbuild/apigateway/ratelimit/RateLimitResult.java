@@ -0,0 +1,12 @@
+package com.devbuild.apigateway.ratelimit;
+
+/**
+ * Outcome of a rate limit check, carrying everything needed for the X-RateLimit-* headers
+ */
+public record RateLimitResult(
+        boolean allowed,
+        long limit,
+        long remaining,
+        long resetEpochSeconds
+) {
+}
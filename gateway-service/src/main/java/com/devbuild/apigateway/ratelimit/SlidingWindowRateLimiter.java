@@ -0,0 +1,63 @@
+package com.devbuild.apigateway.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis sliding window rate limiter.
+ * Trimming, counting, admission and TTL refresh run atomically in one Lua script,
+ * so each check costs a single round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.strategy", havingValue = "sliding-window")
+public class SlidingWindowRateLimiter implements ClientRateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/sliding_window_rate_limit.lua"), List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    // Unique ZSET members: requests in the same millisecond must not overwrite each other
+    private final String memberPrefix = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlidingWindowRateLimiter(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Try to admit one request for the client in the current window
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<RateLimitResult> tryAcquire(String clientId, int limit, Duration window) {
+        List<String> keys = List.of(KEY_PREFIX + clientId);
+        List<String> args = List.of(
+                String.valueOf(window.toMillis()),
+                String.valueOf(limit),
+                memberPrefix + ":" + sequence.incrementAndGet());
+
+        return redisTemplate.execute(SCRIPT, keys, args)
+                .next()
+                .map(result -> {
+                    List<Long> values = (List<Long>) result;
+                    boolean allowed = values.get(0) == 1L;
+                    long count = values.get(1);
+                    long resetMillis = values.get(2);
+                    return new RateLimitResult(allowed, limit, Math.max(0, limit - count),
+                            (resetMillis + 999) / 1000);
+                });
+    }
+}
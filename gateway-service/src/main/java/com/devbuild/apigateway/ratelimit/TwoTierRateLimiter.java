@@ -0,0 +1,275 @@
+package com.devbuild.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Two-tier token bucket rate limiter.
+ * <p>
+ * Each gateway instance leases small batches of tokens from a shared Redis bucket and
+ * serves requests from the lease locally, so most requests never leave the JVM. The
+ * next batch is fetched in the background before the current one runs out. Tokens
+ * still unused when a lease expires are given back to the shared bucket.
+ * <p>
+ * When Redis is slow or unreachable the limiter switches to a purely local token
+ * bucket for a cool-down period, so approximate limits keep being enforced.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.strategy", havingValue = "two-tier", matchIfMissing = true)
+@Slf4j
+public class TwoTierRateLimiter implements ClientRateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:bucket:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/token_bucket_lease.lua"), List.class);
+
+    private static final RedisScript<Long> RETURN_SCRIPT = RedisScript.of(
+            new ClassPathResource("scripts/token_bucket_return.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final int maxLeaseSize;
+    private final long leaseTtlMs;
+    private final Duration redisTimeout;
+    private final long degradedCooldownMs;
+    private final double localShare;
+
+    private final Cache<String, ClientBucket> buckets;
+
+    private volatile long degradedUntil;
+
+    public TwoTierRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                              @Value("${rate-limit.two-tier.lease-size:10}") int maxLeaseSize,
+                              @Value("${rate-limit.two-tier.lease-ttl:1s}") Duration leaseTtl,
+                              @Value("${rate-limit.two-tier.redis-timeout:50ms}") Duration redisTimeout,
+                              @Value("${rate-limit.two-tier.degraded-cooldown:5s}") Duration degradedCooldown,
+                              @Value("${rate-limit.two-tier.local-share:1.0}") double localShare,
+                              @Value("${rate-limit.two-tier.max-clients:100000}") long maxClients) {
+        this.redisTemplate = redisTemplate;
+        this.maxLeaseSize = maxLeaseSize;
+        this.leaseTtlMs = leaseTtl.toMillis();
+        this.redisTimeout = redisTimeout;
+        this.degradedCooldownMs = degradedCooldown.toMillis();
+        this.localShare = localShare;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @Override
+    public Mono<RateLimitResult> tryAcquire(String clientId, int limit, Duration window) {
+        ClientBucket bucket = buckets.get(clientId, id -> new ClientBucket());
+        long now = System.currentTimeMillis();
+
+        if (isDegraded(now)) {
+            return Mono.just(bucket.acquireLocal(limit * localShare, window.toMillis(), now));
+        }
+
+        giveBack(clientId, bucket.takeExpired(now), limit, window);
+        long leased = bucket.takeLeased(now);
+        if (leased >= 0) {
+            if (leased <= leaseSize(limit) / 4 && bucket.leaseInFlight.compareAndSet(false, true)) {
+                lease(clientId, bucket, limit, window)
+                        .doFinally(signal -> bucket.leaseInFlight.set(false))
+                        .subscribe(granted -> { }, e -> { });
+            }
+            return Mono.just(admitted(bucket, limit, window, now));
+        }
+
+        // Lease exhausted: this request waits for one round trip that refills the batch
+        return lease(clientId, bucket, limit, window)
+                .map(granted -> granted > 0 && bucket.takeLeased(now) >= 0
+                        ? admitted(bucket, limit, window, now)
+                        : bucket.result(false, limit))
+                .onErrorResume(e -> Mono.just(bucket.acquireLocal(limit * localShare, window.toMillis(), now)));
+    }
+
+    /**
+     * Request admitted by the shared tier: also count it in the local fallback bucket,
+     * so a switch to local-only limiting starts from the client's recent usage
+     */
+    private RateLimitResult admitted(ClientBucket bucket, int limit, Duration window, long now) {
+        bucket.drainLocal(limit * localShare, window.toMillis(), now);
+        return bucket.result(true, limit);
+    }
+
+    /**
+     * Lease a batch of tokens from the shared Redis bucket into the local bucket
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Long> lease(String clientId, ClientBucket bucket, int limit, Duration window) {
+        List<String> keys = List.of(KEY_PREFIX + clientId);
+        List<String> args = List.of(
+                String.valueOf(limit),
+                String.valueOf(window.toMillis()),
+                String.valueOf(leaseSize(limit)));
+
+        return redisTemplate.execute(LEASE_SCRIPT, keys, args)
+                .next()
+                .timeout(redisTimeout)
+                .map(result -> {
+                    List<Long> values = (List<Long>) result;
+                    long granted = values.get(0);
+                    long expired = bucket.addLease(granted, values.get(1), values.get(2),
+                            System.currentTimeMillis() + leaseTtlMs);
+                    giveBack(clientId, expired, limit, window);
+                    if (granted > 0) {
+                        // Return what this lease leaves unused even if the client sends nothing more
+                        Mono.delay(Duration.ofMillis(leaseTtlMs + 1))
+                                .subscribe(tick -> giveBack(clientId,
+                                        bucket.takeExpired(System.currentTimeMillis()), limit, window));
+                    }
+                    return granted;
+                })
+                .doOnError(this::markDegraded);
+    }
+
+    /**
+     * Give unused tokens of an expired lease back to the shared Redis bucket.
+     * Best effort: tokens lost on a failure only come back with the bucket refill.
+     */
+    private void giveBack(String clientId, long unused, int limit, Duration window) {
+        if (unused <= 0 || isDegraded(System.currentTimeMillis())) {
+            return;
+        }
+        List<String> keys = List.of(KEY_PREFIX + clientId);
+        List<String> args = List.of(
+                String.valueOf(limit),
+                String.valueOf(window.toMillis()),
+                String.valueOf(unused));
+
+        redisTemplate.execute(RETURN_SCRIPT, keys, args)
+                .next()
+                .timeout(redisTimeout)
+                .subscribe(left -> { }, e -> log.debug("Failed to return {} leased tokens of {}: {}",
+                        unused, clientId, e.toString()));
+    }
+
+    /**
+     * Small batches keep the shared budget fair between gateway instances
+     */
+    private int leaseSize(int limit) {
+        return Math.max(1, Math.min(maxLeaseSize, limit / 10));
+    }
+
+    private boolean isDegraded(long now) {
+        return now < degradedUntil;
+    }
+
+    private void markDegraded(Throwable error) {
+        long now = System.currentTimeMillis();
+        if (!isDegraded(now)) {
+            log.warn("Redis rate limit backend unavailable, enforcing local limits for {}ms: {}",
+                    degradedCooldownMs, error.toString());
+        }
+        degradedUntil = now + degradedCooldownMs;
+    }
+
+    /**
+     * Per-client state: the current Redis lease and the local fallback bucket
+     */
+    static final class ClientBucket {
+
+        final AtomicBoolean leaseInFlight = new AtomicBoolean();
+
+        private long leasedTokens;
+        private long leaseExpiresAt;
+        private long sharedRemaining;
+        private long resetMillis;
+
+        private double localTokens = -1;
+        private long localRefilledAt;
+
+        /**
+         * Take one leased token
+         *
+         * @return the number of leased tokens left, or -1 if the lease is empty or expired
+         */
+        synchronized long takeLeased(long now) {
+            if (leasedTokens == 0 || now > leaseExpiresAt) {
+                return -1;
+            }
+            return --leasedTokens;
+        }
+
+        /**
+         * Empty the lease if it expired
+         *
+         * @return the number of tokens left unused, to give back to the shared bucket
+         */
+        synchronized long takeExpired(long now) {
+            if (leasedTokens == 0 || now <= leaseExpiresAt) {
+                return 0;
+            }
+            long unused = leasedTokens;
+            leasedTokens = 0;
+            return unused;
+        }
+
+        /**
+         * @return the unused tokens of the previous lease if it expired, to give back
+         */
+        synchronized long addLease(long granted, long remaining, long reset, long expiresAt) {
+            long expired = 0;
+            if (granted > 0) {
+                expired = takeExpired(System.currentTimeMillis());
+                leasedTokens += granted;
+                leaseExpiresAt = expiresAt;
+            }
+            sharedRemaining = remaining;
+            resetMillis = reset;
+            return expired;
+        }
+
+        synchronized RateLimitResult result(boolean allowed, int limit) {
+            long remaining = allowed ? Math.min(limit, sharedRemaining + leasedTokens) : 0;
+            return new RateLimitResult(allowed, limit, remaining, (resetMillis + 999) / 1000);
+        }
+
+        /**
+         * Refill the local bucket and take one token if available
+         */
+        synchronized RateLimitResult acquireLocal(double capacity, long windowMs, long now) {
+            refillLocal(capacity, windowMs, now);
+            boolean allowed = localTokens >= 1;
+            if (allowed) {
+                localTokens -= 1;
+            }
+            double rate = capacity / windowMs;
+            long reset = now + (long) Math.ceil((allowed ? capacity - localTokens : 1 - localTokens) / rate);
+            int limit = (int) capacity;
+            return new RateLimitResult(allowed, limit, allowed ? (long) localTokens : 0, (reset + 999) / 1000);
+        }
+
+        /**
+         * Record a request admitted by the shared tier in the local bucket, without enforcing it
+         */
+        synchronized void drainLocal(double capacity, long windowMs, long now) {
+            refillLocal(capacity, windowMs, now);
+            localTokens = Math.max(0, localTokens - 1);
+        }
+
+        private void refillLocal(double capacity, long windowMs, long now) {
+            if (localTokens < 0) {
+                localTokens = capacity;
+            } else {
+                localTokens = Math.min(capacity, localTokens + (now - localRefilledAt) * capacity / windowMs);
+            }
+            localRefilledAt = now;
+        }
+    }
+}
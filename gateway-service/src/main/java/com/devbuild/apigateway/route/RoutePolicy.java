@@ -0,0 +1,76 @@
+package com.devbuild.apigateway.route;
+
+import com.devbuild.apigateway.util.JwtClaims;
+
+import java.time.Duration;
+import java.util.TreeSet;
+
+/**
+ * Precompiled per-route policy, built once from the route metadata
+ * (see {@link RoutePolicyRegistry})
+ */
+public record RoutePolicy(
+        String routeId,
+        boolean publicRoute,
+        boolean requiresAuth,
+        String requiredRole,
+        Integer rateLimit,
+        Duration rateLimitWindow,
+        RateLimitKey rateLimitKey,
+        Duration cacheTtl,
+        CacheScope cacheScope,
+        boolean coalesce,
+        Duration coalesceMaxWait,
+        Duration staleIfError
+) {
+
+    /**
+     * Whether GET responses of this route may be cached by the gateway
+     */
+    public boolean cacheable() {
+        return cacheTtl != null && !cacheTtl.isZero();
+    }
+
+    /**
+     * Whether the last successful GET response is kept to answer circuit breaker fallbacks
+     */
+    public boolean keepsStale() {
+        return staleIfError != null && !staleIfError.isZero();
+    }
+
+    /**
+     * Principal part of cache and coalescing keys: callers with the same scope key
+     * may receive the same response. Returns null if the response must not be shared.
+     */
+    public String cacheScopeKey(JwtClaims claims) {
+        return switch (cacheScope) {
+            case SHARED -> "*";
+            case ROLE -> claims != null ? "roles:" + String.join(",", new TreeSet<>(claims.roles())) : null;
+            case USER -> claims != null && claims.userId() != null ? "user:" + claims.userId() : null;
+        };
+    }
+
+    /**
+     * How requests are grouped into rate limit buckets
+     */
+    public enum RateLimitKey {
+        /** Authenticated user id, falling back to the client IP */
+        USER,
+        /** Client IP address */
+        IP,
+        /** X-API-Key header, falling back to the client IP */
+        API_KEY
+    }
+
+    /**
+     * Who may share a cached response
+     */
+    public enum CacheScope {
+        /** One entry per user */
+        USER,
+        /** One entry per set of roles */
+        ROLE,
+        /** One entry for every caller */
+        SHARED
+    }
+}
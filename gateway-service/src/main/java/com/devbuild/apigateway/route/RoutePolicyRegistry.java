@@ -0,0 +1,101 @@
+package com.devbuild.apigateway.route;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link RoutePolicy} objects compiled from the route metadata.
+ * Policies are built once at startup and rebuilt whenever the routes are refreshed,
+ * so filters resolve a route's policy with a single map lookup.
+ * <p>
+ * Supported metadata: {@code public}, {@code requiresAuth}, {@code requiresRole},
+ * {@code rateLimit}, {@code rateLimitWindow} (seconds), {@code rateLimitKey}
+ * ({@code user}, {@code ip} or {@code api-key}), {@code cacheTtl} (seconds),
+ * {@code cacheScope} ({@code user}, {@code role} or {@code shared}), {@code coalesce},
+ * {@code coalesceMaxWait} (milliseconds) and {@code staleIfError} (seconds).
+ */
+@Component
+@Slf4j
+public class RoutePolicyRegistry {
+
+    private final RouteLocator routeLocator;
+    private final Duration defaultWindow;
+    private final Duration defaultCoalesceMaxWait;
+
+    private volatile Map<String, RoutePolicy> policies = new ConcurrentHashMap<>();
+
+    public RoutePolicyRegistry(RouteLocator routeLocator,
+                               @Value("${rate-limit.window-size:60}") int defaultWindowSeconds,
+                               @Value("${request-coalescing.max-wait:5s}") Duration defaultCoalesceMaxWait) {
+        this.routeLocator = routeLocator;
+        this.defaultWindow = Duration.ofSeconds(defaultWindowSeconds);
+        this.defaultCoalesceMaxWait = defaultCoalesceMaxWait;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, RefreshRoutesResultEvent.class})
+    public void rebuild() {
+        routeLocator.getRoutes()
+                .collectMap(Route::getId, this::compile, ConcurrentHashMap::new)
+                .subscribe(compiled -> {
+                    policies = compiled;
+                    log.info("Compiled rate limit and authentication policies for {} routes", compiled.size());
+                }, e -> log.error("Failed to compile route policies: {}", e.getMessage()));
+    }
+
+    /**
+     * Get the policy of a route, compiling it on first use for routes created after the last rebuild
+     */
+    public RoutePolicy policyFor(Route route) {
+        return policies.computeIfAbsent(route.getId(), id -> compile(route));
+    }
+
+    RoutePolicy compile(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+
+        Object window = metadata.get("rateLimitWindow");
+        Object key = metadata.get("rateLimitKey");
+        Object cacheTtl = metadata.get("cacheTtl");
+        Object cacheScope = metadata.get("cacheScope");
+        Object coalesceMaxWait = metadata.get("coalesceMaxWait");
+        Object staleIfError = metadata.get("staleIfError");
+
+        return new RoutePolicy(
+                route.getId(),
+                toBoolean(metadata.get("public")),
+                toBoolean(metadata.get("requiresAuth")),
+                metadata.get("requiresRole") != null ? metadata.get("requiresRole").toString() : null,
+                toInteger(metadata.get("rateLimit")),
+                window != null ? Duration.ofSeconds(Long.parseLong(window.toString())) : defaultWindow,
+                key != null
+                        ? RoutePolicy.RateLimitKey.valueOf(key.toString().toUpperCase(Locale.ROOT).replace('-', '_'))
+                        : RoutePolicy.RateLimitKey.USER,
+                cacheTtl != null ? Duration.ofSeconds(Long.parseLong(cacheTtl.toString())) : null,
+                cacheScope != null
+                        ? RoutePolicy.CacheScope.valueOf(cacheScope.toString().toUpperCase(Locale.ROOT))
+                        : RoutePolicy.CacheScope.USER,
+                toBoolean(metadata.get("coalesce")),
+                coalesceMaxWait != null
+                        ? Duration.ofMillis(Long.parseLong(coalesceMaxWait.toString()))
+                        : defaultCoalesceMaxWait,
+                staleIfError != null ? Duration.ofSeconds(Long.parseLong(staleIfError.toString())) : null);
+    }
+
+    private static boolean toBoolean(Object value) {
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? Integer.valueOf(value.toString()) : null;
+    }
+}
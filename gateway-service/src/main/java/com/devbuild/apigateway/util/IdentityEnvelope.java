@@ -0,0 +1,79 @@
+package com.devbuild.apigateway.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Signed identity envelope forwarded to downstream services in the {@value #HEADER} header,
+ * so they can trust the caller's identity without parsing the JWT again.
+ * <p>
+ * Format: {@code base64url(payload).base64url(HMAC-SHA256(payload))}, where the payload is
+ * {@code v1\nuserId\nemail\nrole1,role2\nexpiresAtEpochSeconds}. The envelope expires after
+ * {@code identity.ttl} or with the token, whichever comes first.
+ */
+@Component
+@Slf4j
+public class IdentityEnvelope {
+
+    public static final String HEADER = "X-Identity";
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final ThreadLocal<Mac> macs;
+
+    public IdentityEnvelope(@Value("${identity.secret:}") String secret,
+                            @Value("${identity.ttl:30s}") Duration ttl) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttl = ttl;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        if (key == null) {
+            log.warn("identity.secret is not set: downstream services will verify the JWT themselves");
+        }
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * Build the envelope for verified claims, or null if signing is disabled or there is no user id
+     */
+    public String sign(JwtClaims claims) {
+        if (key == null || claims.userId() == null || claims.username() == null) {
+            return null;
+        }
+
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        if (claims.expiresAt() != null) {
+            expiresAt = Math.min(expiresAt, claims.expiresAt().getEpochSecond());
+        }
+        String payload = VERSION + "\n" + claims.userId() + "\n" + claims.username() + "\n"
+                + String.join(",", claims.roles()) + "\n" + expiresAt;
+
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(macs.get().doFinal(payloadBytes));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.devbuild.apigateway.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable view of a verified JWT.
+ * Built once per request by {@link JwtUtil#parseToken(String)} and stored in the
+ * exchange attributes so later filters never re-parse the token.
+ */
+public record JwtClaims(
+        Long userId,
+        String username,
+        List<String> roles,
+        String issuer,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    /**
+     * Exchange attribute holding the verified claims of the current request
+     */
+    public static final String EXCHANGE_ATTRIBUTE = JwtClaims.class.getName();
+
+    public JwtClaims {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    /**
+     * Copy the fields we use out of the parsed jjwt claims
+     */
+    static JwtClaims from(Claims claims) {
+        List<?> rawRoles = claims.get("roles", List.class);
+        List<String> roles = rawRoles == null ? List.of()
+                : rawRoles.stream().map(String::valueOf).toList();
+
+        return new JwtClaims(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                roles,
+                claims.getIssuer(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    /**
+     * Check if token is expired
+     */
+    public boolean isExpired() {
+        return expiresAt == null || expiresAt.isBefore(Instant.now());
+    }
+
+    /**
+     * Check if user has specific role
+     */
+    public boolean hasRole(String role) {
+        return roles.stream().anyMatch(r -> r.equalsIgnoreCase(role));
+    }
+
+    /**
+     * Check if user has any of the specified roles
+     */
+    public boolean hasAnyRole(String... candidates) {
+        for (String role : candidates) {
+            if (hasRole(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,10 @@
 package com.devbuild.apigateway.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -14,7 +16,9 @@ import java.util.List;
 import java.util.function.Function;
 
 /**
- * JWT Utility class for token validation and claims extraction
+ * JWT Utility class for token validation and claims extraction.
+ * The signing key and the parser are built once at startup; jjwt parsers are
+ * immutable and safe to share between event-loop threads.
  */
 @Component
 @Slf4j
@@ -29,12 +33,44 @@ public class JwtUtil {
     @Value("${jwt.issuer}")
     private String issuer;
 
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     /**
-     * Get signing key from secret
+     * Parse, verify and validate the token exactly once.
+     *
+     * @return the verified claims, or {@code null} if the token is invalid, expired
+     *         or was not issued by the expected issuer
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtClaims parseToken(String token) {
+        try {
+            JwtClaims claims = JwtClaims.from(extractAllClaims(token));
+
+            if (claims.isExpired()) {
+                log.warn("Token is expired");
+                return null;
+            }
+
+            if (!issuer.equals(claims.issuer())) {
+                log.warn("Invalid token issuer. Expected: {}, Got: {}", issuer, claims.issuer());
+                return null;
+            }
+
+            log.debug("Token validated successfully for user: {}", claims.username());
+            return claims;
+        } catch (Exception e) {
+            log.error("Token validation failed: {}", e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -42,11 +78,7 @@ public class JwtUtil {
      */
     public Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
             log.error("Error extracting claims from token: {}", e.getMessage());
             throw e;
@@ -113,26 +145,7 @@ public class JwtUtil {
      * Validate token
      */
     public Boolean validateToken(String token) {
-        try {
-            // Check if token is expired
-            if (isTokenExpired(token)) {
-                log.warn("Token is expired");
-                return false;
-            }
-
-            // Check issuer
-            String tokenIssuer = extractIssuer(token);
-            if (!issuer.equals(tokenIssuer)) {
-                log.warn("Invalid token issuer. Expected: {}, Got: {}", issuer, tokenIssuer);
-                return false;
-            }
-
-            log.debug("Token validated successfully for user: {}", extractUsername(token));
-            return true;
-        } catch (Exception e) {
-            log.error("Token validation failed: {}", e.getMessage());
-            return false;
-        }
+        return parseToken(token) != null;
     }
 
     /**
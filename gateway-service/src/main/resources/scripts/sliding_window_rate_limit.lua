@@ -0,0 +1,37 @@
+-- Sliding window rate limiter, executed atomically in a single round trip.
+-- Time comes from the Redis server so every gateway instance sees the same clock.
+-- KEYS[1] : window key (sorted set of admitted requests scored by timestamp)
+-- ARGV[1] : window size in milliseconds
+-- ARGV[2] : maximum number of requests in the window
+-- ARGV[3] : unique member for this request
+-- Returns { allowed (1|0), requests in window, window reset time in milliseconds }
+
+local key = KEYS[1]
+local window = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+local member = ARGV[3]
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+-- Trim entries that slid out of the window
+redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+
+local count = redis.call('ZCARD', key)
+local allowed = 0
+if count < limit then
+    redis.call('ZADD', key, now, member)
+    count = count + 1
+    allowed = 1
+end
+
+redis.call('PEXPIRE', key, window)
+
+-- The window frees a slot when its oldest entry expires
+local reset = now + window
+local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+if oldest[2] then
+    reset = tonumber(oldest[2]) + window
+end
+
+return { allowed, count, reset }
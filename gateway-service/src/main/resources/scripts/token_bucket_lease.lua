@@ -0,0 +1,40 @@
+-- Shared token bucket from which gateway instances lease small batches of tokens.
+-- Time comes from the Redis server so every gateway instance sees the same clock.
+-- KEYS[1] : bucket key (hash with 'tokens' and 'ts')
+-- ARGV[1] : bucket capacity (requests per window)
+-- ARGV[2] : window size in milliseconds
+-- ARGV[3] : number of tokens requested
+-- Returns { granted, tokens left, reset time in milliseconds }
+-- The reset time is when the next token is available if nothing was granted,
+-- otherwise when the bucket is full again.
+
+local key = KEYS[1]
+local capacity = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local rate = capacity / window
+
+local data = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(data[1]) or capacity
+local ts = tonumber(data[2]) or now
+
+-- Refill for the time elapsed since the last lease
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', tostring(now))
+redis.call('PEXPIRE', key, window)
+
+local reset
+if granted == 0 then
+    reset = now + math.ceil((1 - tokens) / rate)
+else
+    reset = now + math.ceil((capacity - tokens) / rate)
+end
+
+return { granted, math.floor(tokens), reset }
@@ -0,0 +1,31 @@
+-- Gives back to the shared token bucket the tokens of a lease that expired unused,
+-- so the budget leased by one gateway instance is not lost for the others.
+-- KEYS[1] : bucket key (hash with 'tokens' and 'ts')
+-- ARGV[1] : bucket capacity (requests per window)
+-- ARGV[2] : window size in milliseconds
+-- ARGV[3] : number of tokens returned
+-- Returns the tokens left
+
+local key = KEYS[1]
+local capacity = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local returned = tonumber(ARGV[3])
+
+local data = redis.call('HMGET', key, 'tokens', 'ts')
+if not data[1] then
+    -- Bucket expired: it is full again
+    return capacity
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local rate = capacity / window
+local ts = tonumber(data[2]) or now
+
+-- Refill for the time elapsed since the last lease, as the lease script does
+local tokens = math.min(capacity, tonumber(data[1]) + math.max(0, now - ts) * rate + returned)
+
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', tostring(now))
+redis.call('PEXPIRE', key, window)
+
+return math.floor(tokens)
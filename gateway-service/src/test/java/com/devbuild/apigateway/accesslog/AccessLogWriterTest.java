@@ -0,0 +1,111 @@
+package com.devbuild.apigateway.accesslog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the access log ring buffer and its sampling rules.
+ */
+class AccessLogWriterTest {
+
+    private static AccessLogRecord record(String requestId, int status, long latencyMs) {
+        return new AccessLogRecord(System.currentTimeMillis(), requestId, "GET", "/api/users/me",
+                "user-service", status, status, latencyMs, "127.0.0.1", "42");
+    }
+
+    private static AccessLogWriter writer(int bufferSize, double sampleRate) {
+        return new AccessLogWriter(new SimpleMeterRegistry(), true, bufferSize, 64,
+                Duration.ofMillis(200), sampleRate, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void bufferDropsWhenFullInsteadOfBlocking() {
+        AccessLogBuffer buffer = new AccessLogBuffer(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(record("r" + i, 200, 1))).isTrue();
+        }
+        assertThat(buffer.offer(record("overflow", 200, 1))).isFalse();
+
+        List<String> drained = new ArrayList<>();
+        assertThat(buffer.drain(r -> drained.add(r.requestId()), 10)).isEqualTo(4);
+        assertThat(drained).containsExactly("r0", "r1", "r2", "r3");
+        assertThat(buffer.offer(record("after", 200, 1))).isTrue();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingWhileThereIsRoom() throws InterruptedException {
+        AccessLogBuffer buffer = new AccessLogBuffer(1 << 16);
+        int producers = 8;
+        int perProducer = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.offer(record(producer + "-" + i, 200, 1));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Set<String> ids = new HashSet<>();
+        buffer.drain(r -> ids.add(r.requestId()), Integer.MAX_VALUE);
+        assertThat(ids).hasSize(producers * perProducer);
+    }
+
+    @Test
+    void errorsAndSlowRequestsAreAlwaysLogged() {
+        AccessLogWriter writer = writer(1024, 0.0);
+
+        assertThat(writer.submit(record("ok", 200, 5))).isFalse();
+        assertThat(writer.submit(record("error", 503, 5))).isTrue();
+        assertThat(writer.submit(record("denied", 401, 5))).isTrue();
+        assertThat(writer.submit(record("cancelled", 0, 5))).isTrue();
+        assertThat(writer.submit(record("slow", 200, 1500))).isTrue();
+        assertThat(writer.drain()).isEqualTo(4);
+    }
+
+    @Test
+    void successfulRequestsAreSampled() {
+        AccessLogWriter writer = writer(1 << 14, 0.25);
+
+        int logged = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (writer.submit(record("r" + i, 200, 5))) {
+                logged++;
+            }
+        }
+        assertThat(logged).isBetween(2_000, 3_000);
+        assertThat(writer.drain()).isEqualTo(logged);
+    }
+
+    @Test
+    void drainWritesEverythingInBatches() {
+        AccessLogWriter writer = writer(1024, 1.0);
+
+        for (int i = 0; i < 300; i++) {
+            writer.submit(record("r" + i, 200, 5));
+        }
+        assertThat(writer.drain()).isEqualTo(300);
+        assertThat(writer.drain()).isZero();
+    }
+}
@@ -0,0 +1,231 @@
+package com.devbuild.apigateway.cache;
+
+import com.devbuild.apigateway.controller.ResponseCacheController;
+import com.devbuild.apigateway.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the response cache purge endpoint against a real Redis shared by two gateway instances:
+ * the purge removes the shared entries and is broadcast to the local tier of the other instance.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ResponseCachePurgeTest {
+
+    private static final String SECRET = "test-secret-key-for-gateway-tests-must-be-long-enough-for-hs512!!";
+    private static final String CHANNEL = "gateway:response-cache-purge";
+    private static final String PURGED_KEY = ResponseCache.key("defense-service", "user:1", "/api/defenses");
+    private static final String KEPT_KEY = ResponseCache.key("inscription-service", "user:1", "/api/campagnes");
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+
+    private ReactiveRedisMessageListenerContainer firstListener;
+    private ReactiveRedisMessageListenerContainer secondListener;
+    private ResponseCache first;
+    private ResponseCache second;
+    private WebTestClient client;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+
+        firstListener = new ReactiveRedisMessageListenerContainer(connectionFactory);
+        secondListener = new ReactiveRedisMessageListenerContainer(connectionFactory);
+        first = newInstance(firstListener);
+        second = newInstance(secondListener);
+        awaitSubscribed(first);
+        awaitSubscribed(second);
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", Duration.ofHours(1).toMillis());
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "user-service");
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        // The endpoint is served by the first instance
+        ResponseCacheController controller = new ResponseCacheController();
+        ReflectionTestUtils.setField(controller, "responseCache", first);
+        ReflectionTestUtils.setField(controller, "tokenCache", new VerifiedTokenCache(jwtUtil,
+                new SimpleMeterRegistry(), true, 1000, Duration.ofHours(1).toMillis()));
+        client = WebTestClient.bindToController(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.unsubscribe();
+        second.unsubscribe();
+        firstListener.destroy();
+        secondListener.destroy();
+    }
+
+    private ResponseCache newInstance(ReactiveRedisMessageListenerContainer listenerContainer) {
+        ResponseCache cache = new ResponseCache(redisTemplate, listenerContainer, new ObjectMapper(),
+                new SimpleMeterRegistry(), 1_048_576, true, CHANNEL);
+        cache.subscribe();
+        return cache;
+    }
+
+    /**
+     * Subscriptions are asynchronous: publish probe purges until the instance receives one
+     */
+    private void awaitSubscribed(ResponseCache cache) throws InterruptedException {
+        String probe = ResponseCache.key("probe", "*", "/");
+        local(cache).put(probe, response("probe"));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (local(cache).getIfPresent(probe) != null && System.currentTimeMillis() < deadline) {
+            redisTemplate.convertAndSend(CHANNEL, "probe").block();
+            Thread.sleep(50);
+        }
+        assertThat(local(cache).getIfPresent(probe)).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, CachedResponse> local(ResponseCache cache) {
+        return (Cache<String, CachedResponse>) ReflectionTestUtils.getField(cache, "local");
+    }
+
+    /**
+     * Store a response through the first instance and wait for the asynchronous Redis write
+     */
+    private void store(String key, String body) throws InterruptedException {
+        first.put(key, response(body));
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!redisTemplate.hasKey("response_cache:" + key).block() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static CachedResponse response(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        return new CachedResponse(200, "application/json", bytes, CachedResponse.etagOf(bytes), now, now + 60_000);
+    }
+
+    private static String token(String role) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .subject("admin@example.com")
+                .claim("userId", 1L)
+                .claim("roles", List.of(role))
+                .issuer("user-service")
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Test
+    void purgeRemovesSharedEntriesAndTheLocalEntriesOfEveryInstance() throws InterruptedException {
+        store(PURGED_KEY, "defenses");
+        store(KEPT_KEY, "campagnes");
+        // The second instance loads both entries from Redis into its local tier
+        assertThat(second.get(PURGED_KEY).block()).isNotNull();
+        assertThat(second.get(KEPT_KEY).block()).isNotNull();
+        assertThat(local(second).getIfPresent(PURGED_KEY)).isNotNull();
+
+        client.delete().uri("/gateway/cache/routes/defense-service")
+                .header("Authorization", "Bearer " + token("ROLE_ADMIN"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.route").isEqualTo("defense-service")
+                .jsonPath("$.sharedEntriesDeleted").isEqualTo(1);
+
+        assertThat(local(first).getIfPresent(PURGED_KEY)).isNull();
+        assertThat(redisTemplate.hasKey("response_cache:" + PURGED_KEY).block()).isFalse();
+
+        // Broadcast: the second instance drops its local copy too
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (local(second).getIfPresent(PURGED_KEY) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(local(second).getIfPresent(PURGED_KEY)).isNull();
+        assertThat(second.get(PURGED_KEY).block()).isNull();
+
+        // Other routes are untouched
+        assertThat(local(first).getIfPresent(KEPT_KEY)).isNotNull();
+        assertThat(local(second).getIfPresent(KEPT_KEY)).isNotNull();
+        assertThat(redisTemplate.hasKey("response_cache:" + KEPT_KEY).block()).isTrue();
+    }
+
+    @Test
+    void purgeAllEmptiesEveryInstance() throws InterruptedException {
+        store(PURGED_KEY, "defenses");
+        store(KEPT_KEY, "campagnes");
+        second.get(KEPT_KEY).block();
+
+        client.delete().uri("/gateway/cache")
+                .header("Authorization", "Bearer " + token("ROLE_ADMIN"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.route").isEqualTo("all")
+                .jsonPath("$.sharedEntriesDeleted").isEqualTo(2);
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (local(second).estimatedSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(local(second).getIfPresent(KEPT_KEY)).isNull();
+        assertThat(local(first).getIfPresent(KEPT_KEY)).isNull();
+    }
+
+    @Test
+    void purgeRequiresAnAdminToken() throws InterruptedException {
+        store(PURGED_KEY, "defenses");
+
+        client.delete().uri("/gateway/cache/routes/defense-service")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        client.delete().uri("/gateway/cache/routes/defense-service")
+                .header("Authorization", "Bearer " + token("ROLE_DOCTORANT"))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        assertThat(local(first).getIfPresent(PURGED_KEY)).isNotNull();
+        assertThat(redisTemplate.hasKey("response_cache:" + PURGED_KEY).block()).isTrue();
+    }
+}
@@ -0,0 +1,119 @@
+package com.devbuild.apigateway.cache;
+
+import com.devbuild.apigateway.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the revocation of cached tokens by user-service events.
+ */
+class UserEventRevocationListenerTest {
+
+    private static final String SECRET = "test-secret-key-for-gateway-tests-must-be-long-enough-for-hs512!!";
+    private static final long TOKEN_LIFETIME_MS = Duration.ofHours(1).toMillis();
+
+    private VerifiedTokenCache tokenCache;
+    private UserEventRevocationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TOKEN_LIFETIME_MS);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "user-service");
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        tokenCache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), true, 1000, TOKEN_LIFETIME_MS);
+        listener = new UserEventRevocationListener(tokenCache);
+    }
+
+    private static String token(long userId, Instant issuedAt) {
+        return Jwts.builder()
+                .subject("user" + userId + "@example.com")
+                .claim("userId", userId)
+                .claim("roles", List.of("ROLE_DOCTORANT"))
+                .issuer("user-service")
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(issuedAt.plusMillis(TOKEN_LIFETIME_MS)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Test
+    void revokingEventRejectsCachedTokensBeforeTheirExpiry() {
+        String revoked = token(7, Instant.now().minusSeconds(5));
+        String otherUser = token(8, Instant.now().minusSeconds(5));
+
+        // Verified once, then served from the cache for the rest of its hour
+        assertThat(tokenCache.verify(revoked)).isNotNull();
+        assertThat(tokenCache.verify(otherUser)).isNotNull();
+
+        listener.onUserEvent(new UserEvent("USER_DISABLED", 7L, Instant.now()));
+
+        assertThat(tokenCache.verify(revoked)).isNull();
+        assertThat(tokenCache.verify(otherUser)).isNotNull();
+    }
+
+    @Test
+    void everyRevokingEventTypeIsApplied() {
+        long userId = 10;
+        for (String eventType : UserEventRevocationListener.REVOKING_EVENTS) {
+            String token = token(userId, Instant.now().minusSeconds(5));
+            assertThat(tokenCache.verify(token)).isNotNull();
+
+            listener.onUserEvent(new UserEvent(eventType, userId, Instant.now()));
+
+            assertThat(tokenCache.verify(token)).as(eventType).isNull();
+            userId++;
+        }
+    }
+
+    @Test
+    void otherEventsDoNotRevoke() {
+        String token = token(7, Instant.now().minusSeconds(5));
+        assertThat(tokenCache.verify(token)).isNotNull();
+
+        listener.onUserEvent(new UserEvent("USER_ENABLED", 7L, Instant.now()));
+        listener.onUserEvent(new UserEvent("USER_DISABLED", null, Instant.now()));
+        listener.onUserEvent(null);
+
+        assertThat(tokenCache.verify(token)).isNotNull();
+    }
+
+    @Test
+    void tokenIssuedAfterTheChangeStaysValidWhenTheEventArrivesLate() {
+        // Logged out 10 seconds ago, logged in again since; the event is delivered only now
+        Instant loggedOutAt = Instant.now().minusSeconds(10);
+        String beforeLogout = token(7, Instant.now().minusSeconds(20));
+        String afterLogin = token(7, Instant.now().minusSeconds(5));
+
+        listener.onUserEvent(new UserEvent("USER_LOGGED_OUT", 7L, loggedOutAt));
+
+        assertThat(tokenCache.verify(beforeLogout)).isNull();
+        assertThat(tokenCache.verify(afterLogin)).isNotNull();
+    }
+
+    @Test
+    void tokenIssuedEarlierInTheSameSecondIsRevoked() {
+        // iat is truncated to the second: the token looks issued at the start of the logout's second
+        Instant second = Instant.now().minusSeconds(30).truncatedTo(ChronoUnit.SECONDS);
+        String beforeLogout = token(7, second.plusMillis(100));
+
+        listener.onUserEvent(new UserEvent("USER_LOGGED_OUT", 7L, second.plusMillis(500)));
+
+        assertThat(tokenCache.verify(beforeLogout)).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.devbuild.apigateway.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the latency gradient concurrency limit.
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private static AdaptiveConcurrencyLimit limit() {
+        return new AdaptiveConcurrencyLimit(20, 5, 200, 1.5, 0.2);
+    }
+
+    /**
+     * Run one saturated round: fill every slot, then complete them all with the given latency
+     */
+    private static void saturatedRound(AdaptiveConcurrencyLimit limit, long rttNanos) {
+        int acquired = 0;
+        int inFlight;
+        int[] starts = new int[limit.getLimit()];
+        while ((inFlight = limit.tryAcquire()) > 0) {
+            starts[acquired++] = inFlight;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.onSuccess(rttNanos, starts[i]);
+        }
+    }
+
+    @Test
+    void rejectsOnceTheLimitIsReached() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        for (int i = 1; i <= 20; i++) {
+            assertThat(limit.tryAcquire()).isEqualTo(i);
+        }
+        assertThat(limit.tryAcquire()).isEqualTo(-1);
+
+        limit.onIgnore();
+        assertThat(limit.tryAcquire()).isEqualTo(20);
+    }
+
+    @Test
+    void growsWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        for (int round = 0; round < 20; round++) {
+            saturatedRound(limit, FAST);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(20);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void doesNotGrowWithoutTraffic() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        for (int i = 0; i < 1_000; i++) {
+            int inFlight = limit.tryAcquire();
+            limit.onSuccess(FAST, inFlight);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = limit();
+        for (int round = 0; round < 20; round++) {
+            saturatedRound(limit, FAST);
+        }
+        int grown = limit.getLimit();
+
+        saturatedRound(limit, SLOW);
+        saturatedRound(limit, SLOW);
+
+        assertThat(limit.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    void shrinksOnOverloadFailuresDownToTheMinimum() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.onDropped();
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(5);
+        assertThat(limit.getInFlight()).isZero();
+    }
+}
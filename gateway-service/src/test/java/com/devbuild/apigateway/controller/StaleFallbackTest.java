@@ -0,0 +1,150 @@
+package com.devbuild.apigateway.controller;
+
+import com.devbuild.apigateway.cache.ResponseCache;
+import com.devbuild.apigateway.cache.StaleResponseRevalidator;
+import com.devbuild.apigateway.cache.StaleResponseStore;
+import com.devbuild.apigateway.filter.ResponseCacheFilter;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Tests for stale responses served by the circuit breaker fallbacks.
+ */
+class StaleFallbackTest {
+
+    private static final String PATH = "/api/notifications/user/7/unread";
+    private static final String BODY = "[{\"id\":1,\"lu\":false}]";
+
+    private final Route route = Route.async()
+            .id("notification-service-unread")
+            .uri("lb://NOTIFICATION-SERVICE")
+            .predicate(exchange -> true)
+            .metadata(Map.of("staleIfError", 300, "cacheScope", "user"))
+            .build();
+
+    private StaleResponseStore staleStore;
+    private StaleResponseRevalidator revalidator;
+    private ResponseCacheFilter cacheFilter;
+    private FallbackController fallbackController;
+
+    @BeforeEach
+    void setUp() {
+        staleStore = new StaleResponseStore(new SimpleMeterRegistry(), 1 << 20, Duration.ofSeconds(10));
+        revalidator = mock(StaleResponseRevalidator.class);
+
+        cacheFilter = new ResponseCacheFilter();
+        ReflectionTestUtils.setField(cacheFilter, "responseCache", mock(ResponseCache.class));
+        ReflectionTestUtils.setField(cacheFilter, "staleStore", staleStore);
+        ReflectionTestUtils.setField(cacheFilter, "policyRegistry",
+                new RoutePolicyRegistry(Flux::empty, 60, Duration.ofSeconds(5)));
+        ReflectionTestUtils.setField(cacheFilter, "cacheEnabled", true);
+        ReflectionTestUtils.setField(cacheFilter, "maxBodySize", 1 << 20);
+
+        fallbackController = new FallbackController();
+        ReflectionTestUtils.setField(fallbackController, "staleStore", staleStore);
+        ReflectionTestUtils.setField(fallbackController, "revalidator", revalidator);
+    }
+
+    private MockServerWebExchange exchange(long userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(JwtClaims.EXCHANGE_ATTRIBUTE, new JwtClaims(userId, "user" + userId,
+                List.of("ROLE_DOCTORANT"), "user-service", Instant.now(), Instant.now().plusSeconds(3600)));
+        return exchange;
+    }
+
+    /**
+     * Healthy service: answers the request
+     */
+    private final GatewayFilterChain upstream = exchange -> {
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("http://10.0.0.5:8084" + PATH));
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        exchange.getResponse().getHeaders().add(HttpHeaders.CONTENT_TYPE, "application/json");
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                .wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+    };
+
+    /**
+     * Open circuit breaker: forwards to the fallback controller
+     */
+    private GatewayFilterChain openBreaker(AtomicReference<ResponseEntity<?>> fallback) {
+        return exchange -> Mono.fromRunnable(() -> fallback.set(fallbackController.notificationServiceFallback(exchange)));
+    }
+
+    @Test
+    void fallbackServesTheLastSuccessfulResponse() {
+        cacheFilter.filter(exchange(7), upstream).block();
+
+        AtomicReference<ResponseEntity<?>> fallback = new AtomicReference<>();
+        MockServerWebExchange failing = exchange(7);
+        cacheFilter.filter(failing, openBreaker(fallback)).block();
+
+        ResponseEntity<?> response = fallback.get();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst("X-Cache")).isEqualTo("STALE");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.WARNING)).startsWith("110");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.AGE)).isEqualTo("0");
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+        verify(revalidator, times(1)).revalidate(any(), anyString(), any());
+
+        String key = failing.getAttribute(StaleResponseStore.KEY_ATTRIBUTE);
+        assertThat(staleStore.get(key).upstreamPath()).isEqualTo(PATH);
+    }
+
+    @Test
+    void staleResponsesAreNotSharedAcrossUsers() {
+        cacheFilter.filter(exchange(7), upstream).block();
+
+        AtomicReference<ResponseEntity<?>> fallback = new AtomicReference<>();
+        cacheFilter.filter(exchange(8), openBreaker(fallback)).block();
+
+        assertThat(fallback.get().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        verify(revalidator, never()).revalidate(any(), anyString(), any());
+    }
+
+    @Test
+    void routesWithoutStaleIfErrorGetTheStandardFallback() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+
+        assertThat(fallbackController.notificationServiceFallback(exchange).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void revalidationIsClaimedOncePerInterval() {
+        assertThat(staleStore.tryStartRevalidation("key")).isTrue();
+        assertThat(staleStore.tryStartRevalidation("key")).isFalse();
+        assertThat(staleStore.tryStartRevalidation("other")).isTrue();
+    }
+}
@@ -0,0 +1,104 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.cache.StaleResponseStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Tests for load shedding by the adaptive concurrency filter.
+ */
+class AdaptiveConcurrencyFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyFilter filter = new AdaptiveConcurrencyFilter(meterRegistry, true,
+            5, 5, 50, 1.5, 0.2, Duration.ofSeconds(2));
+
+    private MockServerWebExchange exchange(String uri) {
+        Route route = Route.async()
+                .id("defense-service")
+                .uri(uri)
+                .predicate(exchange -> true)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/defense-service/x"));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    @Test
+    void shedsRequestsAboveTheLimitWith503() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        GatewayFilterChain slowUpstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200)).then(Mono.fromRunnable(
+                    () -> exchange.getResponse().setStatusCode(HttpStatus.OK)));
+        };
+
+        List<MockServerWebExchange> exchanges = Flux.range(0, 8)
+                .map(i -> exchange("lb://DEFENSE-SERVICE"))
+                .collectList()
+                .block();
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, slowUpstream), exchanges.size())
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(5);
+        List<MockServerWebExchange> rejected = exchanges.stream()
+                .filter(e -> e.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .toList();
+        assertThat(rejected).hasSize(3);
+        assertThat(rejected.get(0).getResponse().getHeaders().getFirst("Retry-After")).isEqualTo("2");
+        assertThat(meterRegistry.get("gateway.concurrency.rejected").tag("route", "defense-service")
+                .counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("gateway.concurrency.inflight").tag("route", "defense-service")
+                .gauge().value()).isZero();
+    }
+
+    @Test
+    void ignoresRoutesThatAreNotLoadBalanced() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        GatewayFilterChain slowUpstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(50)).then();
+        };
+
+        Flux.range(0, 10)
+                .flatMap(i -> filter.filter(exchange("http://localhost:8080"), slowUpstream))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(10);
+    }
+
+    @Test
+    void staleFallbackResponsesLowerTheLimit() {
+        // Fallback of a failed call: 200 with a stale copy instead of a 503
+        GatewayFilterChain staleFallback = exchange -> Mono.fromRunnable(() -> {
+            exchange.getAttributes().put(StaleResponseStore.SERVED_ATTRIBUTE, Boolean.TRUE);
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+        });
+        GatewayFilterChain healthyUpstream = exchange -> Mono.fromRunnable(
+                () -> exchange.getResponse().setStatusCode(HttpStatus.OK));
+
+        AdaptiveConcurrencyFilter staleFilter = new AdaptiveConcurrencyFilter(meterRegistry, true,
+                20, 5, 50, 1.5, 0.2, Duration.ofSeconds(2));
+        staleFilter.filter(exchange("lb://DEFENSE-SERVICE"), healthyUpstream).block(Duration.ofSeconds(1));
+        staleFilter.filter(exchange("lb://DEFENSE-SERVICE"), staleFallback).block(Duration.ofSeconds(1));
+
+        assertThat(meterRegistry.get("gateway.concurrency.limit").tag("route", "defense-service")
+                .gauge().value()).isLessThan(20);
+    }
+}
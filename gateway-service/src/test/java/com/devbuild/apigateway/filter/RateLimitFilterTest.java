@@ -0,0 +1,122 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.ratelimit.ClientRateLimiter;
+import com.devbuild.apigateway.ratelimit.RateLimitResult;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Tests for the choice of the rate limit budgets applied to a request.
+ */
+class RateLimitFilterTest {
+
+    // Limit applied to each bucket key, and the keys whose budget is exhausted
+    private final Map<String, Integer> appliedLimits = new LinkedHashMap<>();
+    private final Set<String> exhausted = new HashSet<>();
+    private final RateLimitFilter filter = new RateLimitFilter();
+
+    @BeforeEach
+    void setUp() {
+        ClientRateLimiter rateLimiter = (clientId, limit, window) -> {
+            appliedLimits.put(clientId, limit);
+            boolean allowed = !exhausted.contains(clientId);
+            return Mono.just(new RateLimitResult(allowed, limit, allowed ? limit - 1 : 0,
+                    Instant.now().plus(window).getEpochSecond()));
+        };
+        ReflectionTestUtils.setField(filter, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(filter, "policyRegistry",
+                new RoutePolicyRegistry(Flux::empty, 60, Duration.ofSeconds(5)));
+        ReflectionTestUtils.setField(filter, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(filter, "defaultLimit", 100);
+        ReflectionTestUtils.setField(filter, "unauthenticatedLimit", 50);
+        ReflectionTestUtils.setField(filter, "adminLimit", 500);
+        ReflectionTestUtils.setField(filter, "windowSizeSeconds", 60);
+    }
+
+    private MockServerWebExchange exchange(String routeId, Integer rateLimit, String role) {
+        Map<String, Object> metadata = new HashMap<>();
+        if (rateLimit != null) {
+            metadata.put("rateLimit", rateLimit);
+        }
+        Route route = Route.async()
+                .id(routeId)
+                .uri("lb://DEFENSE-SERVICE")
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/defenses/reports"));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        if (role != null) {
+            exchange.getAttributes().put(JwtClaims.EXCHANGE_ATTRIBUTE, new JwtClaims(1L, "user@example.com",
+                    List.of(role), "user-service", Instant.now(), Instant.now().plusSeconds(3600)));
+        }
+        return exchange;
+    }
+
+    private Map<String, Integer> limitsFor(MockServerWebExchange exchange) {
+        appliedLimits.clear();
+        filter.filter(exchange, e -> Mono.empty()).block(Duration.ofSeconds(1));
+        return appliedLimits;
+    }
+
+    @Test
+    void sharedBudgetIsKeyedByClientAcrossRoutes() {
+        assertThat(limitsFor(exchange("user-service", null, "ROLE_DOCTORANT")))
+                .containsExactly(Map.entry("client:user:1", 100));
+        assertThat(limitsFor(exchange("defense-service", null, "ROLE_DOCTORANT")))
+                .containsExactly(Map.entry("client:user:1", 100));
+    }
+
+    @Test
+    void sharedLimitDependsOnTheRole() {
+        assertThat(limitsFor(exchange("user-service", null, "ROLE_ADMIN"))).containsEntry("client:user:1", 500);
+        assertThat(limitsFor(exchange("user-service", null, "ROLE_DOCTORANT"))).containsEntry("client:user:1", 100);
+        assertThat(limitsFor(exchange("user-service", null, null)).values()).containsExactly(50);
+    }
+
+    @Test
+    void routeLimitAddsARouteScopedBudgetForEveryRole() {
+        assertThat(limitsFor(exchange("defense-service-reports", 10, "ROLE_ADMIN"))).containsExactly(
+                Map.entry("route:defense-service-reports:user:1", 10),
+                Map.entry("client:user:1", 500));
+        assertThat(limitsFor(exchange("defense-service-reports", 10, "ROLE_DIRECTEUR"))).containsExactly(
+                Map.entry("route:defense-service-reports:user:1", 10),
+                Map.entry("client:user:1", 100));
+    }
+
+    @Test
+    void exhaustedRouteBudgetRejectsWithoutConsumingTheSharedOne() {
+        exhausted.add("route:defense-service-reports:user:1");
+
+        MockServerWebExchange exchange = exchange("defense-service-reports", 10, "ROLE_ADMIN");
+        assertThat(limitsFor(exchange)).containsOnlyKeys("route:defense-service-reports:user:1");
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-RateLimit-Limit")).isEqualTo("10");
+
+        // Other routes still use the shared budget
+        MockServerWebExchange other = exchange("defense-service", null, "ROLE_ADMIN");
+        limitsFor(other);
+        assertThat(other.getResponse().getStatusCode()).isNull();
+    }
+}
@@ -0,0 +1,157 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Tests for the single-flight request coalescing filter.
+ */
+class RequestCoalescingFilterTest {
+
+    private static final String BODY = "{\"campagnes\":[]}";
+
+    private RequestCoalescingFilter filter;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        RoutePolicyRegistry registry = new RoutePolicyRegistry(Flux::empty, 60, Duration.ofSeconds(5));
+        filter = new RequestCoalescingFilter(registry, new SimpleMeterRegistry(), true);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    private Route route(Map<String, Object> metadata) {
+        return Route.async()
+                .id("inscription-service-campagnes")
+                .uri("http://localhost")
+                .predicate(exchange -> true)
+                .metadata(metadata)
+                .build();
+    }
+
+    private MockServerWebExchange exchange(Route route, String path, Long userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        if (userId != null) {
+            exchange.getAttributes().put(JwtClaims.EXCHANGE_ATTRIBUTE, new JwtClaims(userId, "user" + userId,
+                    List.of("ROLE_DOCTORANT"), "user-service", Instant.now(), Instant.now().plusSeconds(3600)));
+        }
+        return exchange;
+    }
+
+    /**
+     * Upstream stand-in: counts calls and answers after a delay
+     */
+    private GatewayFilterChain upstream(Duration latency) {
+        return (ServerWebExchange exchange) -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(latency).then(Mono.defer(() -> {
+                exchange.getResponse().setStatusCode(HttpStatus.OK);
+                exchange.getResponse().getHeaders().add("Content-Type", "application/json");
+                return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory()
+                        .wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+            }));
+        };
+    }
+
+    @Test
+    void burstOfIdenticalRequestsMakesOneUpstreamCall() {
+        Route route = route(Map.of("coalesce", true, "cacheScope", "role"));
+        GatewayFilterChain chain = upstream(Duration.ofMillis(200));
+
+        List<MockServerWebExchange> exchanges = Flux.range(1, 100)
+                .map(i -> exchange(route, "/api/campagnes", (long) i))
+                .collectList()
+                .block();
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, chain), exchanges.size())
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    void differentScopesAreNotShared() {
+        Route route = route(Map.of("coalesce", true, "cacheScope", "user"));
+        GatewayFilterChain chain = upstream(Duration.ofMillis(100));
+
+        Flux.just(1L, 1L, 2L, 2L)
+                .flatMap(userId -> filter.filter(exchange(route, "/api/campagnes", userId), chain))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void differentQueriesAreNotShared() {
+        Route route = route(Map.of("coalesce", true, "cacheScope", "shared"));
+        GatewayFilterChain chain = upstream(Duration.ofMillis(100));
+
+        Flux.just("/api/campagnes?page=0", "/api/campagnes?page=0", "/api/campagnes?page=1")
+                .flatMap(path -> filter.filter(exchange(route, path, null), chain))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void routesWithoutOptInAreNotCoalesced() {
+        Route route = route(Map.of("cacheScope", "shared"));
+        GatewayFilterChain chain = upstream(Duration.ofMillis(100));
+
+        Flux.range(0, 10)
+                .flatMap(i -> filter.filter(exchange(route, "/api/campagnes", null), chain))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(10);
+    }
+
+    @Test
+    void waitersCallUpstreamAfterMaxWait() {
+        Route route = route(Map.of("coalesce", true, "cacheScope", "shared", "coalesceMaxWait", 50));
+        GatewayFilterChain chain = upstream(Duration.ofMillis(300));
+
+        Flux.range(0, 5)
+                .flatMap(i -> filter.filter(exchange(route, "/api/campagnes", null), chain))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(5);
+    }
+
+    @Test
+    void laterRequestsStartANewFlight() {
+        Route route = route(Map.of("coalesce", true, "cacheScope", "shared"));
+        GatewayFilterChain chain = upstream(Duration.ofMillis(10));
+
+        filter.filter(exchange(route, "/api/campagnes", null), chain).block(Duration.ofSeconds(5));
+        filter.filter(exchange(route, "/api/campagnes", null), chain).block(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+}
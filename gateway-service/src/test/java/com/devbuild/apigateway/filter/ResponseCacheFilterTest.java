@@ -0,0 +1,191 @@
+package com.devbuild.apigateway.filter;
+
+import com.devbuild.apigateway.cache.ResponseCache;
+import com.devbuild.apigateway.cache.StaleResponseStore;
+import com.devbuild.apigateway.route.RoutePolicyRegistry;
+import com.devbuild.apigateway.util.JwtClaims;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Tests for the response cache filter with the local cache tier.
+ * Purges and their broadcast are covered by {@link com.devbuild.apigateway.cache.ResponseCachePurgeTest}.
+ */
+class ResponseCacheFilterTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final ResponseCacheFilter filter = new ResponseCacheFilter();
+    private ResponseCache responseCache;
+    private HttpStatus upstreamStatus = HttpStatus.OK;
+    private String upstreamEtag;
+
+    // Upstream answering with the caller's user id and the call number
+    private final GatewayFilterChain upstream = exchange -> {
+        int call = upstreamCalls.incrementAndGet();
+        JwtClaims claims = exchange.getAttribute(JwtClaims.EXCHANGE_ATTRIBUTE);
+        byte[] body = ("{\"user\":" + claims.userId() + ",\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponse().setStatusCode(upstreamStatus);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        if (upstreamEtag != null) {
+            exchange.getResponse().getHeaders().setETag(upstreamEtag);
+        }
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+    };
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Local tier only: no Redis calls
+        responseCache = new ResponseCache(null, null, new ObjectMapper(), meterRegistry,
+                1_048_576, false, "gateway:response-cache-purge");
+
+        ReflectionTestUtils.setField(filter, "responseCache", responseCache);
+        ReflectionTestUtils.setField(filter, "staleStore",
+                new StaleResponseStore(meterRegistry, 1_048_576, Duration.ofSeconds(10)));
+        ReflectionTestUtils.setField(filter, "policyRegistry",
+                new RoutePolicyRegistry(Flux::empty, 60, Duration.ofSeconds(5)));
+        ReflectionTestUtils.setField(filter, "cacheEnabled", true);
+        ReflectionTestUtils.setField(filter, "maxBodySize", 1_048_576);
+    }
+
+    private MockServerWebExchange get(long userId, String ifNoneMatch) {
+        return exchange(HttpMethod.GET, userId, ifNoneMatch);
+    }
+
+    private MockServerWebExchange exchange(HttpMethod method, long userId, String ifNoneMatch) {
+        Route route = Route.async()
+                .id("inscription-service-campaigns")
+                .uri("lb://INSCRIPTION-SERVICE")
+                .predicate(exchange -> true)
+                .metadata(Map.of("cacheTtl", 60, "cacheScope", "user"))
+                .build();
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.method(method, "/api/campagnes?page=0");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(JwtClaims.EXCHANGE_ATTRIBUTE, new JwtClaims(userId, "user" + userId + "@example.com",
+                List.of("ROLE_DOCTORANT"), "user-service", Instant.now(), Instant.now().plusSeconds(3600)));
+        return exchange;
+    }
+
+    private MockServerWebExchange send(MockServerWebExchange exchange) {
+        filter.filter(exchange, upstream).block(Duration.ofSeconds(1));
+        return exchange;
+    }
+
+    @Test
+    void missThenHitServesTheStoredResponse() {
+        MockServerWebExchange miss = send(get(1, null));
+        assertThat(miss.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(miss.getResponse().getHeaders().getETag()).isNotNull();
+        assertThat(miss.getResponse().getBodyAsString().block()).isEqualTo("{\"user\":1,\"call\":1}");
+
+        MockServerWebExchange hit = send(get(1, null));
+        assertThat(hit.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(hit.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(hit.getResponse().getHeaders().getETag()).isEqualTo(miss.getResponse().getHeaders().getETag());
+        assertThat(hit.getResponse().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(hit.getResponse().getBodyAsString().block()).isEqualTo("{\"user\":1,\"call\":1}");
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWith304() {
+        String etag = send(get(1, null)).getResponse().getHeaders().getETag();
+
+        MockServerWebExchange notModified = send(get(1, etag));
+        assertThat(notModified.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getResponse().getBodyAsString().block()).isNullOrEmpty();
+
+        MockServerWebExchange stale = send(get(1, "\"another-version\""));
+        assertThat(stale.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(stale.getResponse().getBodyAsString().block()).isEqualTo("{\"user\":1,\"call\":1}");
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void usersDoNotShareEntries() {
+        send(get(1, null));
+
+        MockServerWebExchange otherUser = send(get(2, null));
+        assertThat(otherUser.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(otherUser.getResponse().getBodyAsString().block()).isEqualTo("{\"user\":2,\"call\":2}");
+
+        // An ETag of another user's response does not match this user's entry
+        String firstUserEtag = send(get(1, null)).getResponse().getHeaders().getETag();
+        MockServerWebExchange revalidation = send(get(2, firstUserEtag));
+        assertThat(revalidation.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidation.getResponse().getBodyAsString().block()).isEqualTo("{\"user\":2,\"call\":2}");
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void weakUpstreamEtagMatchesTheWeakComparison() {
+        upstreamEtag = "W/\"campagnes-v1\"";
+        MockServerWebExchange miss = send(get(1, "W/\"campagnes-v1\""));
+        assertThat(miss.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(miss.getResponse().getHeaders().getETag()).isEqualTo("W/\"campagnes-v1\"");
+
+        assertThat(send(get(1, "W/\"campagnes-v1\"")).getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(send(get(1, "\"campagnes-v1\"")).getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(send(get(1, "W/\"campagnes-v2\"")).getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void successfulWritePurgesTheRoute() {
+        send(get(1, null));
+        send(get(2, null));
+        assertThat(send(get(1, null)).getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+
+        upstreamStatus = HttpStatus.CREATED;
+        send(exchange(HttpMethod.POST, 1, null));
+        upstreamStatus = HttpStatus.OK;
+
+        // Entries of every scope of the route are gone
+        MockServerWebExchange afterWrite = send(get(2, null));
+        assertThat(afterWrite.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(afterWrite.getResponse().getBodyAsString().block()).isEqualTo("{\"user\":2,\"call\":4}");
+    }
+
+    @Test
+    void failedWriteKeepsTheCachedResponses() {
+        send(get(1, null));
+
+        upstreamStatus = HttpStatus.BAD_REQUEST;
+        send(exchange(HttpMethod.PUT, 1, null));
+        upstreamStatus = HttpStatus.OK;
+
+        assertThat(send(get(1, null)).getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,163 @@
+package com.devbuild.apigateway.health;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.data.redis.core.ReactiveRedisCallback;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the background health snapshot and the indicator reading it.
+ */
+class GatewayHealthIndicatorTest {
+
+    private static final Duration CHECK_TIMEOUT = Duration.ofMillis(500);
+
+    private ReactiveStringRedisTemplate redisTemplate;
+    private ReactiveDiscoveryClient discoveryClient;
+    private HealthSnapshotRefresher refresher;
+
+    private static Route route(String id, String uri) {
+        return Route.async()
+                .id(id)
+                .uri(uri)
+                .predicate(exchange -> true)
+                .build();
+    }
+
+    @BeforeAll
+    static void warmUpWebClient() {
+        // The first exchange loads the WebClient classes, which can take longer than a check timeout
+        WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK).build()))
+                .build()
+                .get().uri("http://warm-up/")
+                .exchangeToMono(ClientResponse::releaseBody)
+                .block();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        doReturn(Flux.just("PONG")).when(redisTemplate).execute(any(ReactiveRedisCallback.class));
+
+        discoveryClient = mock(ReactiveDiscoveryClient.class);
+        when(discoveryClient.getServices()).thenReturn(Flux.just("user-service", "defense-service"));
+        when(discoveryClient.getInstances("user-service")).thenReturn(Flux.just(
+                new DefaultServiceInstance("users-1", "user-service", "users-1", 8081, false)));
+        when(discoveryClient.getInstances("defense-service")).thenReturn(Flux.just(
+                new DefaultServiceInstance("defense-1", "defense-service", "defense-1", 8083, false),
+                new DefaultServiceInstance("defense-2", "defense-service", "hanging", 8083, false)));
+
+        RouteLocator routeLocator = () -> Flux.just(
+                route("user-service", "lb://USER-SERVICE"),
+                route("user-service-auth", "lb://USER-SERVICE"),
+                route("defense-service", "lb://DEFENSE-SERVICE"),
+                route("external", "https://example.org"));
+
+        // Instances on host "hanging" never answer; the others answer 404 (reachable, no actuator)
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request ->
+                "hanging".equals(request.url().getHost())
+                        ? Mono.never()
+                        : Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+
+        refresher = new HealthSnapshotRefresher(redisTemplate, discoveryClient, routeLocator, webClientBuilder,
+                Duration.ofSeconds(10), CHECK_TIMEOUT, "/actuator/health");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void healthReadsTheSnapshotWithoutProbing() {
+        GatewayHealthIndicator indicator = new GatewayHealthIndicator(refresher, Duration.ofSeconds(30));
+        refresher.refresh().block();
+
+        Health health = null;
+        for (int i = 0; i < 100; i++) {
+            health = indicator.health();
+        }
+
+        verify(redisTemplate, times(1)).execute(any(ReactiveRedisCallback.class));
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKeys("snapshotAgeMs", "redis", "discovery", "services");
+        assertThat((Map<String, Object>) health.getDetails().get("redis")).containsKeys("ageMs", "checkedAt");
+
+        Map<String, Map<String, Object>> services = (Map<String, Map<String, Object>>) health.getDetails().get("services");
+        assertThat(services).containsOnlyKeys("user-service", "defense-service");
+        assertThat(services.get("user-service")).containsEntry("status", "UP").containsEntry("reachable", 1L);
+        // One of two instances hangs: the service is still reachable
+        assertThat(services.get("defense-service")).containsEntry("status", "UP")
+                .containsEntry("instances", 2).containsEntry("reachable", 1L);
+    }
+
+    @Test
+    void hangingRedisTimesOutWithoutHoldingTheOtherChecks() {
+        doReturn(Flux.never()).when(redisTemplate).execute(any(ReactiveRedisCallback.class));
+        GatewayHealthIndicator indicator = new GatewayHealthIndicator(refresher, Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        HealthSnapshot snapshot = refresher.refresh().block(Duration.ofSeconds(5));
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(elapsedMs).isLessThan(2_000);
+        assertThat(snapshot.redis().status()).isEqualTo(Status.DOWN);
+        assertThat(snapshot.redis().details()).containsEntry("error", "Timed out after 500ms");
+        assertThat(snapshot.discovery().isUp()).isTrue();
+        assertThat(snapshot.services().get("user-service").isUp()).isTrue();
+
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("rateLimit", "Local fallback");
+    }
+
+    @Test
+    void serviceWithoutReachableInstanceIsDownButGatewayStaysUp() {
+        when(discoveryClient.getInstances("user-service")).thenReturn(Flux.empty());
+        when(discoveryClient.getInstances("defense-service")).thenReturn(Flux.just(
+                new DefaultServiceInstance("defense-2", "defense-service", "hanging", 8083, false)));
+
+        HealthSnapshot snapshot = refresher.refresh().block();
+
+        assertThat(snapshot.services().get("user-service").details())
+                .containsEntry("error", "No instance registered");
+        assertThat(snapshot.services().get("defense-service").details())
+                .containsEntry("error", "No reachable instance out of 1");
+        assertThat(new GatewayHealthIndicator(refresher, Duration.ofSeconds(30)).health().getStatus())
+                .isEqualTo(Status.UP);
+    }
+
+    @Test
+    void unknownBeforeTheFirstRefreshAndWhenTheSnapshotIsTooOld() throws InterruptedException {
+        GatewayHealthIndicator indicator = new GatewayHealthIndicator(refresher, Duration.ofMillis(50));
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+
+        refresher.refresh().block();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+
+        Thread.sleep(100);
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UNKNOWN);
+        assertThat(health.getDetails()).containsEntry("snapshot", "Stale");
+    }
+}
@@ -0,0 +1,182 @@
+package com.devbuild.apigateway.loadbalancer;
+
+import com.devbuild.apigateway.filter.LoadBalancerCancelFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Tests for the latency-aware load balancer, against in-memory instances with injected latency.
+ */
+class PowerOfTwoChoicesLoadBalancerTest {
+
+    private static final String SERVICE_ID = "USER-SERVICE";
+
+    private final InstanceStatsRegistry registry = new InstanceStatsRegistry(0.3, Duration.ofSeconds(10),
+            Duration.ofSeconds(1));
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host, SERVICE_ID, host, 8081, false);
+    }
+
+    private PowerOfTwoChoicesLoadBalancer loadBalancer(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+        return new PowerOfTwoChoicesLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+                SERVICE_ID, registry);
+    }
+
+    /**
+     * Route one request the way the gateway does: choose, report start, call the instance, report completion
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Mono<ServiceInstance> route(PowerOfTwoChoicesLoadBalancer loadBalancer, Map<String, Duration> latencies) {
+        Request request = new DefaultRequest<>(new DefaultRequestContext());
+        return loadBalancer.choose(request)
+                .flatMap(response -> {
+                    registry.onStartRequest(request, response);
+                    ServiceInstance server = response.getServer();
+                    return Mono.delay(latencies.get(server.getHost()))
+                            .doOnSuccess(done -> registry.onComplete(
+                                    new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response)))
+                            .thenReturn(server);
+                });
+    }
+
+    @Test
+    void slowInstanceReceivesLittleTraffic() {
+        List<ServiceInstance> instances = List.of(instance("fast-1"), instance("fast-2"), instance("slow"));
+        Map<String, Duration> latencies = Map.of(
+                "fast-1", Duration.ofMillis(5),
+                "fast-2", Duration.ofMillis(5),
+                "slow", Duration.ofMillis(150));
+        PowerOfTwoChoicesLoadBalancer loadBalancer = loadBalancer(instances);
+
+        Map<String, AtomicInteger> picks = new ConcurrentHashMap<>();
+        Flux.range(0, 600)
+                .flatMap(i -> route(loadBalancer, latencies), 20)
+                .doOnNext(server -> picks.computeIfAbsent(server.getHost(), h -> new AtomicInteger()).incrementAndGet())
+                .blockLast(Duration.ofSeconds(30));
+
+        // Round robin would send a third (200) of the requests to the slow instance
+        assertThat(picks.getOrDefault("slow", new AtomicInteger()).get()).isLessThan(60);
+        assertThat(registry.statsFor(instances.get(2)).outstanding()).isZero();
+    }
+
+    @Test
+    void prefersTheInstanceWithFewerRequestsInFlight() {
+        ServiceInstance busy = instance("busy");
+        ServiceInstance idle = instance("idle");
+        long now = System.nanoTime();
+        long latency = TimeUnit.MILLISECONDS.toNanos(20);
+        registry.statsFor(busy).onStart();
+        registry.statsFor(busy).onComplete(latency, now);
+        registry.statsFor(idle).onStart();
+        registry.statsFor(idle).onComplete(latency, now);
+        for (int i = 0; i < 5; i++) {
+            registry.statsFor(busy).onStart();
+        }
+
+        PowerOfTwoChoicesLoadBalancer loadBalancer = loadBalancer(List.of(busy, idle));
+        for (int i = 0; i < 50; i++) {
+            assertThat(loadBalancer.choose(List.of(busy, idle)).getServer()).isEqualTo(idle);
+        }
+    }
+
+    @Test
+    void failuresCountAsSlowResponses() {
+        ServiceInstance failing = instance("failing");
+        ServiceInstance healthy = instance("healthy");
+        PowerOfTwoChoicesLoadBalancer loadBalancer = loadBalancer(List.of(failing, healthy));
+
+        complete(failing, CompletionContext.Status.FAILED);
+        complete(healthy, CompletionContext.Status.SUCCESS);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(loadBalancer.choose(List.of(failing, healthy)).getServer()).isEqualTo(healthy);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void complete(ServiceInstance instance, CompletionContext.Status status) {
+        Request request = new DefaultRequest<>(new DefaultRequestContext());
+        Response response = new DefaultResponse(instance);
+        registry.onStartRequest(request, response);
+        registry.onComplete(new CompletionContext<>(status, request, response));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void cancelledRequestsAreNoLongerInFlight() {
+        ServiceInstance server = instance("cancelled");
+        LoadBalancerCancelFilter filter = new LoadBalancerCancelFilter(registry);
+        Request request = new DefaultRequest<>(new DefaultRequestContext());
+        Response response = new DefaultResponse(server);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users"));
+        exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, response);
+
+        // The upstream call never answers and the client goes away
+        registry.onStartRequest(request, response);
+        Disposable call = filter.filter(exchange, e -> Mono.never()).subscribe();
+        assertThat(registry.statsFor(server).outstanding()).isEqualTo(1);
+        call.dispose();
+        assertThat(registry.statsFor(server).outstanding()).isZero();
+
+        // A late completion of the cancelled request does not release another one in flight
+        registry.statsFor(server).onStart();
+        registry.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+        assertThat(registry.statsFor(server).outstanding()).isEqualTo(1);
+    }
+
+    @Test
+    void latencyOfAnIdleInstanceDecays() {
+        InstanceStats stats = new InstanceStats(0.3, TimeUnit.SECONDS.toNanos(10));
+        stats.onStart();
+        stats.onComplete(TimeUnit.MILLISECONDS.toNanos(100), 0);
+
+        assertThat(stats.latency(0)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(stats.latency(TimeUnit.SECONDS.toNanos(30))).isLessThan(TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    void emptyAndSingleInstanceLists() {
+        ServiceInstance only = instance("only");
+        PowerOfTwoChoicesLoadBalancer loadBalancer = loadBalancer(List.of(only));
+
+        assertThat(loadBalancer.choose(List.of()).hasServer()).isFalse();
+        assertThat(loadBalancer.choose(List.of(only)).getServer()).isEqualTo(only);
+    }
+}
@@ -0,0 +1,94 @@
+package com.devbuild.apigateway.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Compares the sliding window limiter (one Redis script call per request) with the
+ * two-tier limiter (local leases) at gateway-like request rates.
+ * Run with: mvn test -Dtest=RateLimiterBenchmarkTest -Dbenchmark=true
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RateLimiterBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiterBenchmarkTest.class);
+
+    private static final int REQUESTS = 50_000;
+    private static final int CONCURRENCY = 256;
+    private static final int CLIENTS = 200;
+    private static final int LIMIT = 1_000;
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void compareLimiters() {
+        ClientRateLimiter slidingWindow = new SlidingWindowRateLimiter(redisTemplate);
+        ClientRateLimiter twoTier = new TwoTierRateLimiter(redisTemplate, 10, Duration.ofSeconds(1),
+                Duration.ofMillis(50), Duration.ofSeconds(5), 1.0, 100_000);
+
+        // Warm up connections and JIT
+        run(slidingWindow, 5_000);
+        run(twoTier, 5_000);
+
+        report("sliding-window", run(slidingWindow, REQUESTS));
+        report("two-tier", run(twoTier, REQUESTS));
+    }
+
+    private long[] run(ClientRateLimiter limiter, int requests) {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+        long[] latencies = new long[requests];
+
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return limiter.tryAcquire("user:" + (i % CLIENTS), LIMIT, Duration.ofSeconds(60))
+                            .doOnNext(result -> latencies[i] = System.nanoTime() - start);
+                }, CONCURRENCY)
+                .blockLast();
+        return latencies;
+    }
+
+    private void report(String name, long[] latencies) {
+        long total = Arrays.stream(latencies).sum();
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        log.info(String.format("%-15s mean=%6.1fus p50=%6.1fus p99=%7.1fus max=%8.1fus",
+                name,
+                total / 1_000.0 / latencies.length,
+                sorted[sorted.length / 2] / 1_000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1_000.0,
+                sorted[sorted.length - 1] / 1_000.0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.devbuild.apigateway.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the Lua-based sliding window limiter against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SlidingWindowRateLimiterTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+
+    private SlidingWindowRateLimiter rateLimiter;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+        rateLimiter = new SlidingWindowRateLimiter(redisTemplate);
+    }
+
+    @Test
+    void admitsUpToLimitThenRejects() {
+        Duration window = Duration.ofSeconds(60);
+
+        for (int i = 1; i <= 3; i++) {
+            RateLimitResult result = rateLimiter.tryAcquire("user:1", 3, window).block();
+            assertThat(result.allowed()).isTrue();
+            assertThat(result.remaining()).isEqualTo(3 - i);
+        }
+
+        RateLimitResult rejected = rateLimiter.tryAcquire("user:1", 3, window).block();
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.limit()).isEqualTo(3);
+    }
+
+    @Test
+    void resetIsWithinTheWindow() {
+        long before = System.currentTimeMillis() / 1000;
+
+        RateLimitResult result = rateLimiter.tryAcquire("ip:10.0.0.1", 10, Duration.ofSeconds(60)).block();
+
+        assertThat(result.resetEpochSeconds()).isBetween(before + 59, before + 61);
+    }
+
+    @Test
+    void clientsHaveIndependentWindows() {
+        Duration window = Duration.ofSeconds(60);
+
+        assertThat(rateLimiter.tryAcquire("user:1", 1, window).block().allowed()).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:1", 1, window).block().allowed()).isFalse();
+        assertThat(rateLimiter.tryAcquire("user:2", 1, window).block().allowed()).isTrue();
+    }
+
+    @Test
+    void concurrentBurstAdmitsExactlyTheLimit() {
+        int limit = 50;
+        int burst = 500;
+
+        List<RateLimitResult> results = Flux.range(0, burst)
+                .parallel(16)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> rateLimiter.tryAcquire("user:burst", limit, Duration.ofSeconds(60)))
+                .sequential()
+                .collectList()
+                .block();
+
+        assertThat(results).hasSize(burst);
+        assertThat(results.stream().filter(RateLimitResult::allowed).count()).isEqualTo(limit);
+        assertThat(redisTemplate.opsForZSet().size("rate_limit:user:burst").block()).isEqualTo(limit);
+    }
+
+    @Test
+    void slotsAreFreedOnceTheWindowSlides() throws InterruptedException {
+        Duration window = Duration.ofMillis(500);
+
+        assertThat(rateLimiter.tryAcquire("user:slide", 1, window).block().allowed()).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:slide", 1, window).block().allowed()).isFalse();
+
+        Thread.sleep(600);
+
+        assertThat(rateLimiter.tryAcquire("user:slide", 1, window).block().allowed()).isTrue();
+    }
+}
@@ -0,0 +1,76 @@
+package com.devbuild.apigateway.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the two-tier limiter when Redis is unreachable.
+ */
+class TwoTierRateLimiterFallbackTest {
+
+    private LettuceConnectionFactory connectionFactory;
+    private TwoTierRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        connectionFactory = new LettuceConnectionFactory("localhost", closedPort);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        limiter = new TwoTierRateLimiter(new ReactiveStringRedisTemplate(connectionFactory), 10,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(30), 1.0, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void enforcesLocalLimitWhenRedisIsDown() {
+        int admitted = 0;
+        for (int i = 0; i < 50; i++) {
+            if (limiter.tryAcquire("user:1", 20, Duration.ofSeconds(60)).block().allowed()) {
+                admitted++;
+            }
+        }
+
+        assertThat(admitted).isEqualTo(20);
+    }
+
+    @Test
+    void rejectionCarriesResetInTheFuture() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("ip:10.0.0.1", 5, Duration.ofSeconds(60)).block();
+        }
+
+        RateLimitResult rejected = limiter.tryAcquire("ip:10.0.0.1", 5, Duration.ofSeconds(60)).block();
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.resetEpochSeconds()).isGreaterThan(System.currentTimeMillis() / 1000);
+    }
+
+    @Test
+    void clientsKeepIndependentLocalBuckets() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user:1", 3, Duration.ofSeconds(60)).block();
+        }
+
+        assertThat(limiter.tryAcquire("user:1", 3, Duration.ofSeconds(60)).block().allowed()).isFalse();
+        assertThat(limiter.tryAcquire("user:2", 3, Duration.ofSeconds(60)).block().allowed()).isTrue();
+    }
+}
@@ -0,0 +1,132 @@
+package com.devbuild.apigateway.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the two-tier limiter against a real Redis shared by several gateway instances.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TwoTierRateLimiterTest {
+
+    // Long window: refill during a test run is negligible
+    private static final Duration WINDOW = Duration.ofHours(1);
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+    }
+
+    private TwoTierRateLimiter newLimiter() {
+        return new TwoTierRateLimiter(redisTemplate, 10, Duration.ofSeconds(30),
+                Duration.ofSeconds(2), Duration.ofSeconds(5), 1.0, 1000);
+    }
+
+    @Test
+    void admitsUpToLimitThenRejects() {
+        TwoTierRateLimiter limiter = newLimiter();
+
+        long admitted = Flux.range(0, 150)
+                .concatMap(i -> limiter.tryAcquire("user:1", 100, WINDOW))
+                .filter(RateLimitResult::allowed)
+                .count()
+                .block();
+
+        assertThat(admitted).isEqualTo(100);
+    }
+
+    @Test
+    void instancesShareTheRedisBudget() {
+        TwoTierRateLimiter first = newLimiter();
+        TwoTierRateLimiter second = newLimiter();
+
+        long admitted = Flux.range(0, 400)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> (i % 2 == 0 ? first : second).tryAcquire("user:shared", 100, WINDOW))
+                .sequential()
+                .filter(RateLimitResult::allowed)
+                .count()
+                .block();
+
+        // Tokens leased but not yet used are never handed out twice
+        assertThat(admitted).isLessThanOrEqualTo(100).isGreaterThanOrEqualTo(80);
+    }
+
+    @Test
+    void leasesInBatchesInsteadOfPerRequest() {
+        TwoTierRateLimiter limiter = newLimiter();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("user:batch", 100, WINDOW).block().allowed()).isTrue();
+        }
+
+        // One lease of 10 tokens covers the first requests
+        String tokens = (String) redisTemplate.opsForHash().get("rate_limit:bucket:user:batch", "tokens").block();
+        assertThat(Double.parseDouble(tokens)).isBetween(89.9, 90.1);
+    }
+
+    @Test
+    void unusedLeasedTokensReturnToRedisWhenTheLeaseExpires() throws InterruptedException {
+        TwoTierRateLimiter limiter = new TwoTierRateLimiter(redisTemplate, 10, Duration.ofMillis(200),
+                Duration.ofSeconds(2), Duration.ofSeconds(5), 1.0, 1000);
+
+        // One request leases 10 tokens and uses 1
+        assertThat(limiter.tryAcquire("user:idle", 100, WINDOW).block().allowed()).isTrue();
+        assertThat(bucketTokens("user:idle")).isBetween(89.9, 90.1);
+
+        // The client sends nothing more: the 9 unused tokens are given back after the lease TTL
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (bucketTokens("user:idle") < 98.9 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(bucketTokens("user:idle")).isBetween(98.9, 99.1);
+
+        // Another instance can use the whole remaining budget
+        TwoTierRateLimiter other = newLimiter();
+        long admitted = Flux.range(0, 150)
+                .concatMap(i -> other.tryAcquire("user:idle", 100, WINDOW))
+                .filter(RateLimitResult::allowed)
+                .count()
+                .block();
+        assertThat(admitted).isEqualTo(99);
+    }
+
+    private double bucketTokens(String clientId) {
+        String tokens = (String) redisTemplate.opsForHash().get("rate_limit:bucket:" + clientId, "tokens").block();
+        return Double.parseDouble(tokens);
+    }
+}
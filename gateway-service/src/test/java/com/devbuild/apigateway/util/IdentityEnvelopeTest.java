@@ -0,0 +1,78 @@
+package com.devbuild.apigateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the signed identity envelope forwarded to downstream services.
+ */
+class IdentityEnvelopeTest {
+
+    private static final String SECRET = "test-identity-secret-long-enough-for-hmac";
+
+    private static JwtClaims claims(Instant expiresAt) {
+        return new JwtClaims(42L, "doctorant@example.com", List.of("ROLE_DOCTORANT", "ROLE_USER"),
+                "user-service", Instant.now(), expiresAt);
+    }
+
+    private static String[] payloadFields(String envelope) {
+        String payload = new String(Base64.getUrlDecoder().decode(envelope.split("\\.")[0]), StandardCharsets.UTF_8);
+        return payload.split("\n", -1);
+    }
+
+    @Test
+    void envelopeCarriesIdentityAndAVerifiableSignature() throws Exception {
+        IdentityEnvelope envelope = new IdentityEnvelope(SECRET, Duration.ofSeconds(30));
+
+        String signed = envelope.sign(claims(Instant.now().plusSeconds(3600)));
+
+        String[] parts = signed.split("\\.");
+        assertThat(parts).hasSize(2);
+        assertThat(payloadFields(signed)).hasSize(5)
+                .startsWith("v1", "42", "doctorant@example.com", "ROLE_DOCTORANT,ROLE_USER");
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] expected = mac.doFinal(Base64.getUrlDecoder().decode(parts[0]));
+        assertThat(Base64.getUrlDecoder().decode(parts[1])).isEqualTo(expected);
+    }
+
+    @Test
+    void envelopeNeverOutlivesTheToken() {
+        IdentityEnvelope envelope = new IdentityEnvelope(SECRET, Duration.ofSeconds(30));
+        Instant tokenExpiry = Instant.now().plusSeconds(5);
+
+        long expiresAt = Long.parseLong(payloadFields(envelope.sign(claims(tokenExpiry)))[4]);
+
+        assertThat(expiresAt).isEqualTo(tokenExpiry.getEpochSecond());
+    }
+
+    @Test
+    void envelopeExpiresAfterTheConfiguredTtl() {
+        IdentityEnvelope envelope = new IdentityEnvelope(SECRET, Duration.ofSeconds(30));
+        long before = Instant.now().getEpochSecond();
+
+        long expiresAt = Long.parseLong(payloadFields(envelope.sign(claims(Instant.now().plusSeconds(3600))))[4]);
+
+        assertThat(expiresAt).isBetween(before + 30, Instant.now().getEpochSecond() + 30);
+    }
+
+    @Test
+    void noEnvelopeWithoutSecretOrUserId() {
+        IdentityEnvelope disabled = new IdentityEnvelope("", Duration.ofSeconds(30));
+        IdentityEnvelope enabled = new IdentityEnvelope(SECRET, Duration.ofSeconds(30));
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.sign(claims(Instant.now().plusSeconds(3600)))).isNull();
+        assertThat(enabled.sign(new JwtClaims(null, "anonymous@example.com", List.of(), null, null, null))).isNull();
+    }
+}
@@ -0,0 +1,18 @@
+package ma.emsi.inscriptionservice.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchResponse {
+    private Map<Long, UserDTO> users;
+    private List<Long> missing;
+}
@@ -1,9 +1,13 @@
 package ma.emsi.inscriptionservice.client;
 
+import ma.emsi.inscriptionservice.DTOs.UserBatchRequest;
+import ma.emsi.inscriptionservice.DTOs.UserBatchResponse;
 import ma.emsi.inscriptionservice.DTOs.UserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 /**
  * Feign client for communicating with the User Service
@@ -22,6 +26,16 @@ public interface UserServiceClient {
     @GetMapping("/{id}")
     UserDTO getUserById(@PathVariable("id") Long id);
 
+    /**
+     * Fetch several users by ID in a single request
+     * Used instead of one getUserById call per user (at most 100 IDs per call)
+     * 
+     * @param request User IDs
+     * @return Users keyed by ID, plus the IDs that were not found
+     */
+    @PostMapping("/batch")
+    UserBatchResponse getUsersByIds(@RequestBody UserBatchRequest request);
+
     /**
      * Fetch user by email
      * Used for user lookup by email address
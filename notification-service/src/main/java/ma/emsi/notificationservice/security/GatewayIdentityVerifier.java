@@ -0,0 +1,101 @@
+package ma.emsi.notificationservice.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Verifies the signed identity envelope (X-Identity header) added by the gateway
+ * once it has validated the JWT.
+ * Format: base64url(payload).base64url(HMAC-SHA256(payload)), with payload
+ * "v1\nuserId\nemail\nrole1,role2\nexpiresAtEpochSeconds".
+ */
+@Component
+public class GatewayIdentityVerifier {
+
+    public static final String HEADER = "X-Identity";
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayIdentityVerifier.class);
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public GatewayIdentityVerifier(@Value("${identity.secret:}") String secret) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Identity forwarded by the gateway
+     */
+    public record GatewayIdentity(Long userId, String email, List<String> roles, long expiresAt) {
+    }
+
+    /**
+     * Returns the identity if the envelope is authentic and not expired, null otherwise
+     * @param envelope the X-Identity header value
+     * @return the identity or null
+     */
+    public GatewayIdentity verify(String envelope) {
+        if (key == null || !StringUtils.hasText(envelope)) {
+            return null;
+        }
+
+        try {
+            int dot = envelope.indexOf('.');
+            if (dot <= 0) {
+                return null;
+            }
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(envelope.substring(0, dot));
+            byte[] signature = decoder.decode(envelope.substring(dot + 1));
+
+            // Constant-time comparison
+            if (!MessageDigest.isEqual(macs.get().doFinal(payload), signature)) {
+                logger.warn("Identity envelope with an invalid signature");
+                return null;
+            }
+
+            String[] fields = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+            if (fields.length != 5 || !VERSION.equals(fields[0])) {
+                return null;
+            }
+
+            long expiresAt = Long.parseLong(fields[4]);
+            if (expiresAt <= Instant.now().getEpochSecond()) {
+                logger.debug("Identity envelope expired");
+                return null;
+            }
+
+            List<String> roles = fields[3].isEmpty() ? List.of() : Arrays.asList(fields[3].split(","));
+            return new GatewayIdentity(Long.valueOf(fields[1]), fields[2], roles, expiresAt);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed identity envelope: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
@@ -21,8 +21,9 @@ import java.util.stream.Collectors;
 
 /**
  * JWT Authentication Filter that validates JWT tokens and populates the SecurityContext.
- * This filter extracts the JWT from the Authorization header, validates it,
- * and sets up the authentication in the Spring Security context.
+ * Requests coming through the gateway carry a signed identity envelope (X-Identity) which
+ * is trusted directly; otherwise the JWT is extracted from the Authorization header,
+ * validated, and used to set up the authentication in the Spring Security context.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -30,9 +31,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtProvider jwtProvider;
+    private final GatewayIdentityVerifier identityVerifier;
 
-    public JwtAuthenticationFilter(JwtProvider jwtProvider) {
+    public JwtAuthenticationFilter(JwtProvider jwtProvider, GatewayIdentityVerifier identityVerifier) {
         this.jwtProvider = jwtProvider;
+        this.identityVerifier = identityVerifier;
     }
 
     @Override
@@ -50,6 +53,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
+            // Fast path: identity already verified by the gateway, no JWT parsing
+            GatewayIdentityVerifier.GatewayIdentity identity =
+                    identityVerifier.verify(request.getHeader(GatewayIdentityVerifier.HEADER));
+            if (identity != null) {
+                authenticate(request, identity.email(), identity.roles());
+                logger.debug("User authenticated by the gateway: {} with roles: {}", identity.email(), identity.roles());
+                filterChain.doFilter(request, response);
+                return;
+            }
+
             String token = getJwtFromRequest(request);
 
             // Validate token and set authentication
@@ -57,22 +70,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 String email = jwtProvider.getEmailFromToken(token);
                 List<String> roles = jwtProvider.getRolesFromToken(token);
 
-                // Convert roles to GrantedAuthority
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(role -> new SimpleGrantedAuthority(role))
-                        .collect(Collectors.toList());
-
-                // Create authentication token
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                email,
-                                null,
-                                authorities
-                        );
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                // Set authentication in SecurityContext
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                authenticate(request, email, roles);
                 logger.debug("User authenticated: {} with roles: {}", email, roles);
             } else {
                 logger.warn("Missing or invalid JWT token for request: {}", path);
@@ -85,6 +83,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Sets up the authentication in the SecurityContext
+     * @param request the HTTP request
+     * @param email the authenticated user's email
+     * @param roles the user's roles
+     */
+    private void authenticate(HttpServletRequest request, String email, List<String> roles) {
+        // Convert roles to GrantedAuthority
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(role))
+                .collect(Collectors.toList());
+
+        // Create authentication token
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        email,
+                        null,
+                        authorities
+                );
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        // Set authentication in SecurityContext
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     /**
      * Extracts the JWT token from the Authorization header
      * @param request the HTTP request
@@ -11,6 +11,7 @@ import ma.emsi.userservice.repository.UserRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Set;
@@ -31,12 +32,17 @@ public class DataInitializer {
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
 
     @Bean
     CommandLineRunner initData() {
         return args -> {
             log.info("🚀 Initialisation des données de base...");
 
+            // 0. Supprimer l'ancienne table refresh_token (tokens en clair, remplacée par refresh_tokens) :
+            //    ddl-auto: update ne supprime jamais de table, et ses tokens ne sont plus acceptés
+            dropLegacyRefreshTokenTable();
+
             // 1. Créer les rôles s'ils n'existent pas
             Role roleAdmin = createRoleIfNotExists(RoleName.ROLE_ADMIN);
             Role roleDirecteur = createRoleIfNotExists(RoleName.ROLE_DIRECTEUR);
@@ -52,6 +58,16 @@ public class DataInitializer {
         };
     }
 
+    private void dropLegacyRefreshTokenTable() {
+        Integer legacyTables = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'refresh_token'", Integer.class);
+        if (legacyTables != null && legacyTables > 0) {
+            log.info("🗑️ Suppression de l'ancienne table refresh_token");
+            jdbcTemplate.execute("DROP TABLE refresh_token");
+        }
+    }
+
     private Role createRoleIfNotExists(RoleName roleName) {
         return roleRepository.findByName(roleName)
                 .orElseGet(() -> {
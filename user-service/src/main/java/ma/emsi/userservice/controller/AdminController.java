@@ -3,24 +3,32 @@ package ma.emsi.userservice.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import ma.emsi.userservice.dto.request.DisableAccountRequest;
+import ma.emsi.userservice.dto.request.UserImportRow;
+import ma.emsi.userservice.dto.response.CacheStatisticsResponse;
 import ma.emsi.userservice.dto.response.ConnectionStatisticsResponse;
+import ma.emsi.userservice.dto.response.UserImportResponse;
 import ma.emsi.userservice.dto.response.UserResponse;
 import ma.emsi.userservice.dto.response.UserStatisticsResponse;
 import ma.emsi.userservice.entity.Role;
 import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.repository.RoleRepository;
+import ma.emsi.userservice.security.AccountChangeTracker;
 import ma.emsi.userservice.service.StatisticsService;
+import ma.emsi.userservice.service.UserEventPublisher;
+import ma.emsi.userservice.service.UserImportService;
 import ma.emsi.userservice.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.StringReader;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +47,9 @@ public class AdminController {
     private final UserService userService;
     private final StatisticsService statisticsService;
     private final RoleRepository roleRepository;
+    private final AccountChangeTracker accountChangeTracker;
+    private final UserEventPublisher eventPublisher;
+    private final UserImportService userImportService;
 
     /**
      * Disable a user account
@@ -131,6 +142,15 @@ public class AdminController {
         return ResponseEntity.ok(statistics);
     }
 
+    /**
+     * Get UserDetails cache statistics (hit ratio of the JWT filter lookups)
+     * GET /api/admin/statistics/user-details-cache
+     */
+    @GetMapping("/statistics/user-details-cache")
+    public ResponseEntity<CacheStatisticsResponse> getUserDetailsCacheStatistics() {
+        return ResponseEntity.ok(statisticsService.getUserDetailsCacheStatistics());
+    }
+
     /**
      * Update user roles (promote/demote)
      * PUT /api/admin/users/{userId}/roles
@@ -170,6 +190,9 @@ public class AdminController {
 
         user.setRoles(newRoles);
         User updatedUser = userService.save(user);
+        accountChangeTracker.accountChanged(user.getId(), user.getEmail());
+        eventPublisher.publishRolesUpdated(user.getId(), user.getEmail(),
+                newRoles.stream().map(role -> role.getName().name()).toList());
 
         return ResponseEntity.ok(userService.toUserResponse(updatedUser));
     }
@@ -213,4 +236,26 @@ public class AdminController {
 
         return ResponseEntity.ok(userService.toUserResponse(newUser));
     }
+
+    /**
+     * Import a cohort of users (JSON array of rows)
+     * POST /api/admin/users/import
+     *
+     * Les lignes invalides sont rejetées une à une, les autres sont créées :
+     * le rapport donne le résultat de chaque ligne.
+     */
+    @PostMapping(value = "/users/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserImportResponse> importUsers(@RequestBody List<UserImportRow> rows) {
+        return ResponseEntity.ok(userImportService.importUsers(rows));
+    }
+
+    /**
+     * Import a cohort of users (CSV with a header naming the columns)
+     * POST /api/admin/users/import
+     */
+    @PostMapping(value = "/users/import", consumes = "text/csv")
+    public ResponseEntity<UserImportResponse> importUsersCsv(@RequestBody String csv) {
+        List<UserImportRow> rows = userImportService.parseCsv(new StringReader(csv));
+        return ResponseEntity.ok(userImportService.importUsers(rows));
+    }
 }
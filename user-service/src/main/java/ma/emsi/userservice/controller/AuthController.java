@@ -6,9 +6,13 @@ import ma.emsi.userservice.dto.request.RegisterRequest;
 import ma.emsi.userservice.dto.response.TokenResponse;
 import ma.emsi.userservice.dto.response.UserResponse;
 import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.exception.PasswordHashingSaturatedException;
+import ma.emsi.userservice.exception.RefreshTokenException;
+import ma.emsi.userservice.exception.TooManyLoginAttemptsException;
 import ma.emsi.userservice.exception.UserAlreadyExistsException;
 import ma.emsi.userservice.service.AuthService;
 import ma.emsi.userservice.util.IpAddressExtractor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -41,6 +45,8 @@ public class AuthController {
         } catch (UserAlreadyExistsException ex) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("error", ex.getMessage()));
+        } catch (PasswordHashingSaturatedException ex) {
+            return tooManyRequests(ex);
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Erreur lors de l'inscription"));
@@ -49,14 +55,19 @@ public class AuthController {
 
     // ✅ Connexion
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request,
+                                   @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+                                   HttpServletRequest httpRequest) {
         try {
             String ipAddress = ipAddressExtractor.extractIpAddress(httpRequest);
-            TokenResponse response = authService.login(request, ipAddress);
+            // Un refresh token par appareil : une connexion ne déconnecte pas les autres appareils
+            TokenResponse response = authService.login(request, ipAddress, deviceId);
             return ResponseEntity.ok(response);
         } catch (AuthenticationException ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Identifiants invalides"));
+        } catch (PasswordHashingSaturatedException | TooManyLoginAttemptsException ex) {
+            return tooManyRequests(ex);
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Erreur lors de la connexion"));
@@ -69,7 +80,7 @@ public class AuthController {
         try {
             TokenResponse response = authService.refreshToken(request.refreshToken());
             return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException ex) {
+        } catch (RefreshTokenException | IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Refresh token invalide ou expiré"));
         } catch (Exception ex) {
@@ -78,4 +89,10 @@ public class AuthController {
         }
     }
 
+    // Pool de hachage saturé ou trop d'échecs depuis l'adresse : le client réessaie plus tard
+    private ResponseEntity<?> tooManyRequests(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
 }
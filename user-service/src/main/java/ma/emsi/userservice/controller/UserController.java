@@ -6,21 +6,31 @@ import ma.emsi.userservice.dto.request.ChangePasswordRequest;
 import ma.emsi.userservice.dto.request.ForgotPasswordRequest;
 import ma.emsi.userservice.dto.request.ProfileCompleteRequest;
 import ma.emsi.userservice.dto.request.ResetPasswordRequest;
+import ma.emsi.userservice.dto.request.UserBatchRequest;
+import ma.emsi.userservice.dto.response.UserBatchResponse;
 import ma.emsi.userservice.dto.response.UserDetailedResponse;
+import ma.emsi.userservice.dto.response.UserPageResponse;
 import ma.emsi.userservice.dto.response.UserResponse;
+import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
 import ma.emsi.userservice.service.AuthService;
+import ma.emsi.userservice.service.UserExportService;
 import ma.emsi.userservice.service.UserService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/users")
@@ -29,6 +39,7 @@ public class UserController {
 
     private final UserService userService;
     private final AuthService authService;
+    private final UserExportService userExportService;
 
     /**
      * 🔹 Récupérer un utilisateur par ID (pour communication inter-services)
@@ -39,6 +50,14 @@ public class UserController {
         return ResponseEntity.ok(authService.toUserResponse(user));
     }
 
+    /**
+     * 🔹 Récupérer plusieurs utilisateurs par ID en une seule requête (pour communication inter-services)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<UserBatchResponse> getUsersByIds(@Valid @RequestBody UserBatchRequest request) {
+        return ResponseEntity.ok(userService.findAllByIds(request.ids()));
+    }
+
     /**
      * 🔹 Récupérer le profil de l'utilisateur connecté
      */
@@ -86,16 +105,72 @@ public class UserController {
     }
 
     /**
-     * 🔹 [ADMIN] Récupérer tous les utilisateurs
+     * 🔹 [ADMIN] Récupérer les utilisateurs page par page (triés par id)
+     * GET /api/users?afterId=&size=&role=&status=&createdAfter=
+     * La page suivante s'obtient en passant nextAfterId de la réponse dans afterId.
      */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        List<UserResponse> responses = users.stream()
-                .map(authService::toUserResponse)
-                .collect(Collectors.toList());
+    public ResponseEntity<UserPageResponse> getAllUsers(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "${user-service.users.page-size:50}") int size,
+            @RequestParam(required = false) RoleName role,
+            @RequestParam(required = false) AccountStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter) {
+
+        return ResponseEntity.ok(userService.findPage(afterId, size, role, status, createdAfter));
+    }
+
+    /**
+     * 🔹 [ADMIN, DIRECTEUR] Rechercher des utilisateurs par préfixe du nom, du prénom, de l'email ou du CIN
+     * GET /api/users/search?q=&role=&afterId=&size=
+     * Même pagination par clé que GET /api/users (nextAfterId → afterId).
+     */
+    @GetMapping("/search")
+    public ResponseEntity<UserPageResponse> searchUsers(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) RoleName role,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "${user-service.users.page-size:50}") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        // /api/users/{id} est public : l'accès est vérifié ici
+        boolean allowed = userDetails != null && userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals(RoleName.ROLE_ADMIN.name())
+                        || authority.getAuthority().equals(RoleName.ROLE_DIRECTEUR.name()));
+        if (!allowed) {
+            throw new AccessDeniedException("Recherche réservée aux directeurs et administrateurs");
+        }
+
+        return ResponseEntity.ok(userService.search(query, role, afterId, size));
+    }
+
+    /**
+     * 🔹 [ADMIN] Exporter les utilisateurs en flux (NDJSON ou CSV), ligne par ligne
+     * GET /api/users/export?format=ndjson|csv&role=&status=&createdAfter=
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "NDJSON") UserExportService.Format format,
+            @RequestParam(required = false) RoleName role,
+            @RequestParam(required = false) AccountStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        // /api/users/{id} est public : l'accès admin est vérifié ici
+        boolean isAdmin = userDetails != null && userDetails.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals(RoleName.ROLE_ADMIN.name()));
+        if (!isAdmin) {
+            throw new AccessDeniedException("Export réservé aux administrateurs");
+        }
 
-        return ResponseEntity.ok(responses);
+        StreamingResponseBody body = out -> userExportService.export(format, role, status, createdAfter, out);
+        return ResponseEntity.ok()
+                .contentType(format == UserExportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users."
+                        + format.name().toLowerCase() + "\"")
+                .body(body);
     }
 
     /**
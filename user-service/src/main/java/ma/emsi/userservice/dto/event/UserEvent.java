@@ -1,30 +1,31 @@
 package ma.emsi.userservice.dto.event;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.Map;
 
 /**
  * Event record for user-related events published to Kafka.
  * Used for inter-service communication to notify other services of user
  * changes.
+ * The timestamp is an instant so that consumers do not depend on the zone of this service.
  */
 public record UserEvent(
         String eventType,
         Long userId,
         String email,
-        LocalDateTime timestamp,
+        Instant timestamp,
         Map<String, Object> metadata) {
     /**
      * Creates a UserEvent with the current timestamp.
      */
     public static UserEvent of(String eventType, Long userId, String email, Map<String, Object> metadata) {
-        return new UserEvent(eventType, userId, email, LocalDateTime.now(), metadata);
+        return new UserEvent(eventType, userId, email, Instant.now(), metadata);
     }
 
     /**
      * Creates a UserEvent with the current timestamp and no metadata.
      */
     public static UserEvent of(String eventType, Long userId, String email) {
-        return new UserEvent(eventType, userId, email, LocalDateTime.now(), Map.of());
+        return new UserEvent(eventType, userId, email, Instant.now(), Map.of());
     }
 }
@@ -0,0 +1,18 @@
+package ma.emsi.userservice.dto.request;
+
+/**
+ * Règles de mot de passe partagées par l'inscription, la réinitialisation et l'import CSV
+ */
+public final class PasswordPolicy {
+
+    public static final int MIN_LENGTH = 12;
+    public static final int MAX_LENGTH = 64;
+    public static final String SIZE_MESSAGE = "Le mot de passe doit contenir entre 12 et 64 caractères";
+
+    public static final String PATTERN = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&.])[A-Za-z\\d@$!%*?&.]{12,}$";
+    public static final String PATTERN_MESSAGE =
+            "Le mot de passe doit contenir au moins une majuscule, une minuscule, un chiffre et un caractère spécial";
+
+    private PasswordPolicy() {
+    }
+}
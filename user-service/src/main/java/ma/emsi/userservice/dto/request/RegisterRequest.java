@@ -10,7 +10,7 @@ import java.util.Set;
 public record RegisterRequest(
                 @Email(message = "Email invalide") @NotBlank String email,
 
-                @NotBlank(message = "Le mot de passe ne peut pas être vide") @Size(min = 12, max = 64, message = "Le mot de passe doit contenir entre 12 et 64 caractères") @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&.])[A-Za-z\\d@$!%*?&.]{12,}$", message = "Le mot de passe doit contenir au moins une majuscule, une minuscule, un chiffre et un caractère spécial") String password,
+                @NotBlank(message = "Le mot de passe ne peut pas être vide") @Size(min = PasswordPolicy.MIN_LENGTH, max = PasswordPolicy.MAX_LENGTH, message = PasswordPolicy.SIZE_MESSAGE) @Pattern(regexp = PasswordPolicy.PATTERN, message = PasswordPolicy.PATTERN_MESSAGE) String password,
                 @NotBlank(message = "Veuillez saisir votre nom") String firstName,
                 @NotBlank(message = "Veuillez saisir votre prenom") String lastName,
 
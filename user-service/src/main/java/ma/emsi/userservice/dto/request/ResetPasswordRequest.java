@@ -9,10 +9,7 @@ public record ResetPasswordRequest(
         String token,
 
         @NotBlank(message = "Le mot de passe est requis")
-        @Size(min = 12, max = 64, message = "Le mot de passe doit contenir entre 12 et 64 caractères")
-        @Pattern(
-                regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&.])[A-Za-z\\d@$!%*?&.]{12,}$",
-                message = "Le mot de passe doit contenir au moins une majuscule, une minuscule, un chiffre et un caractère spécial"
-        )
+        @Size(min = PasswordPolicy.MIN_LENGTH, max = PasswordPolicy.MAX_LENGTH, message = PasswordPolicy.SIZE_MESSAGE)
+        @Pattern(regexp = PasswordPolicy.PATTERN, message = PasswordPolicy.PATTERN_MESSAGE)
         String newPassword
 ) {}
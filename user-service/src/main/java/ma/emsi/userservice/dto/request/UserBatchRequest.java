@@ -0,0 +1,10 @@
+package ma.emsi.userservice.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public record UserBatchRequest(
+        @NotEmpty(message = "La liste des identifiants est obligatoire") List<@NotNull Long> ids) {
+}
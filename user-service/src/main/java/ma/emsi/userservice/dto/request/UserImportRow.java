@@ -0,0 +1,24 @@
+package ma.emsi.userservice.dto.request;
+
+/**
+ * Une ligne d'import en masse (JSON ou CSV avec ces noms de colonnes).
+ * email, password, firstName, lastName, phoneNumber, adresse, ville et pays sont obligatoires,
+ * et le mot de passe suit les règles de l'inscription ({@link PasswordPolicy}) ; role vaut
+ * ROLE_DOCTORANT par défaut. Le profil (cin, dateNaissance au format AAAA-MM-JJ, lieuNaissance, nationalite)
+ * est facultatif.
+ */
+public record UserImportRow(
+        String email,
+        String password,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        String adresse,
+        String ville,
+        String pays,
+        String role,
+        String cin,
+        String dateNaissance,
+        String lieuNaissance,
+        String nationalite
+) {}
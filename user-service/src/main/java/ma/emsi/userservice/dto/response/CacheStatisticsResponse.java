@@ -0,0 +1,9 @@
+package ma.emsi.userservice.dto.response;
+
+public record CacheStatisticsResponse(
+        long size,
+        long hits,
+        long misses,
+        double hitRatio,
+        long evictions) {
+}
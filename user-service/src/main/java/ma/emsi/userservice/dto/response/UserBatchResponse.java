@@ -0,0 +1,9 @@
+package ma.emsi.userservice.dto.response;
+
+import java.util.List;
+import java.util.Map;
+
+public record UserBatchResponse(
+        Map<Long, UserResponse> users,
+        List<Long> missing
+) {}
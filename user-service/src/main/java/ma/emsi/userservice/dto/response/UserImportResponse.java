@@ -0,0 +1,21 @@
+package ma.emsi.userservice.dto.response;
+
+import java.util.List;
+
+/**
+ * Rapport d'un import en masse : une entrée par ligne, dans l'ordre du fichier.
+ * userId est renseigné pour les lignes créées, errors pour les lignes rejetées.
+ */
+public record UserImportResponse(
+        int total,
+        int created,
+        int rejected,
+        List<RowResult> rows
+) {
+    public record RowResult(
+            int row,
+            String email,
+            Long userId,
+            List<String> errors
+    ) {}
+}
@@ -0,0 +1,12 @@
+package ma.emsi.userservice.dto.response;
+
+import java.util.List;
+
+/**
+ * Page d'utilisateurs triés par id. nextAfterId est à passer en afterId pour
+ * obtenir la page suivante ; il est null sur la dernière page.
+ */
+public record UserPageResponse(
+        List<UserResponse> users,
+        Long nextAfterId
+) {}
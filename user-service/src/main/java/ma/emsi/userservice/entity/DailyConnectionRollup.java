@@ -0,0 +1,39 @@
+package ma.emsi.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated number of LOGIN audits for one closed day and one role.
+ * The row with role ALL_ROLES holds every login of the day, whatever the user's roles.
+ * A closed day is rolled up once, with a row for every role (zero included), so the
+ * latest day present is the rollup watermark.
+ */
+@Entity
+@Table(name = "daily_connection_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_day_role", columnNames = { "day", "role_name" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyConnectionRollup {
+
+    public static final String ALL_ROLES = "ALL";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "role_name", nullable = false, length = 50)
+    private String roleName;
+
+    @Column(name = "connection_count", nullable = false)
+    private long connectionCount;
+}
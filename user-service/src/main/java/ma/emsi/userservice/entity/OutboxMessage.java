@@ -0,0 +1,64 @@
+package ma.emsi.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ma.emsi.userservice.enums.OutboxChannel;
+import ma.emsi.userservice.enums.OutboxStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email ou événement Kafka à délivrer, écrit dans la transaction de la modification
+ * qui le produit et délivré ensuite par OutboxRelay.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        // Messages plus anciens de la même clé encore en attente (ordre par clé)
+        @Index(name = "idx_outbox_key_status", columnList = "message_key, status, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private OutboxChannel channel;
+
+    // Adresse email ou topic Kafka
+    @Column(nullable = false)
+    private String destination;
+
+    // Clé Kafka (null pour les emails)
+    @Column(name = "message_key", length = 100)
+    private String messageKey;
+
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
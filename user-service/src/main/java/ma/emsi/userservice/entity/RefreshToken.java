@@ -4,7 +4,20 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.time.Instant;
 
+/**
+ * Refresh token d'un utilisateur sur un appareil : une seule ligne par (utilisateur, appareil),
+ * remplacée à chaque connexion et à chaque rafraîchissement.
+ * Seuls des condensats SHA-256 (32 octets) des tokens sont stockés et indexés.
+ * previousTokenHash garde le token remplacé lors du dernier rafraîchissement : s'il est
+ * présenté à nouveau après la fenêtre de grâce suivant rotatedAt, le token a été volé
+ * et la famille est révoquée.
+ */
 @Entity
+@Table(name = "refresh_tokens", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_refresh_token_user_device", columnNames = { "user_id", "device_id" })
+}, indexes = {
+        @Index(name = "idx_refresh_token_previous_hash", columnList = "previous_token_hash")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,13 +29,27 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
-    @JoinColumn(name = "user_id", referencedColumnName = "id")
+    @ManyToOne
+    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private User user;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    @Column(name = "device_id", nullable = false, length = 64)
+    private String deviceId;
+
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
+
+    @Column(name = "previous_token_hash", columnDefinition = "BINARY(32)")
+    private byte[] previousTokenHash;
+
+    // Nouvelle famille à chaque connexion, conservée par les rafraîchissements
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
 
     @Column(nullable = false)
     private Instant expiryDate;
+
+    // Date du dernier rafraîchissement, null juste après la connexion
+    @Column(name = "rotated_at")
+    private Instant rotatedAt;
 }
@@ -12,7 +12,11 @@ import java.util.Set;
 
 @Data
 @Entity
-@Table(name = "users")
+// Recherche par préfixe : un index par colonne cherchée (email est déjà unique, donc indexé)
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_last_name", columnList = "last_name"),
+        @Index(name = "idx_users_first_name", columnList = "first_name")
+})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,16 @@
+package ma.emsi.userservice.enums;
+
+/**
+ * Enum representing where an outbox message is delivered.
+ */
+public enum OutboxChannel {
+    /**
+     * Email sent through the configured SMTP server
+     */
+    EMAIL,
+
+    /**
+     * UserEvent published to a Kafka topic
+     */
+    KAFKA
+}
@@ -0,0 +1,21 @@
+package ma.emsi.userservice.enums;
+
+/**
+ * Enum representing the delivery status of an outbox message.
+ */
+public enum OutboxStatus {
+    /**
+     * Waiting for delivery, or for its next retry
+     */
+    PENDING,
+
+    /**
+     * Delivered to the SMTP server or acknowledged by Kafka
+     */
+    DELIVERED,
+
+    /**
+     * Abandoned after the maximum number of delivery attempts
+     */
+    FAILED
+}
@@ -0,0 +1,11 @@
+package ma.emsi.userservice.exception;
+
+/**
+ * Thrown when the password hashing executor is saturated and the request is rejected
+ * without waiting. Mapped to 429 Too Many Requests.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+    public PasswordHashingSaturatedException(String message) {
+        super(message);
+    }
+}
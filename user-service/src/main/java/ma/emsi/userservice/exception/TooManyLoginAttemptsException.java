@@ -0,0 +1,11 @@
+package ma.emsi.userservice.exception;
+
+/**
+ * Thrown when an IP address made too many failed logins within the failure window.
+ * Mapped to 429 Too Many Requests.
+ */
+public class TooManyLoginAttemptsException extends RuntimeException {
+    public TooManyLoginAttemptsException(String message) {
+        super(message);
+    }
+}
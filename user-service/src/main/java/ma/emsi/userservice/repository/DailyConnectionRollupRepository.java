@@ -0,0 +1,30 @@
+package ma.emsi.userservice.repository;
+
+import ma.emsi.userservice.entity.DailyConnectionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for DailyConnectionRollup entity.
+ */
+public interface DailyConnectionRollupRepository extends JpaRepository<DailyConnectionRollup, Long> {
+
+    /**
+     * Find the last day that has been rolled up.
+     *
+     * @return the latest rolled up day, or null if nothing has been rolled up yet
+     */
+    @Query("SELECT MAX(r.day) FROM DailyConnectionRollup r")
+    LocalDate findLastRolledUpDay();
+
+    /**
+     * Find the rollup rows from a given day onwards, ordered by day.
+     *
+     * @param day the first day to include
+     * @return matching rollup rows
+     */
+    List<DailyConnectionRollup> findByDayGreaterThanEqualOrderByDayAsc(LocalDate day);
+}
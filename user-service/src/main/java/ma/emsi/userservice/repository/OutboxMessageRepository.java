@@ -0,0 +1,15 @@
+package ma.emsi.userservice.repository;
+
+import ma.emsi.userservice.entity.OutboxMessage;
+import ma.emsi.userservice.enums.OutboxChannel;
+import ma.emsi.userservice.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findByChannelOrderByIdAsc(OutboxChannel channel);
+
+    long countByStatus(OutboxStatus status);
+}
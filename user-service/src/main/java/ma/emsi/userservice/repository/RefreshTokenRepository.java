@@ -3,20 +3,45 @@ package ma.emsi.userservice.repository;
 import ma.emsi.userservice.entity.RefreshToken;
 import ma.emsi.userservice.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.jpa.repository.Modifying;
 
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    Optional<RefreshToken> findByPreviousTokenHash(byte[] previousTokenHash);
 
     @Modifying
     @Transactional
     void deleteByUser(User user);
 
+    // Connexion : remplace le token de l'appareil en une seule requête, sans DELETE puis INSERT
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO refresh_tokens (user_id, device_id, token_hash, previous_token_hash, family_id, expiry_date) "
+            + "VALUES (:userId, :deviceId, :tokenHash, NULL, :familyId, :expiryDate) "
+            + "ON DUPLICATE KEY UPDATE token_hash = VALUES(token_hash), previous_token_hash = NULL, "
+            + "rotated_at = NULL, family_id = VALUES(family_id), expiry_date = VALUES(expiry_date)", nativeQuery = true)
+    int upsert(@Param("userId") Long userId,
+               @Param("deviceId") String deviceId,
+               @Param("tokenHash") byte[] tokenHash,
+               @Param("familyId") String familyId,
+               @Param("expiryDate") Instant expiryDate);
+
+    // Rafraîchissement : ne réussit que si le token présenté est toujours le token courant
     @Modifying
     @Transactional
-    boolean existsByToken(String token);
-}
\ No newline at end of file
+    @Query("UPDATE RefreshToken t SET t.tokenHash = :newHash, t.previousTokenHash = :currentHash, "
+            + "t.expiryDate = :expiryDate, t.rotatedAt = :rotatedAt WHERE t.id = :id AND t.tokenHash = :currentHash")
+    int rotate(@Param("id") Long id,
+               @Param("currentHash") byte[] currentHash,
+               @Param("newHash") byte[] newHash,
+               @Param("expiryDate") Instant expiryDate,
+               @Param("rotatedAt") Instant rotatedAt);
+}
@@ -1,11 +1,15 @@
 package ma.emsi.userservice.repository;
 
+import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.UserAudit;
 import ma.emsi.userservice.enums.AuditAction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -65,4 +69,59 @@ public interface UserAuditRepository extends JpaRepository<UserAudit, Long> {
      */
     List<UserAudit> findByActionAndTimestampBetween(
             AuditAction action, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Count audit records of an action type per day within [start, end), in a single
+     * grouped query.
+     *
+     * @param action the audit action type
+     * @param start  start of the date range (inclusive)
+     * @param end    end of the date range (exclusive)
+     * @return one row per day having at least one matching record
+     */
+    @Query("SELECT CAST(a.timestamp AS LocalDate) AS day, COUNT(a) AS connections "
+            + "FROM UserAudit a "
+            + "WHERE a.action = :action AND a.timestamp >= :start AND a.timestamp < :end "
+            + "GROUP BY CAST(a.timestamp AS LocalDate)")
+    List<DailyCount> countByActionPerDay(@Param("action") AuditAction action,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end);
+
+    /**
+     * Count audit records of an action type per day and per role of the audited user
+     * within [start, end), in a single grouped query. A user with several roles is
+     * counted once for each of them; records of deleted users are not counted.
+     *
+     * @param action the audit action type
+     * @param start  start of the date range (inclusive)
+     * @param end    end of the date range (exclusive)
+     * @return one row per day and role having at least one matching record
+     */
+    @Query("SELECT CAST(a.timestamp AS LocalDate) AS day, r.name AS role, COUNT(a) AS connections "
+            + "FROM UserAudit a JOIN User u ON u.id = a.userId JOIN u.roles r "
+            + "WHERE a.action = :action AND a.timestamp >= :start AND a.timestamp < :end "
+            + "GROUP BY CAST(a.timestamp AS LocalDate), r.name")
+    List<DailyRoleCount> countByActionPerDayAndRole(@Param("action") AuditAction action,
+                                                    @Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end);
+
+    /**
+     * Number of audit records of one day.
+     */
+    interface DailyCount {
+        LocalDate getDay();
+
+        Long getConnections();
+    }
+
+    /**
+     * Number of audit records of one day for one role.
+     */
+    interface DailyRoleCount {
+        LocalDate getDay();
+
+        RoleName getRole();
+
+        Long getConnections();
+    }
 }
@@ -2,11 +2,19 @@ package ma.emsi.userservice.repository;
 
 import ma.emsi.userservice.entity.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
     Optional<UserProfile> findByUserId(Long userId);
 
     boolean existsByCin(String cin);
+
+    // Import en masse : CIN déjà utilisés, en une requête
+    @Query("SELECT p.cin FROM UserProfile p WHERE p.cin IN :cins")
+    List<String> findExistingCins(@Param("cins") Collection<String> cins);
 }
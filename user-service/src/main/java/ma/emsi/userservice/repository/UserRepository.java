@@ -1,12 +1,20 @@
 package ma.emsi.userservice.repository;
 
+import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.enums.AccountStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -19,4 +27,86 @@ public interface UserRepository extends JpaRepository<User, Long> {
     long countByAccountStatus(AccountStatus status);
 
     long countByCreatedAtAfter(LocalDateTime date);
+
+    // Recherche groupée : une seule requête, rôles chargés en même temps (pas de N+1)
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.id IN :ids")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Re-hachage à la connexion : ne met à jour que le mot de passe
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    // Transitions de verrouillage (écrites en arrière-plan) : un compte désactivé entre-temps reste désactivé
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.accountStatus = :status, u.failedLoginAttempts = :attempts, "
+            + "u.lockoutExpiration = :lockoutExpiration "
+            + "WHERE u.id = :id AND u.accountStatus <> ma.emsi.userservice.enums.AccountStatus.DISABLED")
+    int updateLoginLockState(@Param("id") Long id,
+                             @Param("status") AccountStatus status,
+                             @Param("attempts") int attempts,
+                             @Param("lockoutExpiration") LocalDateTime lockoutExpiration);
+
+    // Pagination par clé (id croissant) : seuls les ids de la page sont lus, sans OFFSET
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId "
+            + "AND (:status IS NULL OR u.accountStatus = :status) "
+            + "AND (:createdAfter IS NULL OR u.createdAt > :createdAfter) "
+            + "AND (:role IS NULL OR u.id IN (SELECT ur.id FROM User ur JOIN ur.roles r WHERE r.name = :role)) "
+            + "ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId,
+                            @Param("role") RoleName role,
+                            @Param("status") AccountStatus status,
+                            @Param("createdAfter") LocalDateTime createdAfter,
+                            Limit limit);
+
+    // Recherche par préfixe : chaque branche parcourt l'index de sa colonne (email, nom, prénom, CIN),
+    // seuls les ids correspondants sont triés ; la collation de la base rend la recherche
+    // insensible à la casse et aux accents
+    @Query(value = "SELECT m.id FROM ("
+            + "SELECT u.id FROM users u WHERE u.email LIKE :prefix AND u.id > :afterId "
+            + "UNION SELECT u.id FROM users u WHERE u.last_name LIKE :prefix AND u.id > :afterId "
+            + "UNION SELECT u.id FROM users u WHERE u.first_name LIKE :prefix AND u.id > :afterId "
+            + "UNION SELECT p.user_id FROM user_profiles p WHERE p.cin LIKE :prefix AND p.user_id > :afterId"
+            + ") m "
+            + "WHERE :role IS NULL OR EXISTS (SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id "
+            + "WHERE ur.user_id = m.id AND r.name = :role) "
+            + "ORDER BY m.id LIMIT :limit", nativeQuery = true)
+    List<Long> searchIdsByPrefix(@Param("prefix") String prefix,
+                                 @Param("role") String role,
+                                 @Param("afterId") long afterId,
+                                 @Param("limit") int limit);
+
+    // Import en masse : unicité des emails et ids des utilisateurs créés, par ensembles
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.email IN :emails")
+    List<EmailId> findIdsByEmailIn(@Param("emails") Collection<String> emails);
+
+    // Statistiques : agrégats calculés par la base, sans charger les utilisateurs
+    @Query("SELECT r.name AS role, COUNT(u) AS users FROM User u JOIN u.roles r GROUP BY r.name")
+    List<RoleCount> countUsersByRole();
+
+    @Query("SELECT u.accountStatus AS status, COUNT(u) AS users FROM User u GROUP BY u.accountStatus")
+    List<StatusCount> countUsersByAccountStatus();
+
+    interface EmailId {
+        Long getId();
+
+        String getEmail();
+    }
+
+    interface RoleCount {
+        RoleName getRole();
+
+        Long getUsers();
+    }
+
+    interface StatusCount {
+        AccountStatus getStatus();
+
+        Long getUsers();
+    }
 }
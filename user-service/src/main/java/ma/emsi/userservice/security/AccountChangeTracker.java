@@ -0,0 +1,45 @@
+package ma.emsi.userservice.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utilisateurs dont le compte a changé (désactivation, rôles) pendant la durée de vie
+ * d'un access token : leurs enveloppes d'identité peuvent être obsolètes, le JwtFilter
+ * repasse donc par la base de données pour eux, et leur entrée du UserDetailsCache est retirée.
+ * Les changements faits sur les autres instances arrivent par les événements Kafka.
+ */
+@Component
+public class AccountChangeTracker {
+
+    private final UserDetailsCache userDetailsCache;
+    private final long retentionMs;
+    private final Map<Long, Long> changedUntil = new ConcurrentHashMap<>();
+
+    public AccountChangeTracker(UserDetailsCache userDetailsCache,
+                                @Value("${jwt.expiration}") long jwtExpirationMs) {
+        this.userDetailsCache = userDetailsCache;
+        this.retentionMs = jwtExpirationMs;
+    }
+
+    /**
+     * Enregistre un changement de compte
+     */
+    public void accountChanged(Long userId, String email) {
+        long now = System.currentTimeMillis();
+        changedUntil.put(userId, now + retentionMs);
+        changedUntil.values().removeIf(until -> until <= now);
+        userDetailsCache.evict(email);
+    }
+
+    /**
+     * Vrai si le compte a changé depuis l'émission des tokens encore valides
+     */
+    public boolean hasRecentChange(Long userId) {
+        Long until = changedUntil.get(userId);
+        return until != null && until > System.currentTimeMillis();
+    }
+}
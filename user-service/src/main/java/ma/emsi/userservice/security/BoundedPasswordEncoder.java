@@ -0,0 +1,154 @@
+package ma.emsi.userservice.security;
+
+import ma.emsi.userservice.exception.PasswordHashingSaturatedException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Encodeur BCrypt dont le hachage et la vérification tournent sur un pool dédié et borné,
+ * et non sur les threads Tomcat.
+ * Quand le pool et sa file sont pleins, la demande est rejetée immédiatement
+ * (PasswordHashingSaturatedException → 429) au lieu d'attendre : une rafale de logins ne
+ * peut plus occuper tous les threads Tomcat et affamer les autres endpoints.
+ * upgradeEncoding signale les hachages dont le coût diffère du coût cible, pour qu'ils
+ * soient recalculés à la prochaine connexion réussie.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int targetCost;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(int targetCost, int threads, int queueCapacity) {
+        this.delegate = new BCryptPasswordEncoder(targetCost);
+        this.targetCost = targetCost;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hache une série de mots de passe en parallèle (import en masse), dans l'ordre de la liste.
+     * Au plus la moitié des threads du pool travaillent pour la série : le reste du pool et
+     * sa file restent disponibles pour les connexions. Quand la file est saturée par les
+     * connexions, la série attend au lieu d'être rejetée.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        Semaphore inFlight = new Semaphore(Math.max(1, executor.getCorePoolSize() / 2));
+        List<Future<String>> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                inFlight.acquire();
+                hashes.add(submitWhenAccepted(() -> {
+                    try {
+                        return delegate.encode(rawPassword);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            List<String> encoded = new ArrayList<>(hashes.size());
+            for (Future<String> hash : hashes) {
+                encoded.add(hash.get());
+            }
+            return encoded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hashes.forEach(hash -> hash.cancel(false));
+            throw new IllegalStateException("Hachage des mots de passe interrompu", e);
+        } catch (ExecutionException e) {
+            hashes.forEach(hash -> hash.cancel(false));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Vrai si le hachage a été calculé avec un coût différent du coût cible
+     * (plus faible ou plus élevé), pour suivre les réglages dans les deux sens.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != targetCost;
+    }
+
+    /**
+     * Nombre de hachages en cours ou en attente
+     */
+    public int pending() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> Future<T> submitWhenAccepted(Callable<T> task) throws InterruptedException {
+        while (true) {
+            try {
+                return executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                // File pleine : les connexions passent d'abord
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingSaturatedException("Trop de demandes d'authentification, réessayez plus tard");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hachage du mot de passe interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
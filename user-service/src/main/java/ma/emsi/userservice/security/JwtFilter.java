@@ -10,7 +10,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -24,11 +23,16 @@ public class JwtFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtFilter.class);
 
     private final JwtProvider jwtProvider;
-    private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final GatewayIdentityVerifier identityVerifier;
+    private final AccountChangeTracker accountChangeTracker;
 
-    public JwtFilter(JwtProvider jwtProvider, UserDetailsService userDetailsService) {
+    public JwtFilter(JwtProvider jwtProvider, UserDetailsCache userDetailsCache,
+                     GatewayIdentityVerifier identityVerifier, AccountChangeTracker accountChangeTracker) {
         this.jwtProvider = jwtProvider;
-        this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.identityVerifier = identityVerifier;
+        this.accountChangeTracker = accountChangeTracker;
     }
 
     @Override
@@ -46,25 +50,35 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         try {
+            // ⬅️ Chemin rapide : identité déjà vérifiée par la gateway (ni parsing JWT, ni base de données)
+            GatewayIdentityVerifier.GatewayIdentity identity =
+                    identityVerifier.verify(request.getHeader(GatewayIdentityVerifier.HEADER));
+            if (identity != null && !accountChangeTracker.hasRecentChange(identity.userId())) {
+                UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                        .username(identity.email())
+                        .password("")
+                        .authorities(identity.roles().toArray(String[]::new))
+                        .build();
+                authenticate(request, userDetails);
+                logger.debug("Utilisateur authentifié par la gateway : {}", identity.email());
+                filterChain.doFilter(request, response);
+                return;
+            }
+
             String token = getJwtFromRequest(request);
 
             // ⬅️ Vérifier que le token existe ET est valide
             if (StringUtils.hasText(token) && jwtProvider.validateToken(token)) {
                 String email = jwtProvider.getEmailFromToken(token);
 
-                // ⬅️ Charger l'utilisateur et créer l'authentification
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Utilisateur authentifié : {}", email);
+                // ⬅️ Charger l'utilisateur (cache, sinon base de données) et créer l'authentification
+                UserDetails userDetails = userDetailsCache.load(email);
+                if (userDetails.isEnabled()) {
+                    authenticate(request, userDetails);
+                    logger.debug("Utilisateur authentifié : {}", email);
+                } else {
+                    logger.warn("Compte désactivé, token refusé pour : {}", email);
+                }
             } else {
                 logger.warn("Token JWT manquant ou invalide pour la requête : {}", path);
             }
@@ -76,6 +90,21 @@ public class JwtFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Place l'utilisateur authentifié dans le SecurityContext
+     */
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     /**
      * Extrait le token JWT de l'en-tête Authorization
      */
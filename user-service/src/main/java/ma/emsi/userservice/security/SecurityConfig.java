@@ -1,15 +1,15 @@
 package ma.emsi.userservice.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -45,6 +45,7 @@ public class SecurityConfig {
                         // Routes pour communication inter-services (GET user by ID)
                         // Permet aux autres microservices de récupérer les infos utilisateur
                         .requestMatchers("/api/users/{id}").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/users/batch").permitAll()
 
                         // Routes techniques publiques
                         .requestMatchers("/error", "/actuator/**").permitAll()
@@ -96,8 +97,14 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${user-service.password-hashing.bcrypt-cost:10}") int bcryptCost,
+            @Value("${user-service.password-hashing.threads:0}") int threads,
+            @Value("${user-service.password-hashing.queue-capacity:64}") int queueCapacity) {
+        // BCrypt sur un pool borné (0 thread = un par cœur), rejet immédiat au-delà de la file
+        return new BoundedPasswordEncoder(bcryptCost,
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queueCapacity);
     }
 
     @Bean
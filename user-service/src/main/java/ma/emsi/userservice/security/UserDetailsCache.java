@@ -0,0 +1,85 @@
+package ma.emsi.userservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache des UserDetails utilisés par le JwtFilter, indexé par email.
+ * Les entrées expirent après le TTL configuré et sont invalidées à chaque changement
+ * de compte, y compris ceux faits sur une autre instance (événements Kafka).
+ * Aucun mot de passe n'est mis en cache : le login passe toujours par la base de données.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            @Value("${user-service.user-details-cache.max-size:10000}") long maxSize,
+                            @Value("${user-service.user-details-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Retourne l'utilisateur depuis le cache, ou le charge depuis la base de données
+     */
+    public UserDetails load(String email) throws UsernameNotFoundException {
+        return cache.get(email, this::loadFromDatabase);
+    }
+
+    /**
+     * Retire un utilisateur du cache
+     */
+    public void evict(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    /**
+     * Vide le cache
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private UserDetails loadFromDatabase(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur introuvable avec l'email : " + email));
+
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(user.getEmail())
+                .password("") // ⬅️ Jamais de hash de mot de passe en cache
+                .authorities(
+                        user.getRoles().stream()
+                                .map(role -> role.getName().name())
+                                .toArray(String[]::new)
+                )
+                .disabled(!user.isEnabled() || user.getAccountStatus() == AccountStatus.DISABLED)
+                .build();
+    }
+}
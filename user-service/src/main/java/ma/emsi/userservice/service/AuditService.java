@@ -18,6 +18,7 @@ import java.util.stream.Collectors;
 /**
  * Service for managing audit trail records.
  * Logs all security-sensitive actions and provides query capabilities.
+ * Records are written by the AuditWriter, asynchronously except for security-critical actions.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,6 +26,7 @@ import java.util.stream.Collectors;
 public class AuditService {
 
     private final UserAuditRepository auditRepository;
+    private final AuditWriter auditWriter;
 
     /**
      * Log a login attempt (success or failure).
@@ -33,7 +35,6 @@ public class AuditService {
      * @param ipAddress the IP address of the login attempt
      * @param success   true if login was successful, false otherwise
      */
-    @Transactional
     public void logLogin(Long userId, String ipAddress, boolean success) {
         AuditAction action = success ? AuditAction.LOGIN : AuditAction.LOGIN_FAILED;
         String details = success ? "Successful login" : "Failed login attempt";
@@ -49,7 +50,6 @@ public class AuditService {
      * @param userId    the user ID
      * @param ipAddress the IP address of the request
      */
-    @Transactional
     public void logPasswordChange(Long userId, String ipAddress) {
         createAuditRecord(userId, AuditAction.PASSWORD_CHANGE, ipAddress,
                 "User changed their password");
@@ -64,7 +64,6 @@ public class AuditService {
      * @param role    the role that was assigned
      * @param adminId the admin user ID who performed the action
      */
-    @Transactional
     public void logRoleAssigned(Long userId, String role, Long adminId) {
         String details = String.format("Role '%s' assigned by admin ID %d", role, adminId);
 
@@ -80,7 +79,6 @@ public class AuditService {
      * @param userId    the user ID
      * @param ipAddress the IP address of the request
      */
-    @Transactional
     public void logProfileModified(Long userId, String ipAddress) {
         createAuditRecord(userId, AuditAction.PROFILE_MODIFIED, ipAddress,
                 "User profile information updated");
@@ -95,7 +93,6 @@ public class AuditService {
      * @param reason  the reason for disabling the account
      * @param adminId the admin user ID who performed the action
      */
-    @Transactional
     public void logAccountDisabled(Long userId, String reason, Long adminId) {
         String details = String.format("Account disabled by admin ID %d. Reason: %s",
                 adminId, reason);
@@ -111,7 +108,6 @@ public class AuditService {
      * @param userId  the user ID whose account was enabled
      * @param adminId the admin user ID who performed the action
      */
-    @Transactional
     public void logAccountEnabled(Long userId, Long adminId) {
         String details = String.format("Account enabled by admin ID %d", adminId);
 
@@ -127,7 +123,6 @@ public class AuditService {
      * @param ipAddress the IP address of the last failed attempt
      * @param attempts  the number of failed attempts that triggered the lock
      */
-    @Transactional
     public void logAccountLocked(Long userId, String ipAddress, int attempts) {
         String details = String.format("Account locked after %d failed login attempts", attempts);
 
@@ -137,6 +132,18 @@ public class AuditService {
                 userId, attempts, ipAddress);
     }
 
+    /**
+     * Log an account unlocked action after the lockout period expired.
+     *
+     * @param userId the user ID whose account was unlocked
+     */
+    public void logAccountUnlocked(Long userId) {
+        createAuditRecord(userId, AuditAction.ACCOUNT_UNLOCKED, null,
+                "Account unlocked after lockout expiration");
+
+        log.info("Logged account unlocked for user {}", userId);
+    }
+
     /**
      * Get audit history for a specific user with optional action filtering.
      *
@@ -177,7 +184,7 @@ public class AuditService {
     }
 
     /**
-     * Create and persist an audit record.
+     * Create an audit record and hand it to the AuditWriter.
      *
      * @param userId    the user ID
      * @param action    the audit action type
@@ -194,7 +201,7 @@ public class AuditService {
                 .details(details)
                 .build();
 
-        auditRepository.save(audit);
+        auditWriter.write(audit);
     }
 
     /**
@@ -0,0 +1,276 @@
+package ma.emsi.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.emsi.userservice.entity.UserAudit;
+import ma.emsi.userservice.enums.AuditAction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes audit records to the user_audits table.
+ *
+ * Records are put on a bounded in-memory queue and inserted by a single background
+ * thread with JDBC batch inserts, once batch-size records are pending or flush-interval
+ * has elapsed. A single writer keeps the insertion order. When the queue stays full
+ * for offer-timeout, the calling thread inserts its record itself (backpressure), so no
+ * record is ever dropped. Records submitted inside a transaction are queued only once it
+ * commits.
+ *
+ * The actions listed in synchronous-actions are inserted in the caller's transaction
+ * instead, so the change and its audit record are committed together.
+ *
+ * On shutdown, the queue is drained after the web server has stopped accepting requests.
+ */
+@Component
+@Slf4j
+public class AuditWriter implements SmartLifecycle {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_audits (user_id, action, timestamp, ip_address, details) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingAudit> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final Set<AuditAction> synchronousActions;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditWriter(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${user-service.audit.writer.queue-capacity:10000}") int queueCapacity,
+                       @Value("${user-service.audit.writer.batch-size:100}") int batchSize,
+                       @Value("${user-service.audit.writer.flush-interval:200ms}") Duration flushInterval,
+                       @Value("${user-service.audit.writer.offer-timeout:50ms}") Duration offerTimeout,
+                       @Value("${user-service.audit.writer.synchronous-actions:}") Set<AuditAction> synchronousActions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.synchronousActions = synchronousActions.isEmpty()
+                ? EnumSet.noneOf(AuditAction.class)
+                : EnumSet.copyOf(synchronousActions);
+    }
+
+    /**
+     * Write an audit record, synchronously for security-critical actions, asynchronously otherwise.
+     *
+     * @param audit the audit record to write
+     */
+    public void write(UserAudit audit) {
+        if (synchronousActions.contains(audit.getAction())) {
+            insert(List.of(audit));
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(audit);
+                }
+            });
+        } else {
+            enqueue(audit);
+        }
+    }
+
+    /**
+     * Block until every record queued before this call has been written.
+     */
+    public void flush() {
+        if (!running) {
+            drain();
+            return;
+        }
+
+        PendingAudit barrier = new PendingAudit(null, new CompletableFuture<>());
+        try {
+            queue.put(barrier);
+            barrier.flushed().get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Audit flush did not complete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Number of records waiting to be written.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            // Wake the writer up with a barrier instead of interrupting it during a database write
+            queue.offer(new PendingAudit(null, new CompletableFuture<>()));
+            try {
+                writerThread.join(flushInterval.toMillis() + 30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // The writer thread drains the queue before exiting, unless it is stuck on the database
+        drain();
+        log.info("Audit writer stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server (which stops accepting requests first) and start before it.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void enqueue(UserAudit audit) {
+        PendingAudit entry = new PendingAudit(audit, null);
+        boolean queued;
+        try {
+            queued = running && queue.offer(entry, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+
+        if (!queued) {
+            if (running) {
+                log.warn("Audit queue full, writing {} for user {} synchronously", audit.getAction(), audit.getUserId());
+            }
+            insertInNewTransaction(List.of(audit));
+        } else if (!running && queue.remove(entry)) {
+            // Stopped while queuing: the writer may already have drained the queue
+            insertInNewTransaction(List.of(audit));
+        }
+    }
+
+    private void runWriter() {
+        List<PendingAudit> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingAudit first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect up to batch-size records, for at most flush-interval, stopping at a flush barrier
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                PendingAudit last = first;
+                while (batch.size() < batchSize && last.audit() != null) {
+                    long remaining = deadline - System.nanoTime();
+                    last = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (last == null) {
+                        break;
+                    }
+                    batch.add(last);
+                }
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<PendingAudit> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Insert the records of the batch in order, then release the flush barriers it contains.
+     */
+    private void writeBatch(List<PendingAudit> batch) {
+        List<UserAudit> audits = new ArrayList<>(batch.size());
+        for (PendingAudit entry : batch) {
+            if (entry.audit() != null) {
+                audits.add(entry.audit());
+            }
+        }
+
+        if (!audits.isEmpty()) {
+            insertInNewTransaction(audits);
+        }
+
+        for (PendingAudit entry : batch) {
+            if (entry.flushed() != null) {
+                entry.flushed().complete(null);
+            }
+        }
+    }
+
+    private void insertInNewTransaction(List<UserAudit> audits) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(audits));
+        } catch (Exception e) {
+            log.error("Failed to write {} audit record(s): {}", audits.size(), e.getMessage());
+            audits.forEach(audit -> log.error("Lost audit record: {} for user {} at {} - {}",
+                    audit.getAction(), audit.getUserId(), audit.getTimestamp(), audit.getDetails()));
+        }
+    }
+
+    private void insert(List<UserAudit> audits) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, audits, audits.size(), (ps, audit) -> {
+            ps.setLong(1, audit.getUserId());
+            ps.setString(2, audit.getAction().name());
+            ps.setTimestamp(3, Timestamp.valueOf(audit.getTimestamp()));
+            ps.setString(4, audit.getIpAddress());
+            ps.setString(5, audit.getDetails());
+        });
+    }
+
+    /**
+     * A queued audit record, or a flush barrier (no record, completed once everything before it is written).
+     */
+    private record PendingAudit(UserAudit audit, CompletableFuture<Void> flushed) {
+    }
+}
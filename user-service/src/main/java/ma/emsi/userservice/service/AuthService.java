@@ -7,11 +7,11 @@ import ma.emsi.userservice.dto.request.RegisterRequest;
 import ma.emsi.userservice.dto.request.LoginRequest;
 import ma.emsi.userservice.dto.response.TokenResponse;
 import ma.emsi.userservice.dto.response.UserResponse;
-import ma.emsi.userservice.entity.RefreshToken;
 import ma.emsi.userservice.entity.Role;
 import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
-import ma.emsi.userservice.repository.RefreshTokenRepository;
+import ma.emsi.userservice.exception.PasswordHashingSaturatedException;
+import ma.emsi.userservice.exception.TooManyLoginAttemptsException;
 import ma.emsi.userservice.repository.RoleRepository;
 import ma.emsi.userservice.repository.UserRepository;
 import ma.emsi.userservice.security.JwtProvider;
@@ -25,17 +25,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.UUID;
-
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final JwtProvider jwtProvider;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
@@ -108,10 +104,18 @@ public class AuthService {
                 roles);
     }
 
-    public TokenResponse login(LoginRequest request, String ipAddress) {
+    public TokenResponse login(LoginRequest request, String ipAddress, String deviceId) {
+        // Trop d'échecs depuis cette adresse : rejet sans lecture en base ni BCrypt
+        if (loginAttemptService.isIpBlocked(ipAddress)) {
+            throw new TooManyLoginAttemptsException("Trop de tentatives de connexion, réessayez plus tard");
+        }
+
         // Récupération de l'utilisateur
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+        User user = userRepository.findByEmail(request.email()).orElse(null);
+        if (user == null) {
+            loginAttemptService.recordIpFailure(ipAddress);
+            throw new RuntimeException("Utilisateur introuvable");
+        }
 
         // Check if account is locked
         if (loginAttemptService.isAccountLocked(user)) {
@@ -138,23 +142,16 @@ public class AuthService {
             // Login succeeded - reset failed attempts
             loginAttemptService.loginSucceeded(user);
 
+            // Stored hash computed with another BCrypt cost: rehash the password just verified
+            rehashIfNeeded(user, request.password());
+
             // Log successful login audit
             auditService.logLogin(user.getId(), ipAddress, true);
 
             // Génération des tokens
             String accessToken = jwtProvider.generateToken(authentication);
-            String refreshToken = UUID.randomUUID().toString();
-
-            // ✅ SOLUTION : Supprimer les anciens refresh tokens de cet utilisateur
-            refreshTokenRepository.deleteByUser(user);
-
-            // Enregistrement du nouveau refresh token
-            RefreshToken token = RefreshToken.builder()
-                    .token(refreshToken)
-                    .user(user)
-                    .expiryDate(Instant.now().plus(7, ChronoUnit.DAYS))
-                    .build();
-            refreshTokenRepository.save(token);
+            // Remplace le refresh token de cet appareil en une seule requête
+            String refreshToken = refreshTokenService.issue(user, deviceId);
 
             return new TokenResponse(accessToken, refreshToken);
         } catch (AuthenticationException ex) {
@@ -164,32 +161,36 @@ public class AuthService {
         }
     }
 
-    public TokenResponse refreshToken(String refreshToken) {
-        // Validation du refresh token
-        if (refreshToken == null || !refreshTokenRepository.existsByToken(refreshToken)) {
-            throw new IllegalArgumentException("Refresh token invalide ou expiré");
+    private void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
         }
-
-        // Récupération du token
-        RefreshToken token = refreshTokenRepository.findByToken(refreshToken)
-                .orElseThrow(() -> new IllegalArgumentException("Refresh token introuvable"));
-
-        // Vérification de l'expiration
-        if (token.getExpiryDate().isBefore(Instant.now())) {
-            refreshTokenRepository.delete(token);
-            throw new IllegalArgumentException("Refresh token expiré");
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            userRepository.updatePassword(user.getId(), newHash);
+            user.setPassword(newHash);
+            logger.info("Mot de passe re-haché au coût BCrypt cible pour l'utilisateur {}", user.getId());
+        } catch (PasswordHashingSaturatedException ex) {
+            // Pool saturé : la connexion réussit quand même, le re-hachage attendra la suivante
+            logger.debug("Re-hachage reporté pour l'utilisateur {} : pool saturé", user.getId());
         }
+    }
+
+    public TokenResponse refreshToken(String refreshToken) {
+        // Rotation : l'ancien refresh token n'est plus valable, le nouveau est renvoyé
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = rotation.user();
 
         // Génération d'un nouveau access token
         Authentication authentication = new UsernamePasswordAuthenticationToken(
-                token.getUser().getEmail(),
+                user.getEmail(),
                 null,
-                token.getUser().getRoles().stream()
+                user.getRoles().stream()
                         .map(role -> new SimpleGrantedAuthority(role.getName().name()))
                         .collect(Collectors.toList()));
         String newAccessToken = jwtProvider.generateToken(authentication);
 
-        return new TokenResponse(newAccessToken, refreshToken);
+        return new TokenResponse(newAccessToken, rotation.refreshToken());
     }
 
 }
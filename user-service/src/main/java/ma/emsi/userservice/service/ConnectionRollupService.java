@@ -0,0 +1,118 @@
+package ma.emsi.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.emsi.userservice.entity.DailyConnectionRollup;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.enums.AuditAction;
+import ma.emsi.userservice.repository.DailyConnectionRollupRepository;
+import ma.emsi.userservice.repository.UserAuditRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the daily_connection_rollups table incrementally.
+ *
+ * Every closed day that is not rolled up yet is aggregated from the LOGIN audits with
+ * two grouped queries, and stored as one row per role plus one row for all logins. A day
+ * is closed once rollup-delay has elapsed after its end, so that audit records still
+ * queued by the AuditWriter of any instance (or committed just after midnight) are
+ * written before the day is counted; the local writer is also flushed first.
+ * Each day is rolled up only once; an up-to-date table costs a single MAX query. When two
+ * instances roll up the same day, the unique constraint on (day, role_name) rejects the
+ * second insert and its rows are discarded.
+ */
+@Service
+@Slf4j
+public class ConnectionRollupService {
+
+    private final UserAuditRepository auditRepository;
+    private final DailyConnectionRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditWriter auditWriter;
+    private final Duration rollupDelay;
+
+    public ConnectionRollupService(UserAuditRepository auditRepository,
+                                   DailyConnectionRollupRepository rollupRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   AuditWriter auditWriter,
+                                   @Value("${user-service.statistics.rollup-delay:5m}") Duration rollupDelay) {
+        this.auditRepository = auditRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditWriter = auditWriter;
+        this.rollupDelay = rollupDelay;
+    }
+
+    /**
+     * First day that is not closed yet: today, or yesterday during the first rollup-delay of the day.
+     */
+    public LocalDate firstOpenDay() {
+        return LocalDateTime.now().minus(rollupDelay).toLocalDate();
+    }
+
+    /**
+     * Roll up every closed day from firstDay (or the day after the last rolled up day,
+     * if later) to the day before {@link #firstOpenDay()}.
+     *
+     * @param firstDay the oldest day to roll up when the table is empty or behind
+     * @return the first open day, whose logins are not rolled up and must be counted live
+     */
+    public synchronized LocalDate rollUpClosedDays(LocalDate firstDay) {
+        LocalDate today = firstOpenDay();
+        LocalDate lastRolledUp = rollupRepository.findLastRolledUpDay();
+        LocalDate from = lastRolledUp != null && !lastRolledUp.isBefore(firstDay)
+                ? lastRolledUp.plusDays(1)
+                : firstDay;
+        if (!from.isBefore(today)) {
+            return today;
+        }
+
+        // Records of closed days still queued on this instance
+        auditWriter.flush();
+
+        Map<LocalDate, Map<String, Long>> counts = new HashMap<>();
+        auditRepository.countByActionPerDay(AuditAction.LOGIN, from.atStartOfDay(), today.atStartOfDay())
+                .forEach(row -> counts.computeIfAbsent(row.getDay(), day -> new HashMap<>())
+                        .put(DailyConnectionRollup.ALL_ROLES, row.getConnections()));
+        auditRepository.countByActionPerDayAndRole(AuditAction.LOGIN, from.atStartOfDay(), today.atStartOfDay())
+                .forEach(row -> counts.computeIfAbsent(row.getDay(), day -> new HashMap<>())
+                        .put(row.getRole().name(), row.getConnections()));
+
+        // One row per day and role, zeros included, so that the last day present is the watermark
+        List<DailyConnectionRollup> rollups = new ArrayList<>();
+        for (LocalDate day = from; day.isBefore(today); day = day.plusDays(1)) {
+            Map<String, Long> dayCounts = counts.getOrDefault(day, Map.of());
+            rollups.add(rollup(day, DailyConnectionRollup.ALL_ROLES, dayCounts));
+            for (RoleName role : RoleName.values()) {
+                rollups.add(rollup(day, role.name(), dayCounts));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> rollupRepository.saveAll(rollups));
+            log.debug("Rolled up connections from {} to {}", from, today.minusDays(1));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Connections from {} already rolled up by another instance", from);
+        }
+        return today;
+    }
+
+    private DailyConnectionRollup rollup(LocalDate day, String roleName, Map<String, Long> dayCounts) {
+        return DailyConnectionRollup.builder()
+                .day(day)
+                .roleName(roleName)
+                .connectionCount(dayCounts.getOrDefault(roleName, 0L))
+                .build();
+    }
+}
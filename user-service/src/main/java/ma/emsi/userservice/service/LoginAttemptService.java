@@ -1,35 +1,95 @@
 package ma.emsi.userservice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.enums.AccountStatus;
 import ma.emsi.userservice.repository.UserRepository;
+import ma.emsi.userservice.security.AccountChangeTracker;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for managing login attempts and account locking.
  * Implements failed login protection by tracking attempts and locking accounts
  * after exceeding the maximum allowed failures.
+ *
+ * Failed attempts are counted in memory, in a sliding window per email and per IP
+ * address, and the lockout is decided from memory: a burst of failures does not touch
+ * the user row. Only the state transitions (locked, unlocked, reset after a successful
+ * login) are persisted, by a single background writer in submission order. A lock
+ * persisted by another instance, or before a restart, is read back from the user row
+ * loaded by the login.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class LoginAttemptService {
 
     private final UserRepository userRepository;
     private final AuditService auditService;
+    private final AccountChangeTracker accountChangeTracker;
+    private final int maxFailedLogins;
+    private final int maxFailedLoginsPerIp;
+    private final Duration failureWindow;
+    private final Duration lockoutDuration;
 
-    @Value("${user-service.account.max-failed-logins:5}")
-    private int maxFailedLogins;
+    private final Cache<String, FailureWindow> failuresByEmail;
+    private final Cache<String, FailureWindow> failuresByIp;
+    private final Cache<String, Instant> lockedUntil;
+    private final ThreadPoolExecutor writeBehind;
 
-    @Value("${user-service.account.lockout-duration:30m}")
-    private String lockoutDurationString;
+    public LoginAttemptService(UserRepository userRepository,
+                               AuditService auditService,
+                               AccountChangeTracker accountChangeTracker,
+                               @Value("${user-service.account.max-failed-logins:5}") int maxFailedLogins,
+                               @Value("${user-service.account.max-failed-logins-per-ip:50}") int maxFailedLoginsPerIp,
+                               @Value("${user-service.account.failure-window:15m}") Duration failureWindow,
+                               @Value("${user-service.account.lockout-duration:30m}") Duration lockoutDuration,
+                               @Value("${user-service.account.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.userRepository = userRepository;
+        this.auditService = auditService;
+        this.accountChangeTracker = accountChangeTracker;
+        this.maxFailedLogins = maxFailedLogins;
+        this.maxFailedLoginsPerIp = maxFailedLoginsPerIp;
+        this.failureWindow = failureWindow;
+        this.lockoutDuration = lockoutDuration;
+
+        this.failuresByEmail = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(failureWindow)
+                .build();
+        this.failuresByIp = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(failureWindow)
+                .build();
+        this.lockedUntil = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterWrite(lockoutDuration)
+                .build();
+
+        // Single writer keeps the transitions of an account in order; a full queue makes the caller write
+        this.writeBehind = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-attempt-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
     /**
      * Handle successful login by resetting failed login attempts and clearing
@@ -37,55 +97,85 @@ public class LoginAttemptService {
      *
      * @param user the user who successfully logged in
      */
-    @Transactional
     public void loginSucceeded(User user) {
-        if (user.getFailedLoginAttempts() > 0 || user.getLockoutExpiration() != null) {
-            user.setFailedLoginAttempts(0);
-            user.setLockoutExpiration(null);
+        failuresByEmail.invalidate(user.getEmail());
+        lockedUntil.invalidate(user.getEmail());
 
-            // If account was locked, set it back to active
+        // Only rows still carrying a previous lock or counter are written
+        Integer persistedAttempts = user.getFailedLoginAttempts();
+        if ((persistedAttempts != null && persistedAttempts > 0) || user.getLockoutExpiration() != null
+                || user.getAccountStatus() == AccountStatus.LOCKED) {
             if (user.getAccountStatus() == AccountStatus.LOCKED) {
-                user.setAccountStatus(AccountStatus.ACTIVE);
                 log.info("Account unlocked for user {} after successful login", user.getId());
             }
-
-            userRepository.save(user);
+            resetRow(user);
             log.info("Reset failed login attempts for user {}", user.getId());
         }
     }
 
     /**
-     * Handle failed login by incrementing counter and locking account if max
+     * Handle failed login by counting it in memory and locking account if max
      * attempts reached.
      *
      * @param user      the user who failed to login
      * @param ipAddress the IP address of the failed attempt
      */
-    @Transactional
     public void loginFailed(User user, String ipAddress) {
-        int attempts = user.getFailedLoginAttempts() + 1;
-        user.setFailedLoginAttempts(attempts);
+        long now = System.currentTimeMillis();
+        recordIpFailure(ipAddress);
+        int attempts = failuresByEmail.get(user.getEmail(), email -> new FailureWindow())
+                .record(now, failureWindow.toMillis(), maxFailedLogins);
 
         log.warn("Failed login attempt {} for user {} from IP {}",
                 attempts, user.getId(), ipAddress);
 
-        // Lock account if max attempts reached
+        // Lock account if max attempts reached, once even under concurrent failures
         if (attempts >= maxFailedLogins) {
-            Duration lockoutDuration = parseDuration(lockoutDurationString);
-            LocalDateTime lockoutExpiration = LocalDateTime.now().plus(lockoutDuration);
+            Instant until = Instant.ofEpochMilli(now).plus(lockoutDuration);
+            if (lockedUntil.asMap().putIfAbsent(user.getEmail(), until) != null) {
+                return;
+            }
 
+            LocalDateTime lockoutExpiration = LocalDateTime.ofInstant(until, ZoneId.systemDefault());
+            Long userId = user.getId();
             user.setAccountStatus(AccountStatus.LOCKED);
+            user.setFailedLoginAttempts(attempts);
             user.setLockoutExpiration(lockoutExpiration);
+            persist(userId, AccountStatus.LOCKED, attempts, lockoutExpiration);
 
-            userRepository.save(user);
-
-            auditService.logAccountLocked(user.getId(), ipAddress, attempts);
+            accountChangeTracker.accountChanged(userId, user.getEmail());
+            auditService.logAccountLocked(userId, ipAddress, attempts);
 
             log.warn("Account locked for user {} after {} failed attempts. Lockout expires at {}",
-                    user.getId(), attempts, lockoutExpiration);
-        } else {
-            userRepository.save(user);
+                    userId, attempts, lockoutExpiration);
+        }
+    }
+
+    /**
+     * Count a failed login for an IP address only (unknown email).
+     *
+     * @param ipAddress the IP address of the failed attempt
+     */
+    public void recordIpFailure(String ipAddress) {
+        if (ipAddress != null) {
+            failuresByIp.get(ipAddress, ip -> new FailureWindow())
+                    .record(System.currentTimeMillis(), failureWindow.toMillis(), maxFailedLoginsPerIp);
+        }
+    }
+
+    /**
+     * Check if an IP address made too many failed logins within the window.
+     *
+     * @param ipAddress the IP address to check
+     * @return true if logins from this address must be rejected
+     */
+    public boolean isIpBlocked(String ipAddress) {
+        if (ipAddress == null) {
+            return false;
         }
+        FailureWindow window = failuresByIp.getIfPresent(ipAddress);
+        return window != null
+                && window.count(System.currentTimeMillis(), failureWindow.toMillis()) >= maxFailedLoginsPerIp;
     }
 
     /**
@@ -95,59 +185,124 @@ public class LoginAttemptService {
      * @param user the user to check
      * @return true if account is locked, false otherwise
      */
-    @Transactional
     public boolean isAccountLocked(User user) {
-        // If account status is not LOCKED, it's not locked
-        if (user.getAccountStatus() != AccountStatus.LOCKED) {
-            return false;
+        Instant now = Instant.now();
+        Instant until = lockedUntil.getIfPresent(user.getEmail());
+
+        // Lock persisted by another instance, or before a restart
+        if (until == null && user.getAccountStatus() == AccountStatus.LOCKED) {
+            until = user.getLockoutExpiration() != null
+                    ? user.getLockoutExpiration().atZone(ZoneId.systemDefault()).toInstant()
+                    : now;
+            if (until.isAfter(now)) {
+                lockedUntil.put(user.getEmail(), until);
+            }
         }
 
-        // Check if lockout has expired
-        LocalDateTime lockoutExpiration = user.getLockoutExpiration();
-        if (lockoutExpiration == null || LocalDateTime.now().isAfter(lockoutExpiration)) {
-            // Auto-unlock the account
-            user.setAccountStatus(AccountStatus.ACTIVE);
-            user.setFailedLoginAttempts(0);
-            user.setLockoutExpiration(null);
-            userRepository.save(user);
+        if (until == null) {
+            return false;
+        }
+        if (until.isAfter(now)) {
+            // Account is still locked
+            return true;
+        }
 
+        // Lockout has expired: auto-unlock the account
+        lockedUntil.invalidate(user.getEmail());
+        failuresByEmail.invalidate(user.getEmail());
+        if (user.getAccountStatus() == AccountStatus.LOCKED) {
+            resetRow(user);
+            auditService.logAccountUnlocked(user.getId());
             log.info("Account automatically unlocked for user {} after lockout expiration",
                     user.getId());
+        }
+        return false;
+    }
 
-            return false;
+    /**
+     * Number of failed logins of an email within the current window.
+     *
+     * @param email the email to check
+     * @return the number of failed attempts (capped at the lock threshold)
+     */
+    public int getFailedAttempts(String email) {
+        FailureWindow window = failuresByEmail.getIfPresent(email);
+        return window == null ? 0 : window.count(System.currentTimeMillis(), failureWindow.toMillis());
+    }
+
+    /**
+     * Block until every transition submitted before this call has been written.
+     */
+    public void flush() {
+        try {
+            writeBehind.submit(() -> { }).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Login attempt flush did not complete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forget every counter and lock held in memory (the persisted locks are kept).
+     */
+    public void reset() {
+        failuresByEmail.invalidateAll();
+        failuresByIp.invalidateAll();
+        lockedUntil.invalidateAll();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writeBehind.shutdown();
+        if (!writeBehind.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.error("Login attempt writer stopped with {} transition(s) not written", writeBehind.getQueue().size());
         }
+    }
 
-        // Account is still locked
-        return true;
+    private void resetRow(User user) {
+        Long userId = user.getId();
+        user.setAccountStatus(AccountStatus.ACTIVE);
+        user.setFailedLoginAttempts(0);
+        user.setLockoutExpiration(null);
+        persist(userId, AccountStatus.ACTIVE, 0, null);
+    }
+
+    private void persist(Long userId, AccountStatus status, int attempts, LocalDateTime lockoutExpiration) {
+        writeBehind.execute(() -> {
+            try {
+                userRepository.updateLoginLockState(userId, status, attempts, lockoutExpiration);
+            } catch (Exception e) {
+                log.error("Failed to persist {} state for user {}: {}", status, userId, e.getMessage());
+            }
+        });
     }
 
     /**
-     * Parse duration string (e.g., "30m", "1h", "2d") into Duration object.
-     *
-     * @param durationString the duration string to parse
-     * @return Duration object
+     * Failure timestamps of one key within the window, at most cap of them.
      */
-    private Duration parseDuration(String durationString) {
-        if (durationString == null || durationString.isEmpty()) {
-            return Duration.ofMinutes(30); // Default to 30 minutes
+    private static final class FailureWindow {
+
+        private final ArrayDeque<Long> failures = new ArrayDeque<>();
+
+        synchronized int record(long now, long windowMs, int cap) {
+            trim(now, windowMs);
+            failures.addLast(now);
+            while (failures.size() > cap) {
+                failures.removeFirst();
+            }
+            return failures.size();
         }
 
-        try {
-            String value = durationString.substring(0, durationString.length() - 1);
-            char unit = durationString.charAt(durationString.length() - 1);
-            long amount = Long.parseLong(value);
-
-            return switch (unit) {
-                case 's' -> Duration.ofSeconds(amount);
-                case 'm' -> Duration.ofMinutes(amount);
-                case 'h' -> Duration.ofHours(amount);
-                case 'd' -> Duration.ofDays(amount);
-                default -> Duration.ofMinutes(30); // Default fallback
-            };
-        } catch (Exception e) {
-            log.warn("Failed to parse lockout duration '{}', using default 30 minutes",
-                    durationString, e);
-            return Duration.ofMinutes(30);
+        synchronized int count(long now, long windowMs) {
+            trim(now, windowMs);
+            return failures.size();
+        }
+
+        private void trim(long now, long windowMs) {
+            while (!failures.isEmpty() && failures.peekFirst() <= now - windowMs) {
+                failures.removeFirst();
+            }
         }
     }
 }
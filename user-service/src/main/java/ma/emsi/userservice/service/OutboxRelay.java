@@ -0,0 +1,393 @@
+package ma.emsi.userservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import ma.emsi.userservice.dto.event.UserEvent;
+import ma.emsi.userservice.enums.OutboxChannel;
+import ma.emsi.userservice.enums.OutboxStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the messages of the outbox_messages table written by OutboxService.
+ *
+ * A single background thread claims up to batch-size due messages at a time
+ * (SELECT ... FOR UPDATE SKIP LOCKED, so several instances never claim the same rows),
+ * leases them for lease-duration, then sends them outside of any transaction: the emails
+ * of a batch over one SMTP connection, the events of a batch to Kafka before waiting for
+ * all acknowledgements. Delivered messages are marked DELIVERED; failed ones are retried
+ * with an exponential backoff, and marked FAILED after max-attempts. A message whose
+ * instance died during delivery is claimed again once its lease expires, so delivery is
+ * at least once.
+ *
+ * Messages with a key (the user ID of an event) are delivered in order per destination and
+ * key: a message is claimed only when no older message with the same key is still PENDING,
+ * whether it waits for a retry or is being sent by this or another instance. A message
+ * abandoned as FAILED no longer holds back the next ones.
+ *
+ * The relay wakes up when a transaction writing messages commits, and polls every
+ * poll-interval for retries and for messages written by other instances.
+ */
+@Component
+@Slf4j
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final String CLAIM_SQL =
+            "SELECT m.id, m.channel, m.destination, m.message_key, m.payload, m.attempts FROM outbox_messages m "
+                    + "WHERE m.status = 'PENDING' AND m.next_attempt_at <= ? "
+                    + "AND (m.message_key IS NULL OR NOT EXISTS (SELECT 1 FROM outbox_messages older "
+                    + "WHERE older.message_key = m.message_key AND older.destination = m.destination "
+                    + "AND older.status = 'PENDING' AND older.id < m.id)) "
+                    + "ORDER BY m.id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String LEASE_SQL =
+            "UPDATE outbox_messages SET next_attempt_at = ? WHERE id = ?";
+    private static final String DELIVERED_SQL =
+            "UPDATE outbox_messages SET status = 'DELIVERED', delivered_at = ?, attempts = attempts + 1, "
+                    + "last_error = NULL WHERE id = ?";
+    private static final String FAILED_SQL =
+            "UPDATE outbox_messages SET status = ?, attempts = ?, next_attempt_at = ?, last_error = ? WHERE id = ?";
+    private static final String PURGE_SQL =
+            "DELETE FROM outbox_messages WHERE status = 'DELIVERED' AND delivered_at < ? LIMIT 1000";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final JavaMailSender mailSender;
+    private final ObjectMapper objectMapper;
+    private final String fromEmail;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration leaseDuration;
+    private final Duration sendTimeout;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Duration deliveredRetention;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running;
+    private Thread relayThread;
+    private long lastPurge;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       KafkaTemplate<String, UserEvent> kafkaTemplate,
+                       JavaMailSender mailSender,
+                       ObjectMapper objectMapper,
+                       @Value("${spring.mail.username}") String fromEmail,
+                       @Value("${user-service.outbox.batch-size:100}") int batchSize,
+                       @Value("${user-service.outbox.poll-interval:1s}") Duration pollInterval,
+                       @Value("${user-service.outbox.lease-duration:2m}") Duration leaseDuration,
+                       @Value("${user-service.outbox.send-timeout:30s}") Duration sendTimeout,
+                       @Value("${user-service.outbox.initial-backoff:5s}") Duration initialBackoff,
+                       @Value("${user-service.outbox.max-backoff:15m}") Duration maxBackoff,
+                       @Value("${user-service.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${user-service.outbox.delivered-retention:7d}") Duration deliveredRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.kafkaTemplate = kafkaTemplate;
+        this.mailSender = mailSender;
+        this.objectMapper = objectMapper;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.leaseDuration = leaseDuration;
+        this.sendTimeout = sendTimeout;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        this.deliveredRetention = deliveredRetention;
+    }
+
+    /**
+     * Deliver the due messages now instead of at the next poll.
+     */
+    public void wakeUp() {
+        if (wakeUp.availablePermits() == 0) {
+            wakeUp.release();
+        }
+    }
+
+    /**
+     * Deliver every message due at the time of the call, waiting for a batch in progress.
+     * Messages failing again are left for their next retry.
+     */
+    public void flush() {
+        while (relayBatch() > 0) {
+            // next batch
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relayThread = new Thread(this::runRelay, "outbox-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (relayThread != null) {
+            wakeUp();
+            try {
+                relayThread.join(sendTimeout.toMillis() + 30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Messages not delivered yet stay in the table for the next start or another instance
+        log.info("Outbox relay stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server, like AuditWriter, so the messages of the last requests are sent.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runRelay() {
+        while (running) {
+            try {
+                // Until nothing is claimed: delivering a message may release the next one of its key
+                if (relayBatch() == 0) {
+                    purgeDelivered();
+                    wakeUp.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Outbox relay cycle failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim, send and mark one batch of due messages.
+     *
+     * @return the number of messages claimed
+     */
+    private synchronized int relayBatch() {
+        List<ClaimedMessage> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<ClaimedMessage> emails = new ArrayList<>();
+        List<ClaimedMessage> events = new ArrayList<>();
+        for (ClaimedMessage message : batch) {
+            (message.channel() == OutboxChannel.EMAIL ? emails : events).add(message);
+        }
+
+        Map<ClaimedMessage, String> failures = new LinkedHashMap<>();
+        if (!events.isEmpty()) {
+            sendEvents(events, failures);
+        }
+        if (!emails.isEmpty()) {
+            sendEmails(emails, failures);
+        }
+
+        markDelivered(batch.stream().filter(message -> !failures.containsKey(message)).toList());
+        if (!failures.isEmpty()) {
+            markFailed(failures);
+        }
+        return batch.size();
+    }
+
+    private List<ClaimedMessage> claim() {
+        List<ClaimedMessage> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<ClaimedMessage> rows = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new ClaimedMessage(
+                            rs.getLong("id"),
+                            OutboxChannel.valueOf(rs.getString("channel")),
+                            rs.getString("destination"),
+                            rs.getString("message_key"),
+                            rs.getString("payload"),
+                            rs.getInt("attempts")),
+                    Timestamp.valueOf(now), batchSize);
+            if (!rows.isEmpty()) {
+                // Leased: claimed again only if this instance dies before marking them
+                Timestamp leasedUntil = Timestamp.valueOf(now.plus(leaseDuration));
+                jdbcTemplate.batchUpdate(LEASE_SQL, rows, rows.size(), (ps, row) -> {
+                    ps.setTimestamp(1, leasedUntil);
+                    ps.setLong(2, row.id());
+                });
+            }
+            return rows;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    /**
+     * Send every event before waiting for the acknowledgements, so the producer batches them.
+     */
+    private void sendEvents(List<ClaimedMessage> events, Map<ClaimedMessage, String> failures) {
+        Map<ClaimedMessage, CompletableFuture<SendResult<String, UserEvent>>> sent = new LinkedHashMap<>();
+        for (ClaimedMessage message : events) {
+            try {
+                UserEvent event = objectMapper.readValue(message.payload(), UserEvent.class);
+                sent.put(message, kafkaTemplate.send(message.destination(), message.messageKey(), event));
+            } catch (Exception e) {
+                failures.put(message, e.getMessage());
+            }
+        }
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (Map.Entry<ClaimedMessage, CompletableFuture<SendResult<String, UserEvent>>> entry : sent.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(entry.getKey(), "Interrupted");
+            } catch (Exception e) {
+                failures.put(entry.getKey(), e.getCause() != null ? e.getCause().getMessage() : e.toString());
+            }
+        }
+    }
+
+    /**
+     * Send the emails of the batch over a single SMTP connection.
+     */
+    private void sendEmails(List<ClaimedMessage> emails, Map<ClaimedMessage, String> failures) {
+        Map<MimeMessage, ClaimedMessage> built = new IdentityHashMap<>();
+        for (ClaimedMessage message : emails) {
+            try {
+                OutboxService.EmailPayload payload =
+                        objectMapper.readValue(message.payload(), OutboxService.EmailPayload.class);
+                MimeMessage mimeMessage = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+                helper.setFrom(fromEmail);
+                helper.setTo(message.destination());
+                helper.setSubject(payload.subject());
+                helper.setText(payload.htmlBody(), true);
+                built.put(mimeMessage, message);
+            } catch (Exception e) {
+                failures.put(message, e.getMessage());
+            }
+        }
+        if (built.isEmpty()) {
+            return;
+        }
+
+        try {
+            mailSender.send(built.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                built.values().forEach(message -> failures.put(message, e.getMessage()));
+            } else {
+                e.getFailedMessages().forEach((mimeMessage, cause) -> {
+                    ClaimedMessage message = built.get(mimeMessage);
+                    if (message != null) {
+                        failures.put(message, cause.getMessage());
+                    }
+                });
+            }
+        } catch (Exception e) {
+            built.values().forEach(message -> failures.put(message, e.getMessage()));
+        }
+    }
+
+    private void markDelivered(List<ClaimedMessage> delivered) {
+        if (delivered.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(DELIVERED_SQL, delivered, delivered.size(), (ps, message) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, message.id());
+        });
+    }
+
+    private void markFailed(Map<ClaimedMessage, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map.Entry<ClaimedMessage, String>> entries = new ArrayList<>(failures.entrySet());
+        jdbcTemplate.batchUpdate(FAILED_SQL, entries, entries.size(), (ps, entry) -> {
+            ClaimedMessage message = entry.getKey();
+            int attempts = message.attempts() + 1;
+            boolean abandoned = attempts >= maxAttempts;
+            String error = entry.getValue() != null ? entry.getValue() : "Unknown error";
+
+            ps.setString(1, (abandoned ? OutboxStatus.FAILED : OutboxStatus.PENDING).name());
+            ps.setInt(2, attempts);
+            ps.setTimestamp(3, Timestamp.valueOf(now.plus(backoff(attempts))));
+            ps.setString(4, error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            ps.setLong(5, message.id());
+
+            if (abandoned) {
+                log.error("Outbox message {} ({} to {}) abandoned after {} attempts: {}",
+                        message.id(), message.channel(), message.destination(), attempts, error);
+            } else {
+                log.warn("Outbox message {} ({} to {}) failed, attempt {}: {}",
+                        message.id(), message.channel(), message.destination(), attempts, error);
+            }
+        });
+    }
+
+    /**
+     * initial-backoff doubled at each failed attempt, capped at max-backoff.
+     */
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void purgeDelivered() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < Duration.ofHours(1).toMillis()) {
+            return;
+        }
+        lastPurge = now;
+        int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(deliveredRetention)));
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox message(s)", purged);
+        }
+    }
+
+    /**
+     * A message claimed for delivery.
+     */
+    private record ClaimedMessage(Long id, OutboxChannel channel, String destination,
+                                  String messageKey, String payload, int attempts) {
+    }
+}
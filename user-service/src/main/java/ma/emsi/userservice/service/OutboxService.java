@@ -0,0 +1,100 @@
+package ma.emsi.userservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.event.UserEvent;
+import ma.emsi.userservice.entity.OutboxMessage;
+import ma.emsi.userservice.enums.OutboxChannel;
+import ma.emsi.userservice.enums.OutboxStatus;
+import ma.emsi.userservice.repository.OutboxMessageRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes the emails and Kafka events to send to the outbox_messages table.
+ *
+ * Messages are inserted in the caller's transaction, so they exist if and only if the
+ * change that produced them is committed. Nothing is sent here: OutboxRelay delivers
+ * them in the background and is woken up once the transaction commits.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository,
+                         OutboxRelay outboxRelay,
+                         ObjectMapper objectMapper) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Queue an HTML email.
+     *
+     * @param to       the recipient address
+     * @param subject  the subject
+     * @param htmlBody the HTML body
+     */
+    public void enqueueEmail(String to, String subject, String htmlBody) {
+        enqueue(OutboxChannel.EMAIL, to, null, new EmailPayload(subject, htmlBody));
+    }
+
+    /**
+     * Queue a UserEvent for a Kafka topic.
+     *
+     * @param topic the topic to publish to
+     * @param key   the record key (the user ID): OutboxRelay sends the events of a key in order,
+     *              and Kafka keeps them in order on the key's partition
+     * @param event the event
+     */
+    public void enqueueEvent(String topic, String key, UserEvent event) {
+        enqueue(OutboxChannel.KAFKA, topic, key, event);
+    }
+
+    private void enqueue(OutboxChannel channel, String destination, String key, Object payload) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage message = OutboxMessage.builder()
+                .channel(channel)
+                .destination(destination)
+                .messageKey(key)
+                .payload(toJson(payload))
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+        outboxMessageRepository.save(message);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        } else {
+            outboxRelay.wakeUp();
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Message d'outbox non sérialisable", e);
+        }
+    }
+
+    /**
+     * Payload of an EMAIL message (the recipient is the destination of the message).
+     */
+    record EmailPayload(String subject, String htmlBody) {
+    }
+}
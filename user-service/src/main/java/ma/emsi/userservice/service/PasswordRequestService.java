@@ -8,6 +8,7 @@ import ma.emsi.userservice.entity.PasswordResetToken;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.repository.PasswordResetTokenRepository;
 import ma.emsi.userservice.repository.UserRepository;
+import ma.emsi.userservice.security.UserDetailsCache;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -26,6 +27,8 @@ public class PasswordRequestService {
     private final PasswordResetTokenRepository tokenRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
+    private final UserEventPublisher eventPublisher;
 
     /**
      * 🔹 Génère un token de réinitialisation et envoie un email
@@ -85,6 +88,9 @@ public class PasswordRequestService {
         resetToken.setUsed(true);
         tokenRepository.save(resetToken);
 
+        userDetailsCache.evict(user.getEmail());
+        eventPublisher.publishPasswordChanged(user.getId(), user.getEmail());
+
         log.info("Mot de passe réinitialisé avec succès pour l'utilisateur : {}", user.getEmail());
     }
 
@@ -1,7 +1,9 @@
 package ma.emsi.userservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import ma.emsi.userservice.entity.RefreshToken;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.exception.RefreshTokenException;
@@ -9,40 +11,107 @@ import ma.emsi.userservice.repository.RefreshTokenRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.UUID;
 
+/**
+ * Refresh tokens : un token opaque par (utilisateur, appareil), stocké sous forme de
+ * condensat SHA-256. La connexion remplace le token de l'appareil en un seul upsert,
+ * le rafraîchissement fait une lecture indexée puis une mise à jour conditionnelle.
+ * Un token déjà remplacé présenté à nouveau révoque la famille entière, sauf pendant
+ * une courte fenêtre de grâce après sa rotation : les requêtes parallèles d'une même page
+ * présentent le même token, elles reçoivent alors toutes le résultat de la première rotation.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class RefreshTokenService {
 
+    public static final String DEFAULT_DEVICE_ID = "default";
+    private static final int MAX_DEVICE_ID_LENGTH = 64;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration reuseGrace;
+
+    // Rotations récentes, par condensat du token remplacé, gardées pendant la fenêtre de grâce
+    private final Cache<ByteBuffer, Rotation> recentRotations;
 
     // durée de validité configurable (en millisecondes)
     @Value("${jwt.refresh-expiration}")
     private Long refreshTokenDurationMs;
 
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${user-service.refresh-token.reuse-grace:10s}") Duration reuseGrace,
+                               @Value("${user-service.refresh-token.max-recent-rotations:10000}") long maxRecentRotations) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.reuseGrace = reuseGrace;
+        this.recentRotations = Caffeine.newBuilder()
+                .maximumSize(maxRecentRotations)
+                .expireAfterWrite(reuseGrace)
+                .build();
+    }
+
     /**
-     * 🔹 Crée un refresh token pour l’utilisateur
+     * 🔹 Émet un nouveau refresh token pour l’utilisateur sur cet appareil,
+     * en remplaçant le précédent (nouvelle famille)
+     *
+     * @return la valeur brute du token, jamais stockée
      */
+    public String issue(User user, String deviceId) {
+        String rawToken = newRawToken();
+        refreshTokenRepository.upsert(user.getId(), normalizeDeviceId(deviceId), hash(rawToken),
+                UUID.randomUUID().toString(), Instant.now().plusMillis(refreshTokenDurationMs));
+        return rawToken;
+    }
 
-    public RefreshToken createRefreshToken(User user) {
-        refreshTokenRepository.deleteByUser(user);
+    /**
+     * 🔹 Remplace un refresh token valide par un nouveau de la même famille.
+     * Le même token présenté à nouveau pendant la fenêtre de grâce renvoie le même résultat.
+     *
+     * @return le propriétaire du token, avec la valeur brute du nouveau token
+     */
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new RefreshTokenException("Refresh token invalide");
+        }
+        byte[] currentHash = hash(rawToken);
 
-        RefreshToken refreshToken = RefreshToken.builder()
-                .user(user)
-                .token(UUID.randomUUID().toString())
-                .expiryDate(Instant.now().plusMillis(refreshTokenDurationMs))
-                .build();
+        // Rafraîchissements concurrents du même token sur cette instance : une seule rotation,
+        // les autres attendent et reçoivent son résultat (une exception n'est pas gardée)
+        return recentRotations.get(ByteBuffer.wrap(currentHash), key -> rotateHash(currentHash));
+    }
+
+    private Rotation rotateHash(byte[] currentHash) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(currentHash).orElse(null);
+        if (token == null) {
+            revokeIfReused(currentHash);
+            throw new RefreshTokenException("Refresh token invalide");
+        }
+
+        verifyExpiration(token);
 
-        return refreshTokenRepository.save(refreshToken);
+        String newRawToken = newRawToken();
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenDurationMs);
+        // Deux rafraîchissements concurrents du même token : un seul remplace la ligne
+        if (refreshTokenRepository.rotate(token.getId(), currentHash, hash(newRawToken), expiryDate,
+                Instant.now()) == 0) {
+            throw new RefreshTokenException("Refresh token invalide");
+        }
+        return new Rotation(token.getUser(), newRawToken);
     }
 
     /**
-     * 🔹 Recherche un refresh token par sa valeur
+     * 🔹 Recherche un refresh token par sa valeur brute
      */
     public RefreshToken findByToken(String token) {
-        return refreshTokenRepository.findByToken(token)
+        return refreshTokenRepository.findByTokenHash(hash(token))
                 .orElseThrow(() -> new RefreshTokenException("Refresh token invalide"));
     }
 
@@ -63,5 +132,53 @@ public class RefreshTokenService {
     @Transactional
     public void deleteByUser(User user) {
         refreshTokenRepository.deleteByUser(user);
+        recentRotations.asMap().values().removeIf(rotation -> rotation.user().getId().equals(user.getId()));
+    }
+
+    /**
+     * Condensat SHA-256 (32 octets) d'un token brut, tel qu'il est stocké et indexé.
+     */
+    public static byte[] hash(String rawToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    // Token déjà remplacé : il a été copié, on révoque la famille pour couper l'appareil et le voleur.
+    // Remplacé depuis moins que la fenêtre de grâce (rotation faite par une autre instance) :
+    // rafraîchissement concurrent, refusé sans révoquer
+    private void revokeIfReused(byte[] presentedHash) {
+        refreshTokenRepository.findByPreviousTokenHash(presentedHash).ifPresent(token -> {
+            if (token.getRotatedAt() != null && token.getRotatedAt().plus(reuseGrace).isAfter(Instant.now())) {
+                log.debug("Refresh token remplacé depuis moins de {} pour l'utilisateur {}, famille conservée",
+                        reuseGrace, token.getUser().getId());
+                return;
+            }
+            refreshTokenRepository.delete(token);
+            log.warn("Réutilisation d'un refresh token remplacé pour l'utilisateur {} (famille {}), famille révoquée",
+                    token.getUser().getId(), token.getFamilyId());
+        });
+    }
+
+    private static String normalizeDeviceId(String deviceId) {
+        if (deviceId == null || deviceId.isBlank()) {
+            return DEFAULT_DEVICE_ID;
+        }
+        String trimmed = deviceId.trim();
+        return trimmed.length() > MAX_DEVICE_ID_LENGTH ? trimmed.substring(0, MAX_DEVICE_ID_LENGTH) : trimmed;
+    }
+
+    private static String newRawToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Résultat d'un rafraîchissement : le propriétaire et la valeur brute du nouveau token.
+     */
+    public record Rotation(User user, String refreshToken) {
     }
 }
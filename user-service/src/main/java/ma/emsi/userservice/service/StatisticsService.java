@@ -1,49 +1,85 @@
 package ma.emsi.userservice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ma.emsi.userservice.dto.response.CacheStatisticsResponse;
 import ma.emsi.userservice.dto.response.ConnectionStatisticsResponse;
 import ma.emsi.userservice.dto.response.DailyConnectionCount;
 import ma.emsi.userservice.dto.response.UserStatisticsResponse;
-import ma.emsi.userservice.entity.Role;
-import ma.emsi.userservice.entity.User;
-import ma.emsi.userservice.entity.UserAudit;
+import ma.emsi.userservice.entity.DailyConnectionRollup;
 import ma.emsi.userservice.enums.AccountStatus;
 import ma.emsi.userservice.enums.AuditAction;
+import ma.emsi.userservice.repository.DailyConnectionRollupRepository;
 import ma.emsi.userservice.repository.UserAuditRepository;
 import ma.emsi.userservice.repository.UserRepository;
+import ma.emsi.userservice.security.UserDetailsCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class StatisticsService {
     private final UserRepository userRepository;
     private final UserAuditRepository auditRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final ConnectionRollupService connectionRollupService;
+    private final DailyConnectionRollupRepository rollupRepository;
+    // Cache court du tableau de bord admin, absent si le TTL est nul
+    private final Cache<String, UserStatisticsResponse> userStatisticsCache;
+
+    private static final int CONNECTION_STATISTICS_DAYS = 30;
+    private static final String USER_STATISTICS_KEY = "users";
+
+    public StatisticsService(UserRepository userRepository,
+                             UserAuditRepository auditRepository,
+                             UserDetailsCache userDetailsCache,
+                             ConnectionRollupService connectionRollupService,
+                             DailyConnectionRollupRepository rollupRepository,
+                             @Value("${user-service.statistics.user-statistics-ttl:0s}") Duration userStatisticsTtl) {
+        this.userRepository = userRepository;
+        this.auditRepository = auditRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.connectionRollupService = connectionRollupService;
+        this.rollupRepository = rollupRepository;
+        this.userStatisticsCache = userStatisticsTtl.isZero() || userStatisticsTtl.isNegative()
+                ? null
+                : Caffeine.newBuilder()
+                        .maximumSize(1)
+                        .expireAfterWrite(userStatisticsTtl)
+                        .build();
+    }
 
     public UserStatisticsResponse getUserStatistics() {
-        // Count total users
-        long total = userRepository.count();
-
-        // Count by role
-        List<User> allUsers = userRepository.findAll();
-        Map<String, Long> byRole = allUsers.stream()
-                .flatMap(user -> user.getRoles().stream())
-                .map(role -> role.getName().name())
-                .collect(Collectors.groupingBy(
-                        roleName -> roleName,
-                        Collectors.counting()));
-
-        // Count by account status
-        long active = userRepository.countByAccountStatus(AccountStatus.ACTIVE);
-        long disabled = userRepository.countByAccountStatus(AccountStatus.DISABLED);
-        long locked = userRepository.countByAccountStatus(AccountStatus.LOCKED);
+        if (userStatisticsCache == null) {
+            return computeUserStatistics();
+        }
+        return userStatisticsCache.get(USER_STATISTICS_KEY, key -> computeUserStatistics());
+    }
+
+    private UserStatisticsResponse computeUserStatistics() {
+        // Count by role (grouped in the database)
+        Map<String, Long> byRole = new HashMap<>();
+        for (UserRepository.RoleCount row : userRepository.countUsersByRole()) {
+            byRole.put(row.getRole().name(), row.getUsers());
+        }
+
+        // Count by account status (grouped in the database), total is their sum
+        Map<AccountStatus, Long> byStatus = new EnumMap<>(AccountStatus.class);
+        for (UserRepository.StatusCount row : userRepository.countUsersByAccountStatus()) {
+            byStatus.put(row.getStatus(), row.getUsers());
+        }
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
 
         // Count new users this month
         YearMonth currentMonth = YearMonth.now();
@@ -53,43 +89,53 @@ public class StatisticsService {
         return new UserStatisticsResponse(
                 total,
                 byRole,
-                active,
-                disabled,
-                locked,
+                byStatus.getOrDefault(AccountStatus.ACTIVE, 0L),
+                byStatus.getOrDefault(AccountStatus.DISABLED, 0L),
+                byStatus.getOrDefault(AccountStatus.LOCKED, 0L),
                 newThisMonth);
     }
 
     public ConnectionStatisticsResponse getConnectionStatistics() {
-        // Query LOGIN audits for last 30 days
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<UserAudit> loginAudits = auditRepository.findByActionAndTimestampBetween(
-                AuditAction.LOGIN,
-                thirtyDaysAgo,
-                LocalDateTime.now());
-
-        // Group by date
-        Map<LocalDate, Long> countsByDate = loginAudits.stream()
-                .collect(Collectors.groupingBy(
-                        audit -> audit.getTimestamp().toLocalDate(),
-                        Collectors.counting()));
-
-        List<DailyConnectionCount> dailyCounts = countsByDate.entrySet().stream()
-                .map(entry -> new DailyConnectionCount(entry.getKey(), entry.getValue()))
-                .sorted((a, b) -> a.date().compareTo(b.date()))
-                .collect(Collectors.toList());
+        // Last 30 days, today included: closed days come from the rollup table, filled on demand
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(CONNECTION_STATISTICS_DAYS - 1);
+        LocalDate firstOpenDay = connectionRollupService.rollUpClosedDays(firstDay);
 
-        // Group by role
+        Map<LocalDate, Long> countsByDate = new TreeMap<>();
         Map<String, Long> byRole = new HashMap<>();
-        for (UserAudit audit : loginAudits) {
-            User user = userRepository.findById(audit.getUserId()).orElse(null);
-            if (user != null) {
-                for (Role role : user.getRoles()) {
-                    String roleName = role.getName().name();
-                    byRole.put(roleName, byRole.getOrDefault(roleName, 0L) + 1);
-                }
+        for (DailyConnectionRollup rollup : rollupRepository.findByDayGreaterThanEqualOrderByDayAsc(firstDay)) {
+            if (rollup.getConnectionCount() == 0 || !rollup.getDay().isBefore(firstOpenDay)) {
+                continue;
+            }
+            if (DailyConnectionRollup.ALL_ROLES.equals(rollup.getRoleName())) {
+                countsByDate.merge(rollup.getDay(), rollup.getConnectionCount(), Long::sum);
+            } else {
+                byRole.merge(rollup.getRoleName(), rollup.getConnectionCount(), Long::sum);
             }
         }
 
+        // Open days (today, and yesterday just after midnight) are aggregated live
+        LocalDateTime startOfOpenDays = (firstOpenDay.isBefore(firstDay) ? firstDay : firstOpenDay).atStartOfDay();
+        LocalDateTime startOfTomorrow = today.plusDays(1).atStartOfDay();
+        auditRepository.countByActionPerDay(AuditAction.LOGIN, startOfOpenDays, startOfTomorrow)
+                .forEach(row -> countsByDate.merge(row.getDay(), row.getConnections(), Long::sum));
+        auditRepository.countByActionPerDayAndRole(AuditAction.LOGIN, startOfOpenDays, startOfTomorrow)
+                .forEach(row -> byRole.merge(row.getRole().name(), row.getConnections(), Long::sum));
+
+        List<DailyConnectionCount> dailyCounts = countsByDate.entrySet().stream()
+                .map(entry -> new DailyConnectionCount(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
         return new ConnectionStatisticsResponse(dailyCounts, byRole);
     }
+
+    public CacheStatisticsResponse getUserDetailsCacheStatistics() {
+        CacheStats stats = userDetailsCache.stats();
+        return new CacheStatisticsResponse(
+                userDetailsCache.size(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount());
+    }
 }
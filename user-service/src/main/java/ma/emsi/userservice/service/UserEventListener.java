@@ -0,0 +1,61 @@
+package ma.emsi.userservice.service;
+
+import ma.emsi.userservice.dto.event.UserEvent;
+import ma.emsi.userservice.security.AccountChangeTracker;
+import ma.emsi.userservice.security.UserDetailsCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Applies the account changes made on any user-service instance (including this one)
+ * to the local UserDetails cache and AccountChangeTracker.
+ */
+@Component
+public class UserEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventListener.class);
+
+    /**
+     * Changes that make tokens and identity envelopes already issued to the user obsolete
+     */
+    private static final Set<String> ACCOUNT_CHANGES = Set.of(
+            "USER_DISABLED", "ROLE_ASSIGNED", "ROLE_REMOVED", "ROLES_UPDATED");
+
+    /**
+     * Changes that only make the cached UserDetails obsolete
+     */
+    private static final Set<String> CACHE_CHANGES = Set.of(
+            "USER_ENABLED", "PASSWORD_CHANGED", "USER_LOGGED_OUT", "USER_DELETED");
+
+    private final AccountChangeTracker accountChangeTracker;
+    private final UserDetailsCache userDetailsCache;
+
+    public UserEventListener(AccountChangeTracker accountChangeTracker, UserDetailsCache userDetailsCache) {
+        this.accountChangeTracker = accountChangeTracker;
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @KafkaListener(
+            id = "userDetailsCacheInvalidation",
+            topics = "${spring.kafka.topic.user-events:user-events}",
+            idIsGroup = false,
+            containerFactory = "userEventListenerContainerFactory")
+    public void onUserEvent(UserEvent event) {
+        if (event == null || event.userId() == null || event.email() == null) {
+            return;
+        }
+
+        if (ACCOUNT_CHANGES.contains(event.eventType())) {
+            accountChangeTracker.accountChanged(event.userId(), event.email());
+        } else if (CACHE_CHANGES.contains(event.eventType())) {
+            userDetailsCache.evict(event.email());
+        } else {
+            return;
+        }
+        logger.debug("Cache invalidated for user {} after {}", event.userId(), event.eventType());
+    }
+}
@@ -5,15 +5,16 @@ import ma.emsi.userservice.entity.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
  * Service for publishing user-related events to Kafka.
- * Implements non-blocking event publishing with error handling.
- * If event publishing fails, the error is logged but the primary operation
+ * Events are written to the outbox in the caller's transaction and published by
+ * OutboxRelay once it commits, so a slow or unavailable broker never delays the request.
+ * If writing an event fails, the error is logged but the primary operation
  * continues.
  */
 @Service
@@ -21,13 +22,13 @@ public class UserEventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(UserEventPublisher.class);
 
-    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final OutboxService outboxService;
 
     @Value("${spring.kafka.topic.user-events:user-events}")
     private String userEventsTopic;
 
-    public UserEventPublisher(KafkaTemplate<String, UserEvent> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public UserEventPublisher(OutboxService outboxService) {
+        this.outboxService = outboxService;
     }
 
     /**
@@ -48,8 +49,8 @@ public class UserEventPublisher {
                                     .map(role -> role.getName().name())
                                     .toList()));
 
-            kafkaTemplate.send(userEventsTopic, user.getId().toString(), event);
-            logger.info("Published USER_REGISTERED event for user: {}", user.getEmail());
+            outboxService.enqueueEvent(userEventsTopic, user.getId().toString(), event);
+            logger.info("Queued USER_REGISTERED event for user: {}", user.getEmail());
 
         } catch (Exception e) {
             logger.error("Failed to publish USER_REGISTERED event for user: {}. Error: {}",
@@ -73,8 +74,8 @@ public class UserEventPublisher {
                     email,
                     Map.of("reason", reason));
 
-            kafkaTemplate.send(userEventsTopic, userId.toString(), event);
-            logger.info("Published USER_DISABLED event for user: {}", email);
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued USER_DISABLED event for user: {}", email);
 
         } catch (Exception e) {
             logger.error("Failed to publish USER_DISABLED event for user: {}. Error: {}",
@@ -97,8 +98,8 @@ public class UserEventPublisher {
                     userId,
                     email);
 
-            kafkaTemplate.send(userEventsTopic, userId.toString(), event);
-            logger.info("Published USER_ENABLED event for user: {}", email);
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued USER_ENABLED event for user: {}", email);
 
         } catch (Exception e) {
             logger.error("Failed to publish USER_ENABLED event for user: {}. Error: {}",
@@ -120,8 +121,8 @@ public class UserEventPublisher {
                     userId,
                     email);
 
-            kafkaTemplate.send(userEventsTopic, userId.toString(), event);
-            logger.info("Published PASSWORD_CHANGED event for user: {}", email);
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued PASSWORD_CHANGED event for user: {}", email);
 
         } catch (Exception e) {
             logger.error("Failed to publish PASSWORD_CHANGED event for user: {}. Error: {}",
@@ -145,8 +146,8 @@ public class UserEventPublisher {
                     email,
                     Map.of("role", roleName));
 
-            kafkaTemplate.send(userEventsTopic, userId.toString(), event);
-            logger.info("Published ROLE_ASSIGNED event for user: {} with role: {}", email, roleName);
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued ROLE_ASSIGNED event for user: {} with role: {}", email, roleName);
 
         } catch (Exception e) {
             logger.error("Failed to publish ROLE_ASSIGNED event for user: {}. Error: {}",
@@ -155,6 +156,102 @@ public class UserEventPublisher {
         }
     }
 
+    /**
+     * Publishes a ROLE_REMOVED event when a role is removed from a user.
+     * 
+     * @param userId   The ID of the user
+     * @param email    The email of the user
+     * @param roleName The name of the removed role
+     */
+    public void publishRoleRemoved(Long userId, String email, String roleName) {
+        try {
+            UserEvent event = UserEvent.of(
+                    "ROLE_REMOVED",
+                    userId,
+                    email,
+                    Map.of("role", roleName));
+
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued ROLE_REMOVED event for user: {} with role: {}", email, roleName);
+
+        } catch (Exception e) {
+            logger.error("Failed to publish ROLE_REMOVED event for user: {}. Error: {}",
+                    email, e.getMessage(), e);
+            // Non-blocking: do not throw exception
+        }
+    }
+
+    /**
+     * Publishes a ROLES_UPDATED event when an admin replaces the roles of a user.
+     * 
+     * @param userId The ID of the user
+     * @param email  The email of the user
+     * @param roles  The new roles of the user
+     */
+    public void publishRolesUpdated(Long userId, String email, List<String> roles) {
+        try {
+            UserEvent event = UserEvent.of(
+                    "ROLES_UPDATED",
+                    userId,
+                    email,
+                    Map.of("roles", roles));
+
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued ROLES_UPDATED event for user: {} with roles: {}", email, roles);
+
+        } catch (Exception e) {
+            logger.error("Failed to publish ROLES_UPDATED event for user: {}. Error: {}",
+                    email, e.getMessage(), e);
+            // Non-blocking: do not throw exception
+        }
+    }
+
+    /**
+     * Publishes a USER_LOGGED_OUT event when a user logs out.
+     * 
+     * @param userId The ID of the user
+     * @param email  The email of the user
+     */
+    public void publishUserLoggedOut(Long userId, String email) {
+        try {
+            UserEvent event = UserEvent.of(
+                    "USER_LOGGED_OUT",
+                    userId,
+                    email);
+
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued USER_LOGGED_OUT event for user: {}", email);
+
+        } catch (Exception e) {
+            logger.error("Failed to publish USER_LOGGED_OUT event for user: {}. Error: {}",
+                    email, e.getMessage(), e);
+            // Non-blocking: do not throw exception
+        }
+    }
+
+    /**
+     * Publishes a USER_DELETED event when a user account is deleted.
+     * 
+     * @param userId The ID of the deleted user
+     * @param email  The email of the deleted user
+     */
+    public void publishUserDeleted(Long userId, String email) {
+        try {
+            UserEvent event = UserEvent.of(
+                    "USER_DELETED",
+                    userId,
+                    email);
+
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued USER_DELETED event for user: {}", email);
+
+        } catch (Exception e) {
+            logger.error("Failed to publish USER_DELETED event for user: {}. Error: {}",
+                    email, e.getMessage(), e);
+            // Non-blocking: do not throw exception
+        }
+    }
+
     /**
      * Publishes a PROFILE_COMPLETED event when a user completes their profile.
      * 
@@ -167,8 +264,8 @@ public class UserEventPublisher {
                     userId,
                     null);
 
-            kafkaTemplate.send(userEventsTopic, userId.toString(), event);
-            logger.info("Published PROFILE_COMPLETED event for user ID: {}", userId);
+            outboxService.enqueueEvent(userEventsTopic, userId.toString(), event);
+            logger.info("Queued PROFILE_COMPLETED event for user ID: {}", userId);
 
         } catch (Exception e) {
             logger.error("Failed to publish PROFILE_COMPLETED event for user ID: {}. Error: {}",
@@ -176,4 +273,31 @@ public class UserEventPublisher {
             // Non-blocking: do not throw exception
         }
     }
+
+    /**
+     * Publishes a single USERS_IMPORTED event summarizing a bulk import,
+     * instead of one USER_REGISTERED event per created user.
+     * 
+     * @param userIds     The IDs of the created users
+     * @param usersByRole The number of created users per role
+     */
+    public void publishUsersImported(List<Long> userIds, Map<String, Long> usersByRole) {
+        try {
+            UserEvent event = UserEvent.of(
+                    "USERS_IMPORTED",
+                    null,
+                    null,
+                    Map.of("count", userIds.size(),
+                            "userIds", userIds,
+                            "roles", usersByRole));
+
+            outboxService.enqueueEvent(userEventsTopic, null, event);
+            logger.info("Queued USERS_IMPORTED event for {} users", userIds.size());
+
+        } catch (Exception e) {
+            logger.error("Failed to publish USERS_IMPORTED event for {} users. Error: {}",
+                    userIds.size(), e.getMessage(), e);
+            // Non-blocking: do not throw exception
+        }
+    }
 }
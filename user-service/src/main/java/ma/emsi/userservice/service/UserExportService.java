@@ -0,0 +1,170 @@
+package ma.emsi.userservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ma.emsi.userservice.dto.response.UserResponse;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.enums.AccountStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams users to an output stream, as NDJSON (one UserResponse per line) or CSV.
+ *
+ * Users are read with a single forward-only, read-only JDBC cursor ordered by id, with
+ * their roles aggregated by the query, and each row is written as soon as it is read.
+ * Memory use does not depend on the number of users.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    private static final String CSV_HEADER = "id,email,firstName,lastName,phoneNumber,adresse,ville,pays,roles";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public UserExportService(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${user-service.users.export-fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * Write the users matching the optional filters, ordered by id.
+     *
+     * @param format       output format
+     * @param role         only users having this role, if not null
+     * @param status       only users with this account status, if not null
+     * @param createdAfter only users created after this date, if not null
+     * @param out          the stream to write to (not closed)
+     */
+    public void export(Format format, RoleName role, AccountStatus status, LocalDateTime createdAfter,
+                       OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT u.id, u.email, u.first_name, u.last_name, u.phone_number, u.adresse, u.ville, u.pays, "
+                        + "GROUP_CONCAT(r.name) AS role_names "
+                        + "FROM users u "
+                        + "LEFT JOIN user_roles ur ON ur.user_id = u.id "
+                        + "LEFT JOIN roles r ON r.id = ur.role_id "
+                        + "WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (role != null) {
+            sql.append(" AND u.id IN (SELECT fur.user_id FROM user_roles fur JOIN roles fr ON fr.id = fur.role_id "
+                    + "WHERE fr.name = ?)");
+            params.add(role.name());
+        }
+        if (status != null) {
+            sql.append(" AND u.account_status = ?");
+            params.add(status.name());
+        }
+        if (createdAfter != null) {
+            sql.append(" AND u.created_at > ?");
+            params.add(Timestamp.valueOf(createdAfter));
+        }
+        sql.append(" GROUP BY u.id ORDER BY u.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    writeRow(format, toUserResponse(rs), writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // The client went away: stop reading, the cursor is closed by JdbcTemplate
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private UserResponse toUserResponse(ResultSet rs) throws SQLException {
+        String roleNames = rs.getString("role_names");
+        Set<String> roles = roleNames == null
+                ? Set.of()
+                : new LinkedHashSet<>(Arrays.asList(roleNames.split(",")));
+        return new UserResponse(
+                rs.getLong("id"),
+                rs.getString("email"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("phone_number"),
+                rs.getString("adresse"),
+                rs.getString("ville"),
+                rs.getString("pays"),
+                roles);
+    }
+
+    private void writeRow(Format format, UserResponse user, Writer writer) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(user));
+        } else {
+            writer.write(String.join(",",
+                    String.valueOf(user.id()),
+                    csv(user.email()),
+                    csv(user.FirstName()),
+                    csv(user.LastName()),
+                    csv(user.phoneNumber()),
+                    csv(user.adresse()),
+                    csv(user.ville()),
+                    csv(user.pays()),
+                    csv(String.join(";", user.roles()))));
+        }
+        writer.write('\n');
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,435 @@
+package ma.emsi.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ma.emsi.userservice.dto.request.PasswordPolicy;
+import ma.emsi.userservice.dto.request.UserImportRow;
+import ma.emsi.userservice.dto.response.UserImportResponse;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.exception.UserAlreadyExistsException;
+import ma.emsi.userservice.repository.RoleRepository;
+import ma.emsi.userservice.repository.UserProfileRepository;
+import ma.emsi.userservice.repository.UserRepository;
+import ma.emsi.userservice.security.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Creates whole cohorts of users at once (admin bulk import, JSON or CSV).
+ *
+ * Every row is validated in a single pass, then the emails and CINs are checked against
+ * the database with one IN query per chunk instead of one query per row. The passwords
+ * of the valid rows are hashed in parallel on the password hashing pool, and the users,
+ * their roles and their profiles are inserted with JDBC batches in a single transaction,
+ * together with one USERS_IMPORTED event. Invalid rows are reported and skipped; they do
+ * not prevent the valid ones from being created.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern CIN = Pattern.compile("^[A-Z]{1,2}\\d{5,6}$");
+    private static final Pattern PASSWORD = Pattern.compile(PasswordPolicy.PATTERN);
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (email, password, first_name, last_name, phone_number, adresse, ville, pays, "
+                    + "enabled, account_status, failed_login_attempts, profile_complete, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, 'ACTIVE', 0, ?, ?, ?)";
+    private static final String INSERT_ROLE_SQL =
+            "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    private static final String INSERT_PROFILE_SQL =
+            "INSERT INTO user_profiles (user_id, cin, date_naissance, lieu_naissance, nationalite, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final RoleRepository roleRepository;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final UserEventPublisher eventPublisher;
+    private final int maxRows;
+    private final int batchSize;
+
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             UserRepository userRepository,
+                             UserProfileRepository userProfileRepository,
+                             RoleRepository roleRepository,
+                             BoundedPasswordEncoder passwordEncoder,
+                             UserEventPublisher eventPublisher,
+                             @Value("${user-service.users.import-max-rows:5000}") int maxRows,
+                             @Value("${user-service.users.import-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.maxRows = maxRows;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import the rows and report the outcome of each of them.
+     *
+     * @param rows the users to create, in file order
+     * @return the per-row report
+     */
+    public UserImportResponse importUsers(List<UserImportRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("Aucun utilisateur à importer");
+        }
+        if (rows.size() > maxRows) {
+            throw new IllegalArgumentException("Import limité à " + maxRows + " utilisateurs");
+        }
+
+        Map<RoleName, Long> roleIds = new HashMap<>();
+        for (Role role : roleRepository.findAll()) {
+            roleIds.put(role.getName(), role.getId());
+        }
+
+        // 1. Validation de chaque ligne et doublons dans le fichier
+        List<ValidatedRow> validated = new ArrayList<>(rows.size());
+        Set<String> emailsInFile = new HashSet<>();
+        Set<String> cinsInFile = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ValidatedRow row = validate(i + 1, rows.get(i), roleIds);
+            if (row.emailKey() != null && !emailsInFile.add(row.emailKey())) {
+                row.errors().add("Email en double dans le fichier");
+            }
+            if (row.cin() != null && !cinsInFile.add(row.cin())) {
+                row.errors().add("CIN en double dans le fichier");
+            }
+            validated.add(row);
+        }
+
+        // 2. Unicité en base, une requête par paquet d'emails et de CIN
+        Set<String> existingEmails = lowerCase(inChunks(emailsInFile, userRepository::findExistingEmails));
+        Set<String> existingCins = new HashSet<>(inChunks(cinsInFile, userProfileRepository::findExistingCins));
+        List<ValidatedRow> accepted = new ArrayList<>();
+        for (ValidatedRow row : validated) {
+            if (row.emailKey() != null && existingEmails.contains(row.emailKey())) {
+                row.errors().add("Cet email est déjà utilisé");
+            }
+            if (row.cin() != null && existingCins.contains(row.cin())) {
+                row.errors().add("Ce CIN est déjà utilisé par un autre utilisateur");
+            }
+            if (row.errors().isEmpty()) {
+                accepted.add(row);
+            }
+        }
+
+        // 3. Hachage en parallèle sur le pool BCrypt, puis insertion par lots
+        Map<String, Long> createdIds = accepted.isEmpty() ? Map.of() : insert(accepted);
+
+        List<UserImportResponse.RowResult> results = new ArrayList<>(validated.size());
+        for (ValidatedRow row : validated) {
+            results.add(new UserImportResponse.RowResult(row.row(), row.source().email(),
+                    row.errors().isEmpty() ? createdIds.get(row.emailKey()) : null,
+                    row.errors().isEmpty() ? List.of() : List.copyOf(row.errors())));
+        }
+
+        log.info("Import en masse : {} utilisateur(s) créé(s), {} ligne(s) rejetée(s)",
+                accepted.size(), validated.size() - accepted.size());
+        return new UserImportResponse(validated.size(), accepted.size(), validated.size() - accepted.size(), results);
+    }
+
+    /**
+     * Read the rows of a CSV file whose header names the UserImportRow fields.
+     * Columns may appear in any order; unknown columns are ignored.
+     *
+     * @param reader the CSV content
+     * @return the rows, in file order
+     */
+    public List<UserImportRow> parseCsv(Reader reader) {
+        try (BufferedReader in = new BufferedReader(reader)) {
+            List<String> header = readCsvRecord(in);
+            if (header == null) {
+                throw new IllegalArgumentException("Fichier CSV vide");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("email")) {
+                throw new IllegalArgumentException("Colonne email absente de l'en-tête CSV");
+            }
+
+            List<UserImportRow> rows = new ArrayList<>();
+            List<String> record;
+            while ((record = readCsvRecord(in)) != null) {
+                List<String> fields = record;
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                if (rows.size() == maxRows) {
+                    throw new IllegalArgumentException("Import limité à " + maxRows + " utilisateurs");
+                }
+                Function<String, String> column = name -> {
+                    Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+                    return index != null && index < fields.size() ? fields.get(index) : null;
+                };
+                rows.add(new UserImportRow(
+                        column.apply("email"), column.apply("password"),
+                        column.apply("firstName"), column.apply("lastName"),
+                        column.apply("phoneNumber"), column.apply("adresse"),
+                        column.apply("ville"), column.apply("pays"), column.apply("role"),
+                        column.apply("cin"), column.apply("dateNaissance"),
+                        column.apply("lieuNaissance"), column.apply("nationalite")));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ValidatedRow validate(int rowNumber, UserImportRow source, Map<RoleName, Long> roleIds) {
+        List<String> errors = new ArrayList<>();
+
+        String email = trimToNull(source.email());
+        if (email == null) {
+            errors.add("Email obligatoire");
+        } else if (!EMAIL.matcher(email).matches()) {
+            errors.add("Email invalide");
+        }
+
+        String password = source.password();
+        if (password == null || password.isBlank()) {
+            errors.add("Mot de passe obligatoire");
+        } else if (password.length() < PasswordPolicy.MIN_LENGTH || password.length() > PasswordPolicy.MAX_LENGTH) {
+            errors.add(PasswordPolicy.SIZE_MESSAGE);
+        } else if (!PASSWORD.matcher(password).matches()) {
+            errors.add(PasswordPolicy.PATTERN_MESSAGE);
+        }
+
+        if (trimToNull(source.firstName()) == null) {
+            errors.add("Prénom obligatoire");
+        }
+        if (trimToNull(source.lastName()) == null) {
+            errors.add("Nom obligatoire");
+        }
+        // Mêmes champs obligatoires qu'à l'inscription
+        if (trimToNull(source.phoneNumber()) == null) {
+            errors.add("Numéro de téléphone obligatoire");
+        }
+        if (trimToNull(source.adresse()) == null) {
+            errors.add("Adresse obligatoire");
+        }
+        if (trimToNull(source.ville()) == null) {
+            errors.add("Ville obligatoire");
+        }
+        if (trimToNull(source.pays()) == null) {
+            errors.add("Pays obligatoire");
+        }
+
+        RoleName role = null;
+        Long roleId = null;
+        String roleName = trimToNull(source.role());
+        String normalizedRole = roleName == null ? RoleName.ROLE_DOCTORANT.name()
+                : roleName.toUpperCase(Locale.ROOT).startsWith("ROLE_") ? roleName.toUpperCase(Locale.ROOT)
+                : "ROLE_" + roleName.toUpperCase(Locale.ROOT);
+        try {
+            role = RoleName.valueOf(normalizedRole);
+            roleId = roleIds.get(role);
+        } catch (IllegalArgumentException e) {
+            // signalé ci-dessous
+        }
+        if (roleId == null) {
+            errors.add("Rôle invalide: " + roleName);
+        }
+
+        String cin = trimToNull(source.cin());
+        if (cin != null && !CIN.matcher(cin).matches()) {
+            errors.add("Format CIN invalide (ex: A123456 ou AB123456)");
+        }
+
+        LocalDate dateNaissance = null;
+        String date = trimToNull(source.dateNaissance());
+        if (date != null) {
+            try {
+                dateNaissance = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                errors.add("Date de naissance invalide (format AAAA-MM-JJ)");
+            }
+        }
+
+        return new ValidatedRow(rowNumber, source, email,
+                email != null ? email.toLowerCase(Locale.ROOT) : null,
+                role, roleId, cin, dateNaissance, errors);
+    }
+
+    /**
+     * Hash the passwords, then insert users, roles and profiles with JDBC batches and queue
+     * the import event, all in one transaction.
+     *
+     * @return the ids of the created users, by lower-case email
+     */
+    private Map<String, Long> insert(List<ValidatedRow> accepted) {
+        List<String> hashes = passwordEncoder.encodeAll(accepted.stream().map(row -> row.source().password()).toList());
+
+        try {
+            return transactionTemplate.execute(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+                List<Object[]> users = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    ValidatedRow row = accepted.get(i);
+                    UserImportRow source = row.source();
+                    users.add(new Object[] {
+                            row.email(), hashes.get(i),
+                            source.firstName().trim(), source.lastName().trim(),
+                            source.phoneNumber().trim(), source.adresse().trim(),
+                            source.ville().trim(), source.pays().trim(),
+                            row.isProfileComplete(), now, now });
+                }
+                batchInsert(INSERT_USER_SQL, users);
+
+                Map<String, Long> ids = new HashMap<>();
+                inChunks(accepted.stream().map(ValidatedRow::email).toList(), userRepository::findIdsByEmailIn)
+                        .forEach(user -> ids.put(user.getEmail().toLowerCase(Locale.ROOT), user.getId()));
+
+                List<Object[]> roles = new ArrayList<>(accepted.size());
+                List<Object[]> profiles = new ArrayList<>();
+                Map<String, Long> usersByRole = new TreeMap<>();
+                for (ValidatedRow row : accepted) {
+                    Long userId = ids.get(row.emailKey());
+                    roles.add(new Object[] { userId, row.roleId() });
+                    usersByRole.merge(row.role().name(), 1L, Long::sum);
+                    if (row.hasProfile()) {
+                        UserImportRow source = row.source();
+                        profiles.add(new Object[] {
+                                userId, row.cin(),
+                                row.dateNaissance() != null ? Date.valueOf(row.dateNaissance()) : null,
+                                trimToNull(source.lieuNaissance()), trimToNull(source.nationalite()),
+                                now, now });
+                    }
+                }
+                batchInsert(INSERT_ROLE_SQL, roles);
+                batchInsert(INSERT_PROFILE_SQL, profiles);
+
+                eventPublisher.publishUsersImported(
+                        accepted.stream().map(row -> ids.get(row.emailKey())).toList(), usersByRole);
+
+                return ids;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Email ou CIN créé par une autre requête entre la vérification et l'insertion
+            throw new UserAlreadyExistsException("Un email ou un CIN a été utilisé pendant l'import, réessayez");
+        }
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static <T> List<T> inChunks(Collection<String> values, Function<Collection<String>, List<T>> query) {
+        List<String> list = new ArrayList<>(values);
+        List<T> results = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_CLAUSE_SIZE) {
+            results.addAll(query.apply(list.subList(from, Math.min(from + IN_CLAUSE_SIZE, list.size()))));
+        }
+        return results;
+    }
+
+    private static Set<String> lowerCase(List<String> values) {
+        Set<String> lower = new HashSet<>();
+        values.forEach(value -> lower.add(value.toLowerCase(Locale.ROOT)));
+        return lower;
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Read one CSV record (RFC 4180: quoted fields may contain commas, quotes and line breaks).
+     *
+     * @return the fields, or null at end of input
+     */
+    private static List<String> readCsvRecord(BufferedReader in) throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * A row after validation; errors is empty when the row can be created.
+     */
+    private record ValidatedRow(int row, UserImportRow source, String email, String emailKey,
+                                RoleName role, Long roleId, String cin, LocalDate dateNaissance, List<String> errors) {
+
+        boolean hasProfile() {
+            return cin != null || dateNaissance != null
+                    || trimToNull(source.lieuNaissance()) != null || trimToNull(source.nationalite()) != null;
+        }
+
+        boolean isProfileComplete() {
+            return cin != null && dateNaissance != null
+                    && trimToNull(source.lieuNaissance()) != null && trimToNull(source.nationalite()) != null;
+        }
+    }
+}
@@ -6,22 +6,34 @@ import ma.emsi.userservice.dto.request.ChangePasswordRequest;
 import ma.emsi.userservice.dto.request.ForgotPasswordRequest;
 import ma.emsi.userservice.dto.request.ProfileCompleteRequest;
 import ma.emsi.userservice.dto.response.ProfileData;
+import ma.emsi.userservice.dto.response.UserBatchResponse;
 import ma.emsi.userservice.dto.response.UserDetailedResponse;
+import ma.emsi.userservice.dto.response.UserPageResponse;
+import ma.emsi.userservice.dto.response.UserResponse;
 import ma.emsi.userservice.entity.Role;
 import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.entity.UserProfile;
+import ma.emsi.userservice.enums.AccountStatus;
 import ma.emsi.userservice.exception.DuplicateCinException;
 import ma.emsi.userservice.repository.UserRepository;
 import ma.emsi.userservice.repository.RoleRepository;
 import ma.emsi.userservice.repository.UserProfileRepository;
+import ma.emsi.userservice.security.AccountChangeTracker;
+import ma.emsi.userservice.security.UserDetailsCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import ma.emsi.userservice.dto.request.ResetPasswordRequest;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,9 +49,69 @@ public class UserService {
     private final UserProfileRepository userProfileRepository;
     private final AuditService auditService;
     private final UserEventPublisher eventPublisher;
+    private final AccountChangeTracker accountChangeTracker;
+    private final UserDetailsCache userDetailsCache;
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Value("${user-service.batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${user-service.users.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${user-service.users.search-min-length:2}")
+    private int searchMinLength;
+
+    /**
+     * Page d'utilisateurs triés par id, après afterId (pagination par clé).
+     * Filtres optionnels : rôle, statut du compte, création après une date.
+     */
+    @Transactional(readOnly = true)
+    public UserPageResponse findPage(Long afterId, int size, RoleName role,
+            AccountStatus status, LocalDateTime createdAfter) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException(
+                    "Taille de page invalide : " + size + " (entre 1 et " + maxPageSize + ")");
+        }
+
+        List<Long> ids = userRepository.findIdsAfter(afterId != null ? afterId : 0L, role, status,
+                createdAfter, Limit.of(size + 1));
+        return toPage(ids, size);
+    }
+
+    /**
+     * Recherche par préfixe du nom, du prénom, de l'email ou du CIN, triée par id
+     * et paginée par clé comme findPage. Filtre optionnel : rôle.
+     */
+    @Transactional(readOnly = true)
+    public UserPageResponse search(String query, RoleName role, Long afterId, int size) {
+        String prefix = query != null ? query.trim() : "";
+        if (prefix.length() < searchMinLength) {
+            throw new IllegalArgumentException(
+                    "Recherche trop courte : au moins " + searchMinLength + " caractères");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException(
+                    "Taille de page invalide : " + size + " (entre 1 et " + maxPageSize + ")");
+        }
+
+        // Les jokers LIKE saisis sont cherchés tels quels
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<Long> ids = userRepository.searchIdsByPrefix(pattern, role != null ? role.name() : null,
+                afterId != null ? afterId : 0L, size + 1);
+        return toPage(ids, size);
+    }
+
+    // Un id de plus que la taille demandée indique s'il reste une page
+    private UserPageResponse toPage(List<Long> ids, int size) {
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+
+        List<UserResponse> users = userRepository.findAllWithRolesByIdIn(pageIds).stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map(this::toUserResponse)
+                .toList();
+
+        return new UserPageResponse(users, hasNext ? pageIds.get(pageIds.size() - 1) : null);
     }
 
     public User findByEmail(String email) {
@@ -52,6 +124,29 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Utilisateur avec l'ID " + id + " non trouvé"));
     }
 
+    /**
+     * Récupérer plusieurs utilisateurs en une seule requête (communication inter-services).
+     * Les IDs introuvables sont renvoyés explicitement dans "missing".
+     */
+    @Transactional(readOnly = true)
+    public UserBatchResponse findAllByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Trop d'identifiants : " + distinctIds.size() + " (maximum " + maxBatchSize + ")");
+        }
+
+        Map<Long, UserResponse> users = new LinkedHashMap<>();
+        userRepository.findAllWithRolesByIdIn(distinctIds)
+                .forEach(user -> users.put(user.getId(), toUserResponse(user)));
+
+        List<Long> missing = distinctIds.stream()
+                .filter(id -> !users.containsKey(id))
+                .toList();
+
+        return new UserBatchResponse(users, missing);
+    }
+
     public User assignRole(Long userId, RoleName roleName) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
@@ -60,7 +155,10 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Rôle introuvable"));
 
         user.getRoles().add(role);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        accountChangeTracker.accountChanged(userId, user.getEmail());
+        eventPublisher.publishRoleAssigned(userId, user.getEmail(), roleName.name());
+        return saved;
     }
 
     public User removeRole(Long userId, RoleName roleName) {
@@ -68,7 +166,10 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
 
         user.getRoles().removeIf(role -> role.getName().equals(roleName));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        accountChangeTracker.accountChanged(userId, user.getEmail());
+        eventPublisher.publishRoleRemoved(userId, user.getEmail(), roleName.name());
+        return saved;
     }
 
     public User updateUser(User updatedUser) {
@@ -89,6 +190,8 @@ public class UserService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
         refreshTokenService.deleteByUser(user);
+        userDetailsCache.evict(email);
+        eventPublisher.publishUserLoggedOut(user.getId(), email);
     }
 
     public void changePassword(String email, @Valid ChangePasswordRequest request) {
@@ -103,6 +206,8 @@ public class UserService {
         // Mettre à jour le mot de passe (validation déjà faite par @Valid)
         user.setPassword(passwordEncoder.encode(request.newPassword()));
         userRepository.save(user);
+        userDetailsCache.evict(email);
+        eventPublisher.publishPasswordChanged(user.getId(), email);
     }
 
     public void requestPasswordReset(@Valid @RequestBody ForgotPasswordRequest request) {
@@ -129,6 +234,8 @@ public class UserService {
         // Encoder et sauvegarder le nouveau mot de passe
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userDetailsCache.evict(email);
+        eventPublisher.publishPasswordChanged(user.getId(), email);
     }
 
     public void deleteUser(Long id) {
@@ -141,6 +248,8 @@ public class UserService {
 
         // Ensuite supprimer l'utilisateur
         userRepository.deleteById(id);
+        userDetailsCache.evict(user.getEmail());
+        eventPublisher.publishUserDeleted(id, user.getEmail());
     }
 
     @Transactional
@@ -247,6 +356,9 @@ public class UserService {
         // Invalidate all refresh tokens
         refreshTokenService.deleteByUser(user);
 
+        // Stop trusting gateway identity envelopes for this user
+        accountChangeTracker.accountChanged(userId, user.getEmail());
+
         // Log account disabled audit
         auditService.logAccountDisabled(userId, reason, adminId);
 
@@ -268,6 +380,7 @@ public class UserService {
         user.setLockoutExpiration(null);
 
         userRepository.save(user);
+        userDetailsCache.evict(user.getEmail());
 
         // Log account enabled audit
         auditService.logAccountEnabled(userId, adminId);
@@ -1,22 +1,42 @@
 package ma.emsi.userservice.util;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.regex.Pattern;
+
 /**
  * Utility component for extracting client IP addresses from HTTP requests.
- * Handles X-Forwarded-For header for proxied requests and falls back to
- * RemoteAddr.
+ * The X-Forwarded-For header is only read when the request comes from a trusted
+ * proxy (the gateway), and only the hops appended by trusted proxies are believed:
+ * the client can put anything at the start of the header.
  */
 @Component
 public class IpAddressExtractor {
 
     private static final String X_FORWARDED_FOR_HEADER = "X-Forwarded-For";
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9.]+|[0-9a-fA-F.]*:[0-9a-fA-F:.]*");
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public IpAddressExtractor(
+            @Value("${user-service.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16}")
+            List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
 
     /**
      * Extracts the client IP address from the HTTP request.
-     * First checks the X-Forwarded-For header (for proxied requests),
-     * then falls back to the remote address.
+     * If the remote address is a trusted proxy, returns the right-most X-Forwarded-For
+     * entry that is not a trusted proxy (the address seen by the first trusted hop);
+     * otherwise returns the remote address.
      *
      * @param request the HTTP servlet request
      * @return the client IP address, or null if request is null
@@ -26,16 +46,39 @@ public class IpAddressExtractor {
             return null;
         }
 
-        // Check X-Forwarded-For header first (for requests through proxies/load
-        // balancers)
+        String remoteAddr = request.getRemoteAddr();
         String xForwardedFor = request.getHeader(X_FORWARDED_FOR_HEADER);
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            // X-Forwarded-For can contain multiple IPs (client, proxy1, proxy2, ...)
-            // The first IP is the original client IP
-            return xForwardedFor.split(",")[0].trim();
+        if (xForwardedFor == null || xForwardedFor.isBlank() || !isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        // X-Forwarded-For: client, proxy1, proxy2 ... each proxy appends the address it received from
+        String[] hops = xForwardedFor.split(",");
+        String candidate = remoteAddr;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            candidate = hop;
+            if (!isTrustedProxy(hop)) {
+                return hop;
+            }
         }
 
-        // Fallback to RemoteAddr
-        return request.getRemoteAddr();
+        // Every hop is a trusted proxy: the request comes from the internal network
+        return candidate;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        // Only IP literals: a forged host name must not trigger a DNS lookup
+        if (address == null || !IP_LITERAL.matcher(address).matches()) {
+            return false;
+        }
+        try {
+            return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 }
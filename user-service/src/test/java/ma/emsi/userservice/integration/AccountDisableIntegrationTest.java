@@ -6,6 +6,7 @@ import ma.emsi.userservice.dto.request.LoginRequest;
 import ma.emsi.userservice.dto.request.RegisterRequest;
 import ma.emsi.userservice.dto.response.LoginResponse;
 import ma.emsi.userservice.entity.RefreshToken;
+import ma.emsi.userservice.service.RefreshTokenService;
 import ma.emsi.userservice.entity.Role;
 import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
@@ -124,7 +125,8 @@ class AccountDisableIntegrationTest extends IntegrationTestBase {
                 String regularRefreshToken = regularLoginResponse.refreshToken();
 
                 // Verify refresh token exists
-                RefreshToken tokenBefore = refreshTokenRepository.findByToken(regularRefreshToken).orElseThrow();
+                RefreshToken tokenBefore = refreshTokenRepository.findByTokenHash(
+                                RefreshTokenService.hash(regularRefreshToken)).orElseThrow();
                 assertThat(tokenBefore).isNotNull();
 
                 // Step 2: Admin disables the regular user account
@@ -151,6 +153,7 @@ class AccountDisableIntegrationTest extends IntegrationTestBase {
                                 .count()).isEqualTo(0);
 
                 // Step 5: Verify audit record was created
+                auditWriter.flush();
                 List<UserAudit> audits = userAuditRepository.findByUserIdOrderByTimestampDesc(
                                 regularUser.getId(), org.springframework.data.domain.PageRequest.of(0, 10))
                                 .getContent();
@@ -202,6 +205,7 @@ class AccountDisableIntegrationTest extends IntegrationTestBase {
                 assertThat(enabledUser.getFailedLoginAttempts()).isEqualTo(0);
 
                 // Verify audit record was created
+                auditWriter.flush();
                 List<UserAudit> audits = userAuditRepository.findByUserIdOrderByTimestampDesc(
                                 regularUser.getId(), org.springframework.data.domain.PageRequest.of(0, 10))
                                 .getContent();
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import ma.emsi.userservice.dto.request.LoginRequest;
 import ma.emsi.userservice.dto.request.RegisterRequest;
 import ma.emsi.userservice.dto.response.LoginResponse;
+import ma.emsi.userservice.entity.DailyConnectionRollup;
 import ma.emsi.userservice.entity.Role;
 import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
@@ -17,10 +18,13 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -242,6 +246,67 @@ class AdminStatisticsIntegrationTest extends IntegrationTestBase {
         assertThat(responseJson).contains("ROLE_ADMIN");
     }
 
+    @Test
+    void testConnectionStatisticsAreRolledUpPerDayAndRole() throws Exception {
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+
+        User doctorant = new User();
+        doctorant.setEmail("rollup@example.com");
+        doctorant.setPassword(passwordEncoder.encode("Password123!"));
+        doctorant.setFirstName("Rollup");
+        doctorant.setLastName("Doctorant");
+        doctorant.setPhoneNumber("0612345695");
+        doctorant.setAdresse("Address");
+        doctorant.setVille("City");
+        doctorant.setPays("Morocco");
+        doctorant.setRoles(Set.of(doctorantRole));
+        doctorant.setAccountStatus(AccountStatus.ACTIVE);
+        doctorant = userRepository.save(doctorant);
+
+        // 2 logins yesterday, 1 today, 1 older than the statistics window
+        LocalDate today = LocalDate.now();
+        for (LocalDateTime timestamp : List.of(
+                today.minusDays(1).atTime(9, 0),
+                today.minusDays(1).atTime(17, 0),
+                today.atStartOfDay(),
+                today.minusDays(40).atTime(12, 0))) {
+            UserAudit audit = new UserAudit();
+            audit.setUserId(doctorant.getId());
+            audit.setAction(AuditAction.LOGIN);
+            audit.setTimestamp(timestamp);
+            userAuditRepository.save(audit);
+        }
+        // Admin login of the setup
+        auditWriter.flush();
+
+        mockMvc.perform(get("/api/admin/statistics/connections")
+                .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dailyCounts.length()").value(2))
+                .andExpect(jsonPath("$.dailyCounts[0].date").value(today.minusDays(1).toString()))
+                .andExpect(jsonPath("$.dailyCounts[0].count").value(2))
+                .andExpect(jsonPath("$.dailyCounts[1].count").value(2)) // doctorant + admin
+                .andExpect(jsonPath("$.byRole.ROLE_DOCTORANT").value(3))
+                .andExpect(jsonPath("$.byRole.ROLE_ADMIN").value(1));
+
+        // Closed days are rolled up once, with a row for every role and one for all logins
+        List<DailyConnectionRollup> rollups = dailyConnectionRollupRepository.findAll();
+        // 30 days including today, which is still open
+        assertThat(rollups).hasSize(29 * (RoleName.values().length + 1));
+        assertThat(rollups)
+                .filteredOn(rollup -> rollup.getDay().equals(today.minusDays(1)))
+                .extracting(DailyConnectionRollup::getRoleName, DailyConnectionRollup::getConnectionCount)
+                .contains(tuple(DailyConnectionRollup.ALL_ROLES, 2L), tuple("ROLE_DOCTORANT", 2L),
+                        tuple("ROLE_ADMIN", 0L));
+        assertThat(rollups).noneMatch(rollup -> rollup.getDay().equals(today));
+
+        mockMvc.perform(get("/api/admin/statistics/connections")
+                .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byRole.ROLE_DOCTORANT").value(3));
+        assertThat(dailyConnectionRollupRepository.count()).isEqualTo(rollups.size());
+    }
+
     @Test
     void testNonAdminCannotAccessStatistics() throws Exception {
         // Register a regular user
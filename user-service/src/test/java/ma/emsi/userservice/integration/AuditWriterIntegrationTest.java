@@ -0,0 +1,118 @@
+package ma.emsi.userservice.integration;
+
+import ma.emsi.userservice.entity.UserAudit;
+import ma.emsi.userservice.enums.AuditAction;
+import ma.emsi.userservice.service.AuditWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the batched audit writer:
+ * queued records → written in submission order,
+ * graceful shutdown → every queued record written,
+ * full queue → records written by the caller instead of being dropped,
+ * security-critical action → written before write() returns.
+ */
+class AuditWriterIntegrationTest extends IntegrationTestBase {
+
+        private static final long USER_ID = 42L;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        private UserAudit audit(AuditAction action, int sequence) {
+                return UserAudit.builder()
+                                .userId(USER_ID)
+                                .action(action)
+                                .timestamp(LocalDateTime.now())
+                                .ipAddress("10.0.0.1")
+                                .details("#" + sequence)
+                                .build();
+        }
+
+        private List<String> writtenDetails() {
+                return userAuditRepository.findAll(Sort.by("id")).stream()
+                                .map(UserAudit::getDetails)
+                                .toList();
+        }
+
+        private List<String> expectedDetails(int count) {
+                return IntStream.range(0, count).mapToObj(i -> "#" + i).toList();
+        }
+
+        @Test
+        void testRecordsAreWrittenInSubmissionOrder() {
+                for (int i = 0; i < 250; i++) {
+                        auditWriter.write(audit(AuditAction.LOGIN, i));
+                }
+
+                auditWriter.flush();
+
+                assertThat(writtenDetails()).containsExactlyElementsOf(expectedDetails(250));
+        }
+
+        @Test
+        void testQueuedRecordsAreWrittenOnGracefulShutdown() {
+                AuditWriter writer = new AuditWriter(jdbcTemplate, transactionManager,
+                                1000, 50, Duration.ofSeconds(10), Duration.ofMillis(50), Set.of());
+                writer.start();
+
+                for (int i = 0; i < 520; i++) {
+                        writer.write(audit(AuditAction.LOGIN, i));
+                }
+
+                writer.stop();
+
+                assertThat(writer.pending()).isZero();
+                assertThat(writtenDetails()).containsExactlyElementsOf(expectedDetails(520));
+        }
+
+        @Test
+        void testFullQueueFallsBackToCallerWithoutLoss() {
+                AuditWriter writer = new AuditWriter(jdbcTemplate, transactionManager,
+                                5, 100, Duration.ofSeconds(10), Duration.ZERO, Set.of());
+                writer.start();
+
+                for (int i = 0; i < 200; i++) {
+                        writer.write(audit(AuditAction.LOGIN, i));
+                }
+
+                writer.stop();
+
+                assertThat(writtenDetails()).containsExactlyInAnyOrderElementsOf(expectedDetails(200));
+        }
+
+        @Test
+        void testSynchronousActionIsWrittenBeforeReturning() {
+                AuditWriter writer = new AuditWriter(jdbcTemplate, transactionManager,
+                                1000, 100, Duration.ofSeconds(10), Duration.ofMillis(50),
+                                Set.of(AuditAction.ACCOUNT_LOCKED));
+                writer.start();
+
+                try {
+                        writer.write(audit(AuditAction.ACCOUNT_LOCKED, 0));
+
+                        assertThat(userAuditRepository.findByUserIdOrderByTimestampDesc(USER_ID,
+                                        Pageable.unpaged()).getContent())
+                                        .extracting(UserAudit::getAction)
+                                        .containsExactly(AuditAction.ACCOUNT_LOCKED);
+                } finally {
+                        writer.stop();
+                }
+        }
+}
@@ -11,6 +11,7 @@ import ma.emsi.userservice.entity.RoleName;
 import ma.emsi.userservice.entity.User;
 import ma.emsi.userservice.entity.UserAudit;
 import ma.emsi.userservice.enums.AuditAction;
+import ma.emsi.userservice.service.RefreshTokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -93,6 +94,7 @@ class CompleteAuthenticationFlowIntegrationTest extends IntegrationTestBase {
                 assertThat(refreshToken).isNotBlank();
 
                 // Verify audit record was created for successful login
+                auditWriter.flush();
                 List<UserAudit> loginAudits = userAuditRepository.findByUserIdOrderByTimestampDesc(
                                 createdUser.getId(), org.springframework.data.domain.PageRequest.of(0, 10))
                                 .getContent();
@@ -136,8 +138,11 @@ class CompleteAuthenticationFlowIntegrationTest extends IntegrationTestBase {
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.email").value("test@example.com"));
 
-                // Verify refresh token still exists in database
-                assertThat(refreshTokenRepository.findByToken(refreshToken)).isPresent();
+                // Verify refresh token was rotated: the new one replaces the old one in database
+                assertThat(tokenResponse.refreshToken()).isNotEqualTo(refreshToken);
+                assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(tokenResponse.refreshToken())))
+                                .isPresent();
+                assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(refreshToken))).isEmpty();
         }
 
         @Test
@@ -171,6 +176,7 @@ class CompleteAuthenticationFlowIntegrationTest extends IntegrationTestBase {
                                 .andExpect(status().isUnauthorized());
 
                 // Verify failed login audit was created
+                auditWriter.flush();
                 List<UserAudit> audits = userAuditRepository.findByUserIdOrderByTimestampDesc(
                                 user.getId(), org.springframework.data.domain.PageRequest.of(0, 10))
                                 .getContent();
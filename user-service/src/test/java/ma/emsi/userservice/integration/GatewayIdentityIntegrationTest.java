@@ -0,0 +1,117 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.RegisterRequest;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.security.AccountChangeTracker;
+import ma.emsi.userservice.security.GatewayIdentityVerifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration test for the identity envelope signed by the gateway:
+ * valid envelope → authenticated without JWT, tampered or expired envelope → rejected,
+ * recent account change → envelope ignored.
+ */
+class GatewayIdentityIntegrationTest extends IntegrationTestBase {
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private AccountChangeTracker accountChangeTracker;
+
+        @Value("${identity.secret}")
+        private String identitySecret;
+
+        private User testUser;
+
+        @BeforeEach
+        void setupUser() throws Exception {
+                if (roleRepository.findByName(RoleName.ROLE_DOCTORANT).isEmpty()) {
+                        Role doctorantRole = new Role();
+                        doctorantRole.setName(RoleName.ROLE_DOCTORANT);
+                        roleRepository.save(doctorantRole);
+                }
+
+                RegisterRequest registerRequest = new RegisterRequest(
+                                "identity@example.com",
+                                "Password123!",
+                                "Salma",
+                                "Idrissi",
+                                "0612345681",
+                                "12 Avenue Hassan II",
+                                "Rabat",
+                                "Morocco",
+                                null);
+
+                mockMvc.perform(post("/api/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                                .andExpect(status().isCreated());
+
+                testUser = userRepository.findByEmail("identity@example.com").orElseThrow();
+        }
+
+        private String envelope(long expiresAt) throws Exception {
+                String payload = "v1\n" + testUser.getId() + "\n" + testUser.getEmail() + "\nROLE_DOCTORANT\n" + expiresAt;
+                byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(identitySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+                Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+                return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(mac.doFinal(payloadBytes));
+        }
+
+        @Test
+        void testValidEnvelopeAuthenticatesWithoutToken() throws Exception {
+                mockMvc.perform(get("/api/users/profile")
+                                .header(GatewayIdentityVerifier.HEADER, envelope(Instant.now().plusSeconds(30).getEpochSecond())))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.email").value("identity@example.com"));
+        }
+
+        @Test
+        void testTamperedEnvelopeIsRejected() throws Exception {
+                String signed = envelope(Instant.now().plusSeconds(30).getEpochSecond());
+                String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                                ("v1\n" + testUser.getId() + "\n" + testUser.getEmail() + "\nROLE_ADMIN\n"
+                                                + Instant.now().plusSeconds(30).getEpochSecond())
+                                                .getBytes(StandardCharsets.UTF_8));
+                String forged = forgedPayload + signed.substring(signed.indexOf('.'));
+
+                mockMvc.perform(get("/api/users/profile")
+                                .header(GatewayIdentityVerifier.HEADER, forged))
+                                .andExpect(status().is4xxClientError());
+        }
+
+        @Test
+        void testExpiredEnvelopeIsRejected() throws Exception {
+                mockMvc.perform(get("/api/users/profile")
+                                .header(GatewayIdentityVerifier.HEADER, envelope(Instant.now().minusSeconds(1).getEpochSecond())))
+                                .andExpect(status().is4xxClientError());
+        }
+
+        @Test
+        void testEnvelopeIgnoredAfterAccountChange() throws Exception {
+                accountChangeTracker.accountChanged(testUser.getId(), testUser.getEmail());
+
+                mockMvc.perform(get("/api/users/profile")
+                                .header(GatewayIdentityVerifier.HEADER, envelope(Instant.now().plusSeconds(30).getEpochSecond())))
+                                .andExpect(status().is4xxClientError());
+        }
+}
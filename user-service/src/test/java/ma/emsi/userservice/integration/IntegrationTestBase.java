@@ -1,5 +1,7 @@
 package ma.emsi.userservice.integration;
 
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -14,10 +16,15 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import ma.emsi.userservice.repository.*;
+import ma.emsi.userservice.security.UserDetailsCache;
+import ma.emsi.userservice.service.AuditWriter;
+import ma.emsi.userservice.service.LoginAttemptService;
+import ma.emsi.userservice.service.OutboxRelay;
 
 /**
  * Base class for integration tests using TestContainers.
- * Provides MariaDB and Kafka containers for realistic testing.
+ * Provides MariaDB and Kafka containers for realistic testing,
+ * and a local SMTP server receiving the emails sent by the outbox relay.
  */
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -34,6 +41,13 @@ public abstract class IntegrationTestBase {
     static KafkaContainer kafka = new KafkaContainer(
             DockerImageName.parse("confluentinc/cp-kafka:7.4.0"));
 
+    // Fixed port: a test may stop and restart the server
+    static GreenMail smtpServer = new GreenMail(ServerSetupTest.SMTP);
+
+    static {
+        smtpServer.start();
+    }
+
     @Autowired
     protected MockMvc mockMvc;
 
@@ -52,6 +66,24 @@ public abstract class IntegrationTestBase {
     @Autowired
     protected RoleRepository roleRepository;
 
+    @Autowired
+    protected DailyConnectionRollupRepository dailyConnectionRollupRepository;
+
+    @Autowired
+    protected OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    protected UserDetailsCache userDetailsCache;
+
+    @Autowired
+    protected AuditWriter auditWriter;
+
+    @Autowired
+    protected LoginAttemptService loginAttemptService;
+
+    @Autowired
+    protected OutboxRelay outboxRelay;
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
         // MariaDB configuration
@@ -71,6 +103,22 @@ public abstract class IntegrationTestBase {
         registry.add("spring.kafka.producer.value-serializer",
                 () -> "org.springframework.kafka.support.serializer.JsonSerializer");
 
+        // Local SMTP server, without authentication nor TLS
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", () -> smtpServer.getSmtp().getPort());
+        registry.add("spring.mail.username", () -> "no-reply@example.com");
+        registry.add("spring.mail.password", () -> "");
+        registry.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.required", () -> "false");
+
+        // Outbox retries short enough to be observed in a test
+        registry.add("user-service.outbox.poll-interval", () -> "100ms");
+        registry.add("user-service.outbox.initial-backoff", () -> "200ms");
+
+        // Refresh token grace window short enough to be waited out in a test
+        registry.add("user-service.refresh-token.reuse-grace", () -> "1s");
+
         // Disable Eureka for tests
         registry.add("eureka.client.enabled", () -> "false");
 
@@ -78,14 +126,29 @@ public abstract class IntegrationTestBase {
         registry.add("jwt.secret", () -> "test-secret-key-for-integration-tests-must-be-long-enough");
         registry.add("jwt.expiration", () -> "3600000");
         registry.add("jwt.refresh-expiration", () -> "86400000");
+
+        // Statistics must reflect the data of each test
+        registry.add("user-service.statistics.user-statistics-ttl", () -> "0s");
     }
 
     @BeforeEach
-    void cleanDatabase() {
+    void cleanDatabase() throws Exception {
+        // Write the audits and lock transitions still queued by the previous test before deleting them
+        auditWriter.flush();
+        loginAttemptService.flush();
+        outboxRelay.flush();
+
         // Clean up in correct order to respect foreign key constraints
         refreshTokenRepository.deleteAll();
+        outboxMessageRepository.deleteAll();
         userAuditRepository.deleteAll();
+        dailyConnectionRollupRepository.deleteAll();
         userProfileRepository.deleteAll();
         userRepository.deleteAll();
+
+        // Users are deleted behind the services' back: drop their cached UserDetails too
+        userDetailsCache.evictAll();
+        loginAttemptService.reset();
+        smtpServer.purgeEmailFromAllMailboxes();
     }
 }
@@ -0,0 +1,173 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.entity.UserAudit;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.enums.AuditAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for in-memory login attempt tracking:
+ * thousands of concurrent failures against one account → locked exactly once, the row
+ * written once; too many failures from one IP → further logins from it rejected with 429.
+ */
+class LoginAttemptBurstIntegrationTest extends IntegrationTestBase {
+
+    private static final int BURST = 5_000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${user-service.account.max-failed-logins}")
+    private int maxFailedLogins;
+
+    @Value("${user-service.account.max-failed-logins-per-ip}")
+    private int maxFailedLoginsPerIp;
+
+    private User testUser;
+
+    @BeforeEach
+    void setupUser() {
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+
+        testUser = new User();
+        testUser.setEmail("burst@example.com");
+        testUser.setPassword(passwordEncoder.encode("CorrectPassword123!"));
+        testUser.setFirstName("Burst");
+        testUser.setLastName("User");
+        testUser.setPhoneNumber("0612345671");
+        testUser.setAdresse("Address");
+        testUser.setVille("City");
+        testUser.setPays("Morocco");
+        testUser.setRoles(Set.of(doctorantRole));
+        testUser.setAccountStatus(AccountStatus.ACTIVE);
+        testUser.setEnabled(true);
+        testUser = userRepository.save(testUser);
+    }
+
+    @Test
+    void testBurstOfFailuresLocksAccountOnce() throws Exception {
+        LocalDateTime updatedBefore = userRepository.findById(testUser.getId()).orElseThrow().getUpdatedAt();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> failures = new ArrayList<>();
+        try {
+            for (int i = 0; i < BURST; i++) {
+                String ip = "198.51.100." + (i % 200);
+                failures.add(pool.submit(() -> {
+                    start.await();
+                    // Each request loads its own copy of the row, as AuthService.login does
+                    User user = userRepository.findById(testUser.getId()).orElseThrow();
+                    if (!loginAttemptService.isAccountLocked(user)) {
+                        loginAttemptService.loginFailed(user, ip);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> failure : failures) {
+                failure.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        loginAttemptService.flush();
+        auditWriter.flush();
+
+        User lockedUser = userRepository.findById(testUser.getId()).orElseThrow();
+        assertThat(lockedUser.getAccountStatus()).isEqualTo(AccountStatus.LOCKED);
+        assertThat(lockedUser.getFailedLoginAttempts()).isEqualTo(maxFailedLogins);
+        assertThat(lockedUser.getLockoutExpiration()).isAfter(LocalDateTime.now());
+        // Not written per failure: bulk updates leave updated_at alone, only the lock transition changed the row
+        assertThat(lockedUser.getUpdatedAt()).isEqualTo(updatedBefore);
+
+        long lockAudits = userAuditRepository.findByUserIdAndActionOrderByTimestampDesc(
+                testUser.getId(), AuditAction.ACCOUNT_LOCKED, PageRequest.of(0, 10))
+                .getTotalElements();
+        assertThat(lockAudits).isEqualTo(1);
+
+        // Still locked, even with the correct password
+        assertThat(loginAttemptService.isAccountLocked(lockedUser)).isTrue();
+    }
+
+    @Test
+    void testTooManyFailuresFromOneIpAreRejected() throws Exception {
+        String ip = "203.0.113.7";
+        for (int i = 0; i < maxFailedLoginsPerIp; i++) {
+            loginAttemptService.recordIpFailure(ip);
+        }
+        assertThat(loginAttemptService.isIpBlocked(ip)).isTrue();
+        assertThat(loginAttemptService.isIpBlocked("203.0.113.8")).isFalse();
+
+        // Rejected before the password is checked, even for a valid account
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("burst@example.com", "CorrectPassword123!")))
+                .header("X-Forwarded-For", ip))
+                .andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("burst@example.com", "CorrectPassword123!")))
+                .header("X-Forwarded-For", "203.0.113.8"))
+                .andExpect(status().isOk());
+
+        List<UserAudit> audits = userAuditRepository.findByUserIdOrderByTimestampDesc(
+                testUser.getId(), PageRequest.of(0, 10)).getContent();
+        assertThat(audits).noneMatch(audit -> audit.getAction() == AuditAction.LOGIN_FAILED);
+    }
+
+    @Test
+    void testBlockedIpCannotEscapeWithForgedForwardedFor() throws Exception {
+        String ip = "203.0.113.9";
+        for (int i = 0; i < maxFailedLoginsPerIp; i++) {
+            loginAttemptService.recordIpFailure(ip);
+        }
+
+        // Address forged by the client first, real address appended by the gateway
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("burst@example.com", "CorrectPassword123!")))
+                .header("X-Forwarded-For", "198.51.100.1, " + ip))
+                .andExpect(status().isTooManyRequests());
+
+        // Direct call, not through a trusted proxy: the header is ignored
+        mockMvc.perform(post("/api/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(ip);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("burst@example.com", "CorrectPassword123!")))
+                .header("X-Forwarded-For", "198.51.100.1"))
+                .andExpect(status().isTooManyRequests());
+    }
+}
@@ -0,0 +1,250 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.mail.internet.MimeMessage;
+import ma.emsi.userservice.dto.event.UserEvent;
+import ma.emsi.userservice.dto.request.ForgotPasswordRequest;
+import ma.emsi.userservice.dto.request.RegisterRequest;
+import ma.emsi.userservice.entity.OutboxMessage;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.enums.OutboxChannel;
+import ma.emsi.userservice.enums.OutboxStatus;
+import ma.emsi.userservice.service.OutboxService;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for the outbox:
+ * password reset → email delivered by the relay to the local SMTP server;
+ * SMTP server down → message kept and retried after a backoff;
+ * registration → USER_REGISTERED published to Kafka; events of a key delivered in order,
+ * after an older one waiting for its retry; rolled back transaction → nothing sent.
+ */
+class OutboxDeliveryIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User createUser(String email) {
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("Password123!"));
+        user.setFirstName("Outbox");
+        user.setLastName("User");
+        user.setPhoneNumber("0612345673");
+        user.setAdresse("Address");
+        user.setVille("City");
+        user.setPays("Morocco");
+        user.setRoles(Set.of(doctorantRole));
+        user.setAccountStatus(AccountStatus.ACTIVE);
+        user.setEnabled(true);
+        return userRepository.save(user);
+    }
+
+    private void requestPasswordReset(String email) throws Exception {
+        mockMvc.perform(post("/api/users/forgot-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ForgotPasswordRequest(email))))
+                .andExpect(status().isOk());
+    }
+
+    private OutboxMessage emailMessage() {
+        List<OutboxMessage> emails = outboxMessageRepository.findByChannelOrderByIdAsc(OutboxChannel.EMAIL);
+        assertThat(emails).hasSize(1);
+        return emails.get(0);
+    }
+
+    @Test
+    void testPasswordResetEmailIsDeliveredByTheRelay() throws Exception {
+        createUser("outbox@example.com");
+
+        requestPasswordReset("outbox@example.com");
+        outboxRelay.flush();
+
+        assertThat(smtpServer.waitForIncomingEmail(5_000, 1)).isTrue();
+        MimeMessage received = smtpServer.getReceivedMessages()[0];
+        assertThat(received.getAllRecipients()[0].toString()).isEqualTo("outbox@example.com");
+        assertThat(received.getSubject()).isEqualTo("Réinitialisation de votre mot de passe");
+
+        OutboxMessage message = emailMessage();
+        assertThat(message.getStatus()).isEqualTo(OutboxStatus.DELIVERED);
+        assertThat(message.getDeliveredAt()).isNotNull();
+    }
+
+    @Test
+    void testSmtpOutageIsRetriedWithBackoff() throws Exception {
+        createUser("outage@example.com");
+
+        smtpServer.stop();
+        try {
+            // The request does not wait for the SMTP server
+            long start = System.nanoTime();
+            requestPasswordReset("outage@example.com");
+            assertThat(System.nanoTime() - start).isLessThan(Duration.ofSeconds(2).toNanos());
+
+            outboxRelay.flush();
+            OutboxMessage failed = emailMessage();
+            assertThat(failed.getStatus()).isEqualTo(OutboxStatus.PENDING);
+            assertThat(failed.getAttempts()).isGreaterThanOrEqualTo(1);
+            assertThat(failed.getLastError()).isNotBlank();
+            assertThat(failed.getNextAttemptAt()).isAfter(failed.getCreatedAt());
+        } finally {
+            smtpServer.start();
+        }
+
+        // Retried by the background relay once the backoff has elapsed
+        assertThat(smtpServer.waitForIncomingEmail(10_000, 1)).isTrue();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (emailMessage().getStatus() != OutboxStatus.DELIVERED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(emailMessage().getStatus()).isEqualTo(OutboxStatus.DELIVERED);
+    }
+
+    @Test
+    void testUserEventsAreRelayedToKafka() throws Exception {
+        try (KafkaConsumer<String, UserEvent> consumer = new KafkaConsumer<>(Map.<String, Object>of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "outbox-test-" + UUID.randomUUID(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"),
+                new StringDeserializer(),
+                new JsonDeserializer<>(UserEvent.class, false))) {
+            consumer.subscribe(List.of("user-events"));
+
+            RegisterRequest registerRequest = new RegisterRequest(
+                    "kafka@example.com", "Password123!", "Kafka", "User",
+                    "0612345674", "Address", "City", "Morocco", null);
+            mockMvc.perform(post("/api/auth/register")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isCreated());
+            outboxRelay.flush();
+
+            UserEvent registered = null;
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (registered == null && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, UserEvent> record : consumer.poll(Duration.ofMillis(500))) {
+                    if (record.value() != null && "kafka@example.com".equals(record.value().email())
+                            && "USER_REGISTERED".equals(record.value().eventType())) {
+                        registered = record.value();
+                        assertThat(record.key()).isEqualTo(registered.userId().toString());
+                    }
+                }
+            }
+
+            assertThat(registered).isNotNull();
+            assertThat(registered.metadata()).containsEntry("firstName", "Kafka");
+        }
+
+        assertThat(outboxMessageRepository.findByChannelOrderByIdAsc(OutboxChannel.KAFKA))
+                .allMatch(message -> message.getStatus() == OutboxStatus.DELIVERED);
+    }
+
+    @Test
+    void testEventsOfAKeyWaitForTheOlderOnes() throws Exception {
+        // An older event of user 42 waiting for its retry
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage retried = outboxMessageRepository.save(OutboxMessage.builder()
+                .channel(OutboxChannel.KAFKA)
+                .destination("outbox-order")
+                .messageKey("42")
+                .payload(objectMapper.writeValueAsString(UserEvent.of("USER_UPDATED", 42L, "first@example.com")))
+                .status(OutboxStatus.PENDING)
+                .attempts(1)
+                .createdAt(now)
+                .nextAttemptAt(now.plusHours(1))
+                .build());
+        outboxService.enqueueEvent("outbox-order", "42", UserEvent.of("USER_DISABLED", 42L, "second@example.com"));
+        outboxService.enqueueEvent("outbox-order", "42", UserEvent.of("USER_ENABLED", 42L, "third@example.com"));
+        outboxService.enqueueEvent("outbox-order", "43", UserEvent.of("USER_DISABLED", 43L, "other@example.com"));
+
+        outboxRelay.flush();
+
+        // Newer events of user 42 are held back; other keys are not
+        List<OutboxMessage> messages = outboxMessageRepository.findByChannelOrderByIdAsc(OutboxChannel.KAFKA);
+        assertThat(messages).extracting(OutboxMessage::getMessageKey, OutboxMessage::getStatus, OutboxMessage::getAttempts)
+                .containsExactly(
+                        tuple("42", OutboxStatus.PENDING, 1),
+                        tuple("42", OutboxStatus.PENDING, 0),
+                        tuple("42", OutboxStatus.PENDING, 0),
+                        tuple("43", OutboxStatus.DELIVERED, 1));
+
+        try (KafkaConsumer<String, UserEvent> consumer = new KafkaConsumer<>(Map.<String, Object>of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "outbox-test-" + UUID.randomUUID(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"),
+                new StringDeserializer(),
+                new JsonDeserializer<>(UserEvent.class, false))) {
+            consumer.subscribe(List.of("outbox-order"));
+
+            // The retry is due: the three events go out in order
+            retried.setNextAttemptAt(LocalDateTime.now());
+            outboxMessageRepository.save(retried);
+            outboxRelay.flush();
+
+            List<String> received = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (received.size() < 3 && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, UserEvent> record : consumer.poll(Duration.ofMillis(500))) {
+                    if ("42".equals(record.key())) {
+                        received.add(record.value().email());
+                    }
+                }
+            }
+            assertThat(received).containsExactly("first@example.com", "second@example.com", "third@example.com");
+        }
+
+        assertThat(outboxMessageRepository.findByChannelOrderByIdAsc(OutboxChannel.KAFKA))
+                .allMatch(message -> message.getStatus() == OutboxStatus.DELIVERED);
+    }
+
+    @Test
+    void testRolledBackTransactionLeavesNoMessage() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxService.enqueueEvent("user-events", "1", UserEvent.of("USER_DELETED", 1L, "rollback@example.com"));
+            outboxService.enqueueEmail("rollback@example.com", "Subject", "<p>Body</p>");
+            status.setRollbackOnly();
+        });
+
+        outboxRelay.flush();
+        assertThat(outboxMessageRepository.count()).isZero();
+        assertThat(smtpServer.getReceivedMessages()).isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.exception.PasswordHashingSaturatedException;
+import ma.emsi.userservice.security.BoundedPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for password hashing:
+ * hash with another cost → rehashed at the target cost on the next successful login;
+ * hashing pool and queue full → rejected immediately.
+ */
+class PasswordHashingIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${user-service.password-hashing.bcrypt-cost}")
+    private int targetCost;
+
+    @Test
+    void testPasswordIsRehashedAtTargetCostOnLogin() throws Exception {
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+        String oldHash = new BCryptPasswordEncoder(4).encode("Password123!");
+
+        User user = new User();
+        user.setEmail("rehash@example.com");
+        user.setPassword(oldHash);
+        user.setFirstName("Rehash");
+        user.setLastName("User");
+        user.setPhoneNumber("0612345670");
+        user.setAdresse("Address");
+        user.setVille("City");
+        user.setPays("Morocco");
+        user.setRoles(Set.of(doctorantRole));
+        user.setAccountStatus(AccountStatus.ACTIVE);
+        user.setEnabled(true);
+        user = userRepository.save(user);
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("rehash@example.com", "Password123!"))))
+                .andExpect(status().isOk());
+
+        String newHash = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(newHash).isNotEqualTo(oldHash);
+        assertThat(newHash).startsWith(String.format("$2a$%02d$", targetCost));
+
+        // The rehashed password still works
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("rehash@example.com", "Password123!"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testSaturatedPoolRejectsImmediately() throws Exception {
+        // One thread, one queued task: a slow cost keeps both busy while the third one is submitted
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(14, 1, 1);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+            while (encoder.pending() < 2) {
+                Thread.sleep(5);
+            }
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> encoder.encode("third"))
+                    .isInstanceOf(PasswordHashingSaturatedException.class);
+            assertThat(System.nanoTime() - start).isLessThan(100_000_000L);
+
+            assertThat(encoder.matches("first", running.get())).isTrue();
+            assertThat(encoder.matches("second", queued.get())).isTrue();
+        } finally {
+            encoder.destroy();
+        }
+    }
+}
@@ -120,6 +120,7 @@ class ProfileCompletionIntegrationTest extends IntegrationTestBase {
                 assertThat(savedProfile.getPhotoUrl()).isEqualTo("https://example.com/photo.jpg");
 
                 // Step 3: Verify audit record was created
+                auditWriter.flush();
                 List<UserAudit> audits = userAuditRepository.findByUserIdOrderByTimestampDesc(
                                 testUser.getId(), org.springframework.data.domain.PageRequest.of(0, 10))
                                 .getContent();
@@ -0,0 +1,173 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.dto.request.TokenRefreshRequest;
+import ma.emsi.userservice.dto.response.LoginResponse;
+import ma.emsi.userservice.dto.response.TokenResponse;
+import ma.emsi.userservice.entity.RefreshToken;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.service.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for refresh token rotation:
+ * login again on a device → its row replaced in place, other devices kept;
+ * refresh → new token; same token presented again within the grace window → same result;
+ * replaced token presented again after the grace window → family revoked.
+ */
+class RefreshTokenRotationIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User testUser;
+
+    @BeforeEach
+    void setupUser() {
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+
+        testUser = new User();
+        testUser.setEmail("rotation@example.com");
+        testUser.setPassword(passwordEncoder.encode("Password123!"));
+        testUser.setFirstName("Rotation");
+        testUser.setLastName("User");
+        testUser.setPhoneNumber("0612345672");
+        testUser.setAdresse("Address");
+        testUser.setVille("City");
+        testUser.setPays("Morocco");
+        testUser.setRoles(Set.of(doctorantRole));
+        testUser.setAccountStatus(AccountStatus.ACTIVE);
+        testUser.setEnabled(true);
+        testUser = userRepository.save(testUser);
+    }
+
+    private String login(String deviceId) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("rotation@example.com", "Password123!")))
+                .header("X-Device-Id", deviceId))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), LoginResponse.class).refreshToken();
+    }
+
+    private MvcResult refresh(String refreshToken, int expectedStatus) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TokenRefreshRequest(refreshToken))))
+                .andExpect(status().is(expectedStatus))
+                .andReturn();
+    }
+
+    @Test
+    void testLoginReplacesTheDeviceRowInPlace() throws Exception {
+        String first = login("laptop");
+        RefreshToken firstRow = refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(first)).orElseThrow();
+        assertThat(firstRow.getTokenHash()).hasSize(32);
+
+        String second = login("laptop");
+        String phone = login("phone");
+
+        RefreshToken secondRow = refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(second)).orElseThrow();
+        assertThat(secondRow.getId()).isEqualTo(firstRow.getId());
+        assertThat(secondRow.getFamilyId()).isNotEqualTo(firstRow.getFamilyId());
+        assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(first))).isEmpty();
+        assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(phone))).isPresent();
+        assertThat(refreshTokenRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void testRefreshRotatesTheToken() throws Exception {
+        String original = login("laptop");
+        RefreshToken originalRow = refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(original)).orElseThrow();
+
+        MvcResult result = refresh(original, 200);
+        String rotated = objectMapper.readValue(result.getResponse().getContentAsString(), TokenResponse.class)
+                .refreshToken();
+        assertThat(rotated).isNotEqualTo(original);
+
+        RefreshToken rotatedRow = refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(rotated)).orElseThrow();
+        assertThat(rotatedRow.getId()).isEqualTo(originalRow.getId());
+        assertThat(rotatedRow.getFamilyId()).isEqualTo(originalRow.getFamilyId());
+        assertThat(rotatedRow.getPreviousTokenHash()).isEqualTo(RefreshTokenService.hash(original));
+
+        // The rotated token keeps working
+        refresh(rotated, 200);
+    }
+
+    @Test
+    void testConcurrentRefreshesShareTheRotation() throws Exception {
+        String original = login("laptop");
+
+        // Parallel requests of one page, all presenting the same token
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<String> refreshOriginal = () -> objectMapper.readValue(
+                    refresh(original, 200).getResponse().getContentAsString(), TokenResponse.class).refreshToken();
+            List<Future<String>> results = executor.invokeAll(List.of(
+                    refreshOriginal, refreshOriginal, refreshOriginal, refreshOriginal));
+
+            String rotated = results.get(0).get();
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo(rotated);
+            }
+
+            // Presented again a little later, still within the grace window
+            String again = objectMapper.readValue(refresh(original, 200).getResponse().getContentAsString(),
+                    TokenResponse.class).refreshToken();
+            assertThat(again).isEqualTo(rotated);
+
+            // The family is intact and the shared token keeps working
+            refresh(rotated, 200);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testReusedTokenRevokesTheFamily() throws Exception {
+        String original = login("laptop");
+        String phone = login("phone");
+
+        MvcResult result = refresh(original, 200);
+        String rotated = objectMapper.readValue(result.getResponse().getContentAsString(), TokenResponse.class)
+                .refreshToken();
+
+        // Past the grace window, the replaced token is presented again:
+        // rejected, and the current token of the family too
+        Thread.sleep(1_200);
+        refresh(original, 401);
+        refresh(rotated, 401);
+
+        // Other devices are not affected
+        refresh(phone, 200);
+    }
+
+    @Test
+    void testUnknownTokenIsRejected() throws Exception {
+        refresh("not-a-token", 401);
+    }
+}
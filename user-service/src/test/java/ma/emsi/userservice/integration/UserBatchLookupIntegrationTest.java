@@ -0,0 +1,103 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.RegisterRequest;
+import ma.emsi.userservice.dto.request.UserBatchRequest;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration test for the batch user lookup used by the other services:
+ * known ids → returned keyed by id with their roles, unknown ids → listed in "missing",
+ * empty or oversized batch → rejected.
+ */
+class UserBatchLookupIntegrationTest extends IntegrationTestBase {
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Value("${user-service.batch.max-size}")
+        private int maxBatchSize;
+
+        private Long firstUserId;
+        private Long secondUserId;
+
+        @BeforeEach
+        void setupUsers() throws Exception {
+                if (roleRepository.findByName(RoleName.ROLE_DOCTORANT).isEmpty()) {
+                        Role doctorantRole = new Role();
+                        doctorantRole.setName(RoleName.ROLE_DOCTORANT);
+                        roleRepository.save(doctorantRole);
+                }
+
+                firstUserId = register("batch1@example.com", "0612345683");
+                secondUserId = register("batch2@example.com", "0612345684");
+        }
+
+        private Long register(String email, String phoneNumber) throws Exception {
+                RegisterRequest registerRequest = new RegisterRequest(
+                                email,
+                                "Password123!",
+                                "Karim",
+                                "Tazi",
+                                phoneNumber,
+                                "8 Rue Ibn Sina",
+                                "Tanger",
+                                "Morocco",
+                                null);
+
+                mockMvc.perform(post("/api/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                                .andExpect(status().isCreated());
+
+                return userRepository.findByEmail(email).orElseThrow().getId();
+        }
+
+        @Test
+        void testBatchReturnsKnownUsersAndListsMissingIds() throws Exception {
+                Long unknownId = secondUserId + 1000;
+                UserBatchRequest request = new UserBatchRequest(
+                                List.of(firstUserId, secondUserId, unknownId, firstUserId));
+
+                mockMvc.perform(post("/api/users/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.users.length()").value(2))
+                                .andExpect(jsonPath("$.users['" + firstUserId + "'].email").value("batch1@example.com"))
+                                .andExpect(jsonPath("$.users['" + secondUserId + "'].email").value("batch2@example.com"))
+                                .andExpect(jsonPath("$.users['" + firstUserId + "'].roles[0]").value("ROLE_DOCTORANT"))
+                                .andExpect(jsonPath("$.missing", contains(unknownId.intValue())));
+        }
+
+        @Test
+        void testEmptyBatchIsRejected() throws Exception {
+                mockMvc.perform(post("/api/users/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new UserBatchRequest(List.of()))))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void testOversizedBatchIsRejected() throws Exception {
+                List<Long> ids = LongStream.rangeClosed(1, maxBatchSize + 1).boxed().toList();
+
+                mockMvc.perform(post("/api/users/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new UserBatchRequest(ids))))
+                                .andExpect(status().isBadRequest());
+        }
+}
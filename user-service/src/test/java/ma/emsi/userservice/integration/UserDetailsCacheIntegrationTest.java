@@ -0,0 +1,147 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.dto.request.RegisterRequest;
+import ma.emsi.userservice.dto.response.LoginResponse;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.service.UserEventPublisher;
+import ma.emsi.userservice.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration test for the UserDetails cache of the JWT filter:
+ * repeated requests → served from the cache,
+ * account disabled on this instance → token rejected immediately,
+ * account disabled on another instance (Kafka event) → token rejected within the invalidation window.
+ */
+class UserDetailsCacheIntegrationTest extends IntegrationTestBase {
+
+        private static final long INVALIDATION_WINDOW_MS = 10_000;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private UserService userService;
+
+        @Autowired
+        private UserEventPublisher eventPublisher;
+
+        @Autowired
+        private KafkaListenerEndpointRegistry listenerRegistry;
+
+        private String accessToken;
+        private User testUser;
+
+        @BeforeEach
+        void setupUserAndLogin() throws Exception {
+                if (roleRepository.findByName(RoleName.ROLE_DOCTORANT).isEmpty()) {
+                        Role doctorantRole = new Role();
+                        doctorantRole.setName(RoleName.ROLE_DOCTORANT);
+                        roleRepository.save(doctorantRole);
+                }
+
+                RegisterRequest registerRequest = new RegisterRequest(
+                                "cached@example.com",
+                                "Password123!",
+                                "Youssef",
+                                "Alaoui",
+                                "0612345682",
+                                "5 Rue de Fes",
+                                "Meknes",
+                                "Morocco",
+                                null);
+
+                mockMvc.perform(post("/api/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                                .andExpect(status().isCreated());
+
+                testUser = userRepository.findByEmail("cached@example.com").orElseThrow();
+
+                LoginRequest loginRequest = new LoginRequest("cached@example.com", "Password123!");
+                MvcResult loginResult = mockMvc.perform(post("/api/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(loginRequest)))
+                                .andExpect(status().isOk())
+                                .andReturn();
+
+                accessToken = objectMapper.readValue(loginResult.getResponse().getContentAsString(),
+                                LoginResponse.class).accessToken();
+        }
+
+        @Test
+        void testRepeatedRequestsAreServedFromTheCache() throws Exception {
+                CacheStats before = userDetailsCache.stats();
+
+                for (int i = 0; i < 5; i++) {
+                        mockMvc.perform(get("/api/users/profile")
+                                        .header("Authorization", "Bearer " + accessToken))
+                                        .andExpect(status().isOk());
+                }
+
+                CacheStats after = userDetailsCache.stats().minus(before);
+                assertThat(after.missCount()).isEqualTo(1);
+                assertThat(after.hitCount()).isEqualTo(4);
+        }
+
+        @Test
+        void testDisabledAccountIsRejectedImmediately() throws Exception {
+                mockMvc.perform(get("/api/users/profile")
+                                .header("Authorization", "Bearer " + accessToken))
+                                .andExpect(status().isOk());
+
+                userService.disableAccount(testUser.getId(), "Policy violation", -1L);
+
+                mockMvc.perform(get("/api/users/profile")
+                                .header("Authorization", "Bearer " + accessToken))
+                                .andExpect(status().is4xxClientError());
+        }
+
+        @Test
+        void testAccountDisabledOnAnotherInstanceIsRejectedWithinInvalidationWindow() throws Exception {
+                ContainerTestUtils.waitForAssignment(
+                                listenerRegistry.getListenerContainer("userDetailsCacheInvalidation"), 1);
+
+                mockMvc.perform(get("/api/users/profile")
+                                .header("Authorization", "Bearer " + accessToken))
+                                .andExpect(status().isOk());
+
+                // Another instance disables the account: only the database and the event stream change here
+                User user = userRepository.findById(testUser.getId()).orElseThrow();
+                user.setAccountStatus(AccountStatus.DISABLED);
+                userRepository.save(user);
+
+                mockMvc.perform(get("/api/users/profile")
+                                .header("Authorization", "Bearer " + accessToken))
+                                .andExpect(status().isOk());
+
+                eventPublisher.publishUserDisabled(testUser.getId(), testUser.getEmail(), "Policy violation");
+
+                long deadline = System.currentTimeMillis() + INVALIDATION_WINDOW_MS;
+                int status;
+                do {
+                        Thread.sleep(100);
+                        status = mockMvc.perform(get("/api/users/profile")
+                                        .header("Authorization", "Bearer " + accessToken))
+                                        .andReturn().getResponse().getStatus();
+                } while (status == 200 && System.currentTimeMillis() < deadline);
+
+                assertThat(status).isBetween(400, 499);
+        }
+}
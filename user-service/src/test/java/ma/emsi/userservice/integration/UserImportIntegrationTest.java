@@ -0,0 +1,210 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.dto.request.UserImportRow;
+import ma.emsi.userservice.dto.response.LoginResponse;
+import ma.emsi.userservice.entity.OutboxMessage;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.entity.UserProfile;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.enums.OutboxChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for the bulk user import:
+ * valid rows created with their roles and profiles, invalid rows reported one by one;
+ * CSV accepted; one USERS_IMPORTED event; oversized imports and non-admins rejected.
+ */
+class UserImportIntegrationTest extends IntegrationTestBase {
+
+    private static final int COHORT = 100;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String adminAccessToken;
+
+    @BeforeEach
+    void setupAdmin() throws Exception {
+        Role adminRole = roleRepository.findByName(RoleName.ROLE_ADMIN).orElseThrow();
+
+        User admin = new User();
+        admin.setEmail("admin@example.com");
+        admin.setPassword(passwordEncoder.encode("Password123!"));
+        admin.setFirstName("Admin");
+        admin.setLastName("User");
+        admin.setPhoneNumber("0612345600");
+        admin.setAdresse("Address");
+        admin.setVille("Rabat");
+        admin.setPays("Morocco");
+        admin.setRoles(Set.of(adminRole));
+        admin.setAccountStatus(AccountStatus.ACTIVE);
+        admin.setEnabled(true);
+        admin = userRepository.save(admin);
+
+        UserProfile adminProfile = new UserProfile();
+        adminProfile.setUser(admin);
+        adminProfile.setCin("AB000001");
+        userProfileRepository.save(adminProfile);
+
+        adminAccessToken = login("admin@example.com", "Password123!");
+    }
+
+    private String login(String email, String password) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest(email, password))))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), LoginResponse.class).accessToken();
+    }
+
+    private static UserImportRow row(String email, String role, String cin) {
+        return new UserImportRow(email, "Password123!", "Cohort", "User", "0600000000",
+                "Address", "Rabat", "Morocco", role, cin,
+                cin != null ? "1998-05-12" : null, cin != null ? "Casablanca" : null, cin != null ? "Marocaine" : null);
+    }
+
+    @Test
+    void testImportCreatesValidRowsAndReportsInvalidOnes() throws Exception {
+        List<UserImportRow> rows = new ArrayList<>();
+        for (int i = 0; i < COHORT; i++) {
+            rows.add(row("cohort" + i + "@example.com", i % 10 == 0 ? "DIRECTEUR" : null,
+                    "C" + String.format("%06d", i)));
+        }
+        rows.add(row("not-an-email", null, null));                        // invalid email
+        rows.add(row("COHORT1@example.com", null, null));                 // duplicate in file
+        rows.add(row("admin@example.com", null, null));                   // existing email
+        rows.add(row("newcin@example.com", null, "AB000001"));            // existing CIN
+        rows.add(row("badrole@example.com", "ROLE_INCONNU", null));       // unknown role
+
+        MvcResult result = mockMvc.perform(post("/api/admin/users/import")
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rows)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(COHORT + 5))
+                .andExpect(jsonPath("$.created").value(COHORT))
+                .andExpect(jsonPath("$.rejected").value(5))
+                .andReturn();
+
+        JsonNode report = objectMapper.readTree(result.getResponse().getContentAsString()).get("rows");
+        assertThat(report.get(0).get("row").asInt()).isEqualTo(1);
+        assertThat(report.get(0).get("userId").isNull()).isFalse();
+        for (int i = COHORT; i < COHORT + 5; i++) {
+            assertThat(report.get(i).get("userId").isNull()).isTrue();
+            assertThat(report.get(i).get("errors")).isNotEmpty();
+        }
+        assertThat(report.get(COHORT + 1).get("errors").get(0).asText()).isEqualTo("Email en double dans le fichier");
+        assertThat(report.get(COHORT + 3).get("errors").get(0).asText())
+                .isEqualTo("Ce CIN est déjà utilisé par un autre utilisateur");
+
+        // Users, roles and profiles were created
+        User directeur = userRepository.findByEmail("cohort0@example.com").orElseThrow();
+        assertThat(directeur.getId()).isEqualTo(report.get(0).get("userId").asLong());
+        assertThat(directeur.getRoles()).extracting(Role::getName).containsExactly(RoleName.ROLE_DIRECTEUR);
+        assertThat(directeur.isProfileComplete()).isTrue();
+        UserProfile profile = userProfileRepository.findByUserId(directeur.getId()).orElseThrow();
+        assertThat(profile.getCin()).isEqualTo("C000000");
+        assertThat(userRepository.findByEmail("cohort1@example.com").orElseThrow().getRoles())
+                .extracting(Role::getName).containsExactly(RoleName.ROLE_DOCTORANT);
+
+        // The imported password works
+        login("cohort42@example.com", "Password123!");
+
+        // One summarized event for the whole import
+        List<OutboxMessage> events = outboxMessageRepository.findByChannelOrderByIdAsc(OutboxChannel.KAFKA).stream()
+                .filter(message -> message.getPayload().contains("USERS_IMPORTED"))
+                .toList();
+        assertThat(events).hasSize(1);
+        JsonNode metadata = objectMapper.readTree(events.get(0).getPayload()).get("metadata");
+        assertThat(metadata.get("count").asInt()).isEqualTo(COHORT);
+        assertThat(metadata.get("roles").get("ROLE_DIRECTEUR").asInt()).isEqualTo(COHORT / 10);
+    }
+
+    @Test
+    void testCsvImport() throws Exception {
+        String csv = """
+                email,password,firstName,lastName,phoneNumber,adresse,ville,pays,role,cin
+                csv1@example.com,Password123!,Csv,One,0600000000,"12, rue des Écoles",Rabat,Maroc,DOCTORANT,D123456
+                csv2@example.com,short,Csv,Two,0600000000,Address,Rabat,Maroc,,
+                csv3@example.com,passwordpassword,Csv,Three,0600000000,Address,Rabat,Maroc,,
+                csv4@example.com,Password123!,Csv,Four,,Address,,,,
+                """;
+
+        mockMvc.perform(post("/api/admin/users/import")
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.rows[1].row").value(2))
+                .andExpect(jsonPath("$.rows[1].errors[0]").value("Le mot de passe doit contenir entre 12 et 64 caractères"))
+                // Same password rules as registration
+                .andExpect(jsonPath("$.rows[2].errors[0]").value(
+                        "Le mot de passe doit contenir au moins une majuscule, une minuscule, un chiffre et un caractère spécial"))
+                // Same required fields as registration: nothing is filled in by default
+                .andExpect(jsonPath("$.rows[3].errors").value(contains(
+                        "Numéro de téléphone obligatoire", "Ville obligatoire", "Pays obligatoire")));
+
+        User created = userRepository.findByEmail("csv1@example.com").orElseThrow();
+        assertThat(created.getAdresse()).isEqualTo("12, rue des Écoles");
+        assertThat(created.isProfileComplete()).isFalse();
+        assertThat(userProfileRepository.findByUserId(created.getId()).orElseThrow().getCin()).isEqualTo("D123456");
+    }
+
+    @Test
+    void testOversizedImportIsRejected() throws Exception {
+        List<UserImportRow> rows = new ArrayList<>();
+        for (int i = 0; i <= 5_000; i++) {
+            rows.add(row("oversized" + i + "@example.com", null, null));
+        }
+
+        mockMvc.perform(post("/api/admin/users/import")
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rows)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testImportIsReservedToAdmins() throws Exception {
+        mockMvc.perform(post("/api/admin/users/import")
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(row("doctorant@example.com", null, null)))))
+                .andExpect(status().isOk());
+        String doctorantAccessToken = login("doctorant@example.com", "Password123!");
+
+        mockMvc.perform(post("/api/admin/users/import")
+                .header("Authorization", "Bearer " + doctorantAccessToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(row("other@example.com", null, null)))))
+                .andExpect(status().isForbidden());
+    }
+}
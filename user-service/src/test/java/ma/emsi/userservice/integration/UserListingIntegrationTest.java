@@ -0,0 +1,168 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.dto.response.LoginResponse;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.enums.AccountStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration test for the user listing:
+ * keyset pages → every user once, in id order; filters → applied;
+ * export → one NDJSON or CSV line per user, for admins only.
+ */
+class UserListingIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String adminAccessToken;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setupUsers() throws Exception {
+        userIds.clear();
+        Role adminRole = roleRepository.findByName(RoleName.ROLE_ADMIN).orElseThrow();
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+
+        userIds.add(createUser("admin@example.com", "0612345601", adminRole, AccountStatus.ACTIVE));
+        for (int i = 1; i <= 4; i++) {
+            userIds.add(createUser("listing" + i + "@example.com", "061234560" + (i + 1), doctorantRole,
+                    i == 4 ? AccountStatus.DISABLED : AccountStatus.ACTIVE));
+        }
+
+        LoginRequest adminLogin = new LoginRequest("admin@example.com", "Password123!");
+        MvcResult loginResult = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(adminLogin)))
+                .andExpect(status().isOk())
+                .andReturn();
+        adminAccessToken = objectMapper.readValue(
+                loginResult.getResponse().getContentAsString(), LoginResponse.class).accessToken();
+    }
+
+    private Long createUser(String email, String phoneNumber, Role role, AccountStatus status) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("Password123!"));
+        user.setFirstName("Listing");
+        user.setLastName("User");
+        user.setPhoneNumber(phoneNumber);
+        user.setAdresse("Address, 1");
+        user.setVille("Rabat");
+        user.setPays("Morocco");
+        user.setRoles(Set.of(role));
+        user.setAccountStatus(status);
+        user.setEnabled(true);
+        return userRepository.save(user).getId();
+    }
+
+    @Test
+    void testKeysetPagesReturnEveryUserOnceInIdOrder() throws Exception {
+        List<Long> listed = new ArrayList<>();
+        Long afterId = null;
+        int pages = 0;
+        do {
+            MvcResult result = mockMvc.perform(get("/api/users")
+                    .param("size", "2")
+                    .param("afterId", afterId != null ? afterId.toString() : "0")
+                    .header("Authorization", "Bearer " + adminAccessToken))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+            page.get("users").forEach(user -> listed.add(user.get("id").asLong()));
+            afterId = page.get("nextAfterId").isNull() ? null : page.get("nextAfterId").asLong();
+            pages++;
+        } while (afterId != null);
+
+        assertThat(listed).containsExactlyElementsOf(userIds);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void testFiltersOnRoleAndStatus() throws Exception {
+        mockMvc.perform(get("/api/users")
+                .param("role", "ROLE_DOCTORANT")
+                .param("status", "ACTIVE")
+                .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(3))
+                .andExpect(jsonPath("$.users[0].id").value(userIds.get(1)))
+                .andExpect(jsonPath("$.users[0].roles[0]").value("ROLE_DOCTORANT"))
+                .andExpect(jsonPath("$.nextAfterId").isEmpty());
+    }
+
+    @Test
+    void testOversizedPageIsRejected() throws Exception {
+        mockMvc.perform(get("/api/users")
+                .param("size", "100000")
+                .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testExportStreamsOneLinePerUser() throws Exception {
+        MvcResult ndjson = mockMvc.perform(get("/api/users/export")
+                .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String ndjsonBody = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = ndjsonBody.lines().toList();
+        assertThat(lines).hasSize(userIds.size());
+        assertThat(objectMapper.readTree(lines.get(0)).get("id").asLong()).isEqualTo(userIds.get(0));
+        assertThat(objectMapper.readTree(lines.get(1)).get("roles").get(0).asText()).isEqualTo("ROLE_DOCTORANT");
+
+        MvcResult csv = mockMvc.perform(get("/api/users/export")
+                .param("format", "CSV")
+                .param("status", "DISABLED")
+                .header("Authorization", "Bearer " + adminAccessToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csvBody = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csvBody.lines().toList()).containsExactly(
+                "id,email,firstName,lastName,phoneNumber,adresse,ville,pays,roles",
+                userIds.get(4) + ",listing4@example.com,Listing,User,0612345605,\"Address, 1\",Rabat,Morocco,ROLE_DOCTORANT");
+    }
+
+    @Test
+    void testExportIsReservedToAdmins() throws Exception {
+        LoginRequest userLogin = new LoginRequest("listing1@example.com", "Password123!");
+        MvcResult loginResult = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userLogin)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String userAccessToken = objectMapper.readValue(
+                loginResult.getResponse().getContentAsString(), LoginResponse.class).accessToken();
+
+        mockMvc.perform(get("/api/users/export")
+                .header("Authorization", "Bearer " + userAccessToken))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,162 @@
+package ma.emsi.userservice.integration;
+
+import ma.emsi.userservice.dto.response.UserPageResponse;
+import ma.emsi.userservice.dto.response.UserResponse;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.repository.UserRepository;
+import ma.emsi.userservice.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark of the user search:
+ * seed 10 000 then 100 000 users with JDBC → the same selective searches stay as fast,
+ * and the query plan reads every searched column through its index.
+ * Run with: mvn test -Dtest=UserSearchBenchmarkIntegrationTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserSearchBenchmarkIntegrationTest extends IntegrationTestBase {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchBenchmarkIntegrationTest.class);
+
+    private static final int SMALL_TABLE = 10_000;
+    private static final int SEEDED_USERS = 100_000;
+    private static final int RUNS = 50;
+
+    // Each prefix matches about ten users whatever the size of the table
+    private static final List<String> QUERIES = List.of("Bench00042", "bench-4242", "Prenom000420", "BK00123");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void deleteSeededUsers() {
+        // Faster than deleting 100 000 entities through the repository in the next cleanDatabase
+        jdbcTemplate.update("DELETE FROM user_profiles WHERE user_id IN (SELECT id FROM users WHERE email LIKE 'bench-%')");
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE email LIKE 'bench-%')");
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bench-%'");
+    }
+
+    private void seed(int from, int to) {
+        String password = passwordEncoder.encode("Password123!");
+        for (int start = from; start < to; start += 10_000) {
+            List<Object[]> rows = new ArrayList<>(10_000);
+            for (int i = start; i < Math.min(start + 10_000, to); i++) {
+                rows.add(new Object[] {
+                        "bench-" + i + "@example.com", password,
+                        "Prenom" + String.format("%06d", i / 10), "Bench" + String.format("%06d", i) });
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO users (email, password, first_name, last_name, phone_number, "
+                    + "adresse, ville, pays, account_status, created_at, enabled, failed_login_attempts, profile_complete) "
+                    + "VALUES (?, ?, ?, ?, '0600000000', 'Address', 'Rabat', 'Morocco', 'ACTIVE', NOW(), true, 0, false)",
+                    rows);
+        }
+
+        // CIN "BK" + the digits of the last name; every user is a doctorant, every 10th also a directeur
+        jdbcTemplate.update("INSERT INTO user_profiles (user_id, cin, created_at) "
+                + "SELECT u.id, CONCAT('BK', SUBSTRING(u.last_name, 6)), NOW() FROM users u "
+                + "WHERE u.email LIKE 'bench-%' AND NOT EXISTS (SELECT 1 FROM user_profiles p WHERE p.user_id = u.id)");
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) "
+                + "SELECT u.id, r.id FROM users u, roles r WHERE u.email LIKE 'bench-%' AND r.name = ? "
+                + "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id)",
+                RoleName.ROLE_DOCTORANT.name());
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) "
+                + "SELECT u.id, r.id FROM users u, roles r WHERE u.email LIKE 'bench-%' AND r.name = ? "
+                + "AND SUBSTRING(u.last_name, 6) LIKE '%0' AND NOT EXISTS "
+                + "(SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = r.id)",
+                RoleName.ROLE_DIRECTEUR.name(), RoleName.ROLE_DIRECTEUR.name());
+
+        // Fresh statistics, as after a real import
+        jdbcTemplate.execute("ANALYZE TABLE users, user_profiles, user_roles");
+    }
+
+    /** Median time of one round of searches, in microseconds. */
+    private long medianSearchMicros() {
+        long[] timings = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            for (String query : QUERIES) {
+                userService.search(query, null, null, 20);
+            }
+            userService.search("Bench0004", RoleName.ROLE_DIRECTEUR, null, 20);
+            timings[run] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(timings);
+        return timings[RUNS / 2];
+    }
+
+    @Test
+    void testSearchStaysFlatAsTheTableGrows() throws Exception {
+        seed(0, SMALL_TABLE);
+        medianSearchMicros(); // warm-up
+        long small = medianSearchMicros();
+
+        seed(SMALL_TABLE, SEEDED_USERS);
+        medianSearchMicros(); // warm-up
+        long large = medianSearchMicros();
+
+        log.info("User search, {} queries: {} users → {} µs, {} users → {} µs",
+                QUERIES.size() + 1, SMALL_TABLE, small, SEEDED_USERS, large);
+
+        // Ten times the rows, about the same time (loose bound for shared CI machines)
+        assertThat(large).isLessThan(small * 3 + 20_000);
+
+        // Results over the full table
+        UserPageResponse byLastName = userService.search("Bench00042", null, null, 20);
+        assertThat(byLastName.users()).extracting(UserResponse::LastName)
+                .containsExactly("Bench000420", "Bench000421", "Bench000422", "Bench000423", "Bench000424",
+                        "Bench000425", "Bench000426", "Bench000427", "Bench000428", "Bench000429");
+        assertThat(userService.search("BK00123", null, null, 20).users()).hasSize(10);
+        assertThat(userService.search("Prenom000420", null, null, 20).users()).hasSize(10);
+
+        UserPageResponse directeurs = userService.search("Bench0004", RoleName.ROLE_DIRECTEUR, null, 20);
+        assertThat(directeurs.users()).extracting(UserResponse::LastName)
+                .containsExactly("Bench000400", "Bench000410", "Bench000420", "Bench000430", "Bench000440",
+                        "Bench000450", "Bench000460", "Bench000470", "Bench000480", "Bench000490");
+        assertThat(directeurs.nextAfterId()).isNull();
+        assertThat(directeurs.users()).allMatch(user -> user.roles().contains(RoleName.ROLE_DIRECTEUR.name()));
+
+        // Every branch reads its column through an index, never the whole table
+        String sql = UserRepository.class.getMethod("searchIdsByPrefix",
+                String.class, String.class, long.class, int.class).getAnnotation(Query.class).value();
+        List<Map<String, Object>> plan = namedParameterJdbcTemplate.queryForList("EXPLAIN " + sql,
+                new MapSqlParameterSource()
+                        .addValue("prefix", "Bench00042%")
+                        .addValue("role", null)
+                        .addValue("afterId", 0L)
+                        .addValue("limit", 21));
+        List<Map<String, Object>> columnReads = plan.stream()
+                .filter(row -> List.of("u", "p").contains(String.valueOf(row.get("table"))))
+                .toList();
+        assertThat(columnReads).hasSize(4);
+        assertThat(columnReads).allSatisfy(row -> {
+            assertThat(row.get("type")).isNotEqualTo("ALL");
+            assertThat(row.get("key")).isNotNull();
+        });
+    }
+}
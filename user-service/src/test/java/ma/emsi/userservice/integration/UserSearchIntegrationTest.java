@@ -0,0 +1,166 @@
+package ma.emsi.userservice.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.emsi.userservice.dto.request.LoginRequest;
+import ma.emsi.userservice.dto.response.LoginResponse;
+import ma.emsi.userservice.entity.Role;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.entity.User;
+import ma.emsi.userservice.entity.UserProfile;
+import ma.emsi.userservice.enums.AccountStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for the user search:
+ * prefix of last name, first name, email or CIN → matching users, in id order, case-insensitive;
+ * role filter and keyset pages; LIKE wildcards taken literally; reserved to directors and admins.
+ */
+class UserSearchIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String directeurAccessToken;
+    private Long alamiId;
+    private Long alaouiId;
+    private Long bennaniId;
+
+    @BeforeEach
+    void setupUsers() throws Exception {
+        Role directeurRole = roleRepository.findByName(RoleName.ROLE_DIRECTEUR).orElseThrow();
+        Role doctorantRole = roleRepository.findByName(RoleName.ROLE_DOCTORANT).orElseThrow();
+
+        createUser("directeur@example.com", "Karim", "Tazi", directeurRole, null);
+        alamiId = createUser("y.alami@example.com", "Youssef", "Alami", doctorantRole, "AB123456");
+        alaouiId = createUser("s.alaoui@example.com", "Salma", "Alaoui", directeurRole, "CD654321");
+        bennaniId = createUser("ali_b@example.com", "Ali", "Bennani", doctorantRole, "EE111111");
+
+        directeurAccessToken = login("directeur@example.com");
+    }
+
+    private Long createUser(String email, String firstName, String lastName, Role role, String cin) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("Password123!"));
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setPhoneNumber("0612345600");
+        user.setAdresse("Address");
+        user.setVille("Rabat");
+        user.setPays("Morocco");
+        user.setRoles(Set.of(role));
+        user.setAccountStatus(AccountStatus.ACTIVE);
+        user.setEnabled(true);
+        user = userRepository.save(user);
+
+        if (cin != null) {
+            UserProfile profile = new UserProfile();
+            profile.setUser(user);
+            profile.setCin(cin);
+            userProfileRepository.save(profile);
+        }
+        return user.getId();
+    }
+
+    private String login(String email) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest(email, "Password123!"))))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), LoginResponse.class).accessToken();
+    }
+
+    private List<Long> search(String query) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/users/search")
+                .param("q", query)
+                .header("Authorization", "Bearer " + directeurAccessToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(result.getResponse().getContentAsString()).get("users")
+                .forEach(user -> ids.add(user.get("id").asLong()));
+        return ids;
+    }
+
+    @Test
+    void testSearchMatchesEachColumnPrefix() throws Exception {
+        assertThat(search("ala")).containsExactly(alamiId, alaouiId);     // last name, any case
+        assertThat(search("Salm")).containsExactly(alaouiId);             // first name
+        assertThat(search("y.alami@")).containsExactly(alamiId);          // email
+        assertThat(search("CD65")).containsExactly(alaouiId);             // CIN
+        assertThat(search("ami")).isEmpty();                              // not a prefix
+    }
+
+    @Test
+    void testRoleFilterAndKeysetPages() throws Exception {
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "al")
+                .param("role", "ROLE_DIRECTEUR")
+                .header("Authorization", "Bearer " + directeurAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].id").value(alaouiId))
+                .andExpect(jsonPath("$.nextAfterId").isEmpty());
+
+        // "al" matches Alami, Alaoui (last name) and Ali (first name)
+        MvcResult first = mockMvc.perform(get("/api/users/search")
+                .param("q", "al")
+                .param("size", "2")
+                .header("Authorization", "Bearer " + directeurAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andReturn();
+        JsonNode page = objectMapper.readTree(first.getResponse().getContentAsString());
+        assertThat(page.get("nextAfterId").asLong()).isEqualTo(alaouiId);
+
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "al")
+                .param("size", "2")
+                .param("afterId", page.get("nextAfterId").asText())
+                .header("Authorization", "Bearer " + directeurAccessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].id").value(bennaniId))
+                .andExpect(jsonPath("$.nextAfterId").isEmpty());
+    }
+
+    @Test
+    void testWildcardsAreLiteral() throws Exception {
+        assertThat(search("ali_")).containsExactly(bennaniId);
+        assertThat(search("%a")).isEmpty();
+    }
+
+    @Test
+    void testInvalidSearchesAreRejected() throws Exception {
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "a")
+                .header("Authorization", "Bearer " + directeurAccessToken))
+                .andExpect(status().isBadRequest());
+
+        String doctorantAccessToken = login("y.alami@example.com");
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "ala")
+                .header("Authorization", "Bearer " + doctorantAccessToken))
+                .andExpect(status().isForbidden());
+    }
+}
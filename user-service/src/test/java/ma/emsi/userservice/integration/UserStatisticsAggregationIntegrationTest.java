@@ -0,0 +1,109 @@
+package ma.emsi.userservice.integration;
+
+import ma.emsi.userservice.dto.response.UserStatisticsResponse;
+import ma.emsi.userservice.entity.RoleName;
+import ma.emsi.userservice.enums.AccountStatus;
+import ma.emsi.userservice.service.StatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the user statistics aggregates:
+ * seed tens of thousands of users with JDBC → compare the statistics with the expected counts.
+ */
+class UserStatisticsAggregationIntegrationTest extends IntegrationTestBase {
+
+    private static final int SEEDED_USERS = 20_000;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void deleteSeededUsers() {
+        // Faster than deleting 20 000 entities through the repository in the next cleanDatabase
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE email LIKE 'seed-%')");
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'seed-%'");
+    }
+
+    @Test
+    void testStatisticsOverSeededDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        String password = passwordEncoder.encode("Password123!");
+
+        Map<String, Long> expectedByRole = new HashMap<>();
+        Map<AccountStatus, Long> expectedByStatus = new HashMap<>();
+        long expectedNewThisMonth = 0;
+
+        List<Object[]> rows = new ArrayList<>(SEEDED_USERS);
+        Map<String, List<RoleName>> rolesByEmail = new HashMap<>(SEEDED_USERS * 2);
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            // Every 4th user is a directeur, the others are doctorants; every 10th also is an active doctorant
+            RoleName role = i % 4 == 0 ? RoleName.ROLE_DIRECTEUR : RoleName.ROLE_DOCTORANT;
+            boolean actif = i % 10 == 0;
+            AccountStatus status = i % 50 == 0 ? AccountStatus.LOCKED
+                    : i % 20 == 1 ? AccountStatus.DISABLED
+                    : AccountStatus.ACTIVE;
+            LocalDateTime createdAt = i % 3 == 0 ? now : now.minusMonths(2);
+
+            expectedByRole.merge(role.name(), 1L, Long::sum);
+            if (actif) {
+                expectedByRole.merge(RoleName.ROLE_DOCTORANT_ACTIF.name(), 1L, Long::sum);
+            }
+            expectedByStatus.merge(status, 1L, Long::sum);
+            if (i % 3 == 0) {
+                expectedNewThisMonth++;
+            }
+
+            String email = "seed-" + i + "@example.com";
+            rolesByEmail.put(email, actif ? List.of(role, RoleName.ROLE_DOCTORANT_ACTIF) : List.of(role));
+            rows.add(new Object[] {
+                    email, password, "Seed", "User" + i, "0600000000",
+                    "Address", "Rabat", "Morocco", status.name(), Timestamp.valueOf(createdAt) });
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, first_name, last_name, phone_number, "
+                + "adresse, ville, pays, account_status, created_at, enabled, failed_login_attempts, profile_complete) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true, 0, false)", rows);
+
+        // Roles assigned in bulk from the ids generated for the seeded emails
+        Map<RoleName, Long> roleIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM roles", rs -> {
+            roleIds.put(RoleName.valueOf(rs.getString("name")), rs.getLong("id"));
+        });
+        List<Object[]> userRoles = new ArrayList<>(SEEDED_USERS * 2);
+        jdbcTemplate.query("SELECT id, email FROM users WHERE email LIKE 'seed-%'", rs -> {
+            long userId = rs.getLong("id");
+            for (RoleName role : rolesByEmail.get(rs.getString("email"))) {
+                userRoles.add(new Object[] { userId, roleIds.get(role) });
+            }
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)", userRoles);
+
+        UserStatisticsResponse statistics = statisticsService.getUserStatistics();
+
+        assertThat(statistics.total()).isEqualTo(SEEDED_USERS);
+        assertThat(statistics.byRole()).isEqualTo(expectedByRole);
+        assertThat(statistics.active()).isEqualTo(expectedByStatus.get(AccountStatus.ACTIVE));
+        assertThat(statistics.disabled()).isEqualTo(expectedByStatus.get(AccountStatus.DISABLED));
+        assertThat(statistics.locked()).isEqualTo(expectedByStatus.get(AccountStatus.LOCKED));
+        assertThat(statistics.newThisMonth()).isEqualTo(expectedNewThisMonth);
+    }
+}